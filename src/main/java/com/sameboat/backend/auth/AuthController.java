@@ -5,6 +5,7 @@ import com.sameboat.backend.auth.dto.RegisterRequest;
 import com.sameboat.backend.auth.session.SessionService;
 import com.sameboat.backend.common.ErrorResponse;
 import com.sameboat.backend.config.SameboatProperties;
+import com.sameboat.backend.user.UserEntity;
 import com.sameboat.backend.user.UserMapper;
 import com.sameboat.backend.user.UserService;
 import jakarta.servlet.http.Cookie;
@@ -20,6 +21,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.Map;
+import java.util.Optional;
 
 /**
  * REST controller providing authentication endpoints: register, login and logout.
@@ -37,6 +39,7 @@ public class AuthController {
     private final PasswordEncoder passwordEncoder;
     private final SameboatProperties props;
     private final RateLimiterService rateLimiter;
+    private final AuthService authService;
 
     /**
      * Constructor with dependencies injected.
@@ -45,13 +48,15 @@ public class AuthController {
      * @param passwordEncoder   the password encoder for hashing and verifying passwords
      * @param props                      application configuration properties
      * @param rateLimiter              the rate limiter service for login attempts
+     * @param authService              the registration flow (single transaction, insert-if-absent)
      */
-    public AuthController(UserService userService, SessionService sessionService, PasswordEncoder passwordEncoder, SameboatProperties props, RateLimiterService rateLimiter) {
+    public AuthController(UserService userService, SessionService sessionService, PasswordEncoder passwordEncoder, SameboatProperties props, RateLimiterService rateLimiter, AuthService authService) {
         this.userService = userService;
         this.sessionService = sessionService;
         this.passwordEncoder = passwordEncoder;
         this.props = props;
         this.rateLimiter = rateLimiter;
+        this.authService = authService;
     }
 
     private String resolveCookieDomain(jakarta.servlet.http.HttpServletRequest request) {
@@ -74,7 +79,7 @@ public class AuthController {
 
     /**
      * Builds the session cookie with appropriate attributes.
-     * @param token the session token value
+     * @param token the session token value (UUID or signed token, see {@code SessionService#issueToken})
      * @return  the constructed Cookie object
      */
     private Cookie buildSessionCookie(String token, jakarta.servlet.http.HttpServletRequest request) {
@@ -135,18 +140,15 @@ public class AuthController {
     public ResponseEntity<?> register(@RequestBody @Valid RegisterRequest request, HttpServletResponse response,
                                       jakarta.servlet.http.HttpServletRequest httpRequest) {
         String emailNorm = userService.normalizeEmail(request.email());
-        if (userService.getByEmailNormalized(emailNorm).isPresent()) {
+        var registration = authService.register(emailNorm, request.password(), request.displayName());
+        if (registration.isEmpty()) {
             return ResponseEntity.status(HttpStatus.CONFLICT)
                     .body(new ErrorResponse("EMAIL_EXISTS", "Email already registered"));
         }
-        var user = userService.registerNew(emailNorm, request.password(), passwordEncoder);
-        if (request.displayName() != null && !request.displayName().isBlank()) {
-            user.setDisplayName(request.displayName());
-        }
-        var session = sessionService.createSession(user.getId(), java.time.Duration.ofDays(props.getSession().getTtlDays()));
-        response.addCookie(buildSessionCookie(session.getId().toString(), httpRequest));
-        log.info("Registration success userId={} email={}", user.getId(), user.getEmail());
-        return ResponseEntity.ok(Map.of("userId", user.getId().toString()));
+        var reg = registration.get();
+        response.addCookie(buildSessionCookie(sessionService.issueToken(reg.session(), reg.role()), httpRequest));
+        log.info("Registration success userId={} email={}", reg.userId(), emailNorm);
+        return ResponseEntity.ok(Map.of("userId", reg.userId().toString()));
     }
 
     /**
@@ -184,18 +186,22 @@ public class AuthController {
         if (rateLimiter.isLimited(key)) {
             return rateLimited(key);
         }
-        var userOpt = userService.getByEmailNormalized(emailNorm);
         var authCfg = props.getAuth();
+        // Definite misses of the email filter skip the users query; dev auto-create needs the real lookup.
+        boolean mightExist = authCfg.isDevAutoCreate() || authService.mightExist(emailNorm);
+        var userOpt = mightExist ? userService.getByEmailNormalized(emailNorm) : Optional.<UserEntity>empty();
         if (userOpt.isEmpty()) {
-            log.debug("Login failed - user not found email={}", emailNorm);
+            log.debug("Login failed - user not found email={} filtered={}", emailNorm, !mightExist);
             if (authCfg.isDevAutoCreate() && authCfg.getStubPassword().equals(passwordRaw)) {
                 log.info("Auto-creating dev user email={}", emailNorm);
                 var created = userService.registerNew(emailNorm, passwordRaw, passwordEncoder);
+                authService.accountCreated(created.getId(), emailNorm);
                 var session = sessionService.createSession(created.getId(), java.time.Duration.ofDays(props.getSession().getTtlDays()));
-                response.addCookie(buildSessionCookie(session.getId().toString(), httpRequest));
+                response.addCookie(buildSessionCookie(sessionService.issueToken(session, created.getRole()), httpRequest));
                 rateLimiter.reset(key);
                 return ResponseEntity.ok(new LoginResponse(UserMapper.toDto(created)));
             }
+            authService.burnDummyHash(passwordRaw); // same cost as a wrong password for a real account
             if (rateLimiter.recordFailure(key)) {
                 return rateLimited(key);
             }
@@ -209,9 +215,10 @@ public class AuthController {
             }
             return badCredentials(emailNorm);
         }
-        var session = sessionService.createSession(user.getId(), java.time.Duration.ofDays(props.getSession().getTtlDays()));
+        // committed before the cookie is issued
+        var session = authService.completeLogin(user, passwordRaw);
         log.info("Login success userId={} email={} sessionId={}", user.getId(), user.getEmail(), session.getId());
-        response.addCookie(buildSessionCookie(session.getId().toString(), httpRequest));
+        response.addCookie(buildSessionCookie(sessionService.issueToken(session, user.getRole()), httpRequest));
         rateLimiter.reset(key);
         return ResponseEntity.ok(new LoginResponse(UserMapper.toDto(user)));
     }
@@ -0,0 +1,185 @@
+package com.sameboat.backend.auth;
+
+import com.sameboat.backend.auth.session.SessionEntity;
+import com.sameboat.backend.auth.session.SessionService;
+import com.sameboat.backend.common.ServiceOverloadedException;
+import com.sameboat.backend.common.invalidation.CacheInvalidationBus;
+import com.sameboat.backend.common.invalidation.InvalidationEvent;
+import com.sameboat.backend.config.SameboatProperties;
+import com.sameboat.backend.user.EmailExistenceFilter;
+import com.sameboat.backend.user.UserEntity;
+import com.sameboat.backend.user.UserService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Registration and login write paths, each kept to one transaction.
+ * <p>
+ * Registration runs without pre-checks: the password is hashed first
+ * (outside any transaction, so no connection is held during bcrypt), then the user row is
+ * inserted with {@code ON CONFLICT DO NOTHING} and the session created in the same
+ * transaction. A taken email is detected from the insert itself, which also closes the
+ * check-then-insert race of concurrent sign-ups. New emails are added to the
+ * {@link EmailExistenceFilter} here and on peers via a {@code USER_CREATED} invalidation.
+ * <p>
+ * Login ({@link #completeLogin}) likewise does any password rehash before opening a
+ * transaction, then writes the upgraded hash (if any) and the new session in one transaction
+ * that commits once; callers issue the cookie only after it returns.
+ */
+@Service
+public class AuthService {
+
+    private static final Logger log = LoggerFactory.getLogger(AuthService.class);
+
+    /**
+     * Outcome of a successful registration.
+     * @param userId  new user id
+     * @param role    role assigned to the new user
+     * @param session session created for it
+     */
+    public record Registration(UUID userId, String role, SessionEntity session) { }
+
+    private static final String DEFAULT_ROLE = "USER";
+
+    private final UserService userService;
+    private final SessionService sessionService;
+    private final PasswordEncoder passwordEncoder;
+    private final TransactionTemplate transactionTemplate;
+    private final SameboatProperties props;
+    private final EmailExistenceFilter emailFilter;
+    private final CacheInvalidationBus invalidationBus;
+    /**
+     * Hash of a random password at the current cost; verified against on unknown-email logins.
+     * Computed at startup and again only if the encoder reports it outdated.
+     */
+    private volatile String dummyHash;
+
+    public AuthService(UserService userService, SessionService sessionService, PasswordEncoder passwordEncoder,
+                       TransactionTemplate transactionTemplate, SameboatProperties props,
+                       EmailExistenceFilter emailFilter, CacheInvalidationBus invalidationBus) {
+        this.userService = userService;
+        this.sessionService = sessionService;
+        this.passwordEncoder = passwordEncoder;
+        this.transactionTemplate = transactionTemplate;
+        this.props = props;
+        this.emailFilter = emailFilter;
+        this.invalidationBus = invalidationBus;
+    }
+
+    /**
+     * Registers a user and opens a session for it.
+     * @param normalizedEmail trimmed, lowercased email
+     * @param rawPassword     plaintext password (already validated)
+     * @param displayName     optional display name
+     * @return the registration, or empty when the email is already registered
+     */
+    public Optional<Registration> register(String normalizedEmail, String rawPassword, String displayName) {
+        String hash = passwordEncoder.encode(rawPassword);
+        UUID userId = UUID.randomUUID();
+        Duration ttl = Duration.ofDays(props.getSession().getTtlDays());
+        Optional<Registration> registration = transactionTemplate.execute(status -> {
+            if (!userService.insertIfAbsent(userId, normalizedEmail, hash, displayName)) {
+                return Optional.empty();
+            }
+            return Optional.of(new Registration(userId, DEFAULT_ROLE, sessionService.createSession(userId, ttl)));
+        });
+        if (registration != null && registration.isPresent()) {
+            accountCreated(userId, normalizedEmail);
+            return registration;
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Write side of a successful login: upgrades an outdated password hash and creates the
+     * session in a single transaction.
+     * @param user        the authenticated user
+     * @param rawPassword the verified plaintext password (used only for rehashing)
+     * @return the committed session
+     */
+    public SessionEntity completeLogin(UserEntity user, String rawPassword) {
+        String current = user.getPasswordHash();
+        String upgraded = rehash(user.getId(), current, rawPassword);
+        Duration ttl = Duration.ofDays(props.getSession().getTtlDays());
+        SessionEntity session = transactionTemplate.execute(status -> {
+            if (upgraded != null && userService.replacePasswordHash(user.getId(), current, upgraded)) {
+                user.setPasswordHash(upgraded);
+                log.info("Upgraded password hash userId={}", user.getId());
+            }
+            return sessionService.createSession(user.getId(), ttl);
+        });
+        return Objects.requireNonNull(session);
+    }
+
+    /**
+     * Hashes the password with the current encoder parameters when the stored hash is outdated
+     * (legacy format or lower cost). Best effort: skipped when the hashing executor is saturated,
+     * and retried on the next login.
+     * @return the new hash, or null when no upgrade is needed or possible now
+     */
+    private String rehash(UUID userId, String currentHash, String rawPassword) {
+        if (!passwordEncoder.upgradeEncoding(currentHash)) return null;
+        try {
+            return passwordEncoder.encode(rawPassword);
+        } catch (ServiceOverloadedException ex) {
+            log.debug("Skipped password rehash userId={}: {}", userId, ex.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Makes a newly created account visible to the email existence filter on every instance.
+     * Call after the user row is committed, from every code path that creates users; accounts
+     * inserted any other way are rejected at login until the filter's next periodic rebuild.
+     */
+    public void accountCreated(UUID userId, String normalizedEmail) {
+        emailFilter.add(normalizedEmail);
+        invalidationBus.publish(InvalidationEvent.userCreated(userId));
+    }
+
+    /**
+     * True if an account with this email might exist; false means it definitely does not and
+     * the users query can be skipped.
+     */
+    public boolean mightExist(String normalizedEmail) {
+        return emailFilter.mightExist(normalizedEmail);
+    }
+
+    /**
+     * Hashes the dummy password once the application is up, so no login pays for the extra
+     * {@code encode}. If it fails (hashing executor saturated) the first unknown-email login
+     * computes it instead.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void prepareDummyHash() {
+        try {
+            dummyHash = passwordEncoder.encode(UUID.randomUUID().toString());
+        } catch (ServiceOverloadedException ex) {
+            log.warn("Dummy password hash not prepared at startup: {}", ex.getMessage());
+        }
+    }
+
+    /**
+     * Verifies the password against a dummy hash of the same cost so a login for an unknown
+     * email takes as long as one for a known email with a wrong password. The hash is replaced
+     * when the encoder's cost no longer matches it ({@code upgradeEncoding} only parses it).
+     */
+    public void burnDummyHash(String rawPassword) {
+        String hash = dummyHash;
+        if (hash == null || passwordEncoder.upgradeEncoding(hash)) {
+            hash = passwordEncoder.encode(UUID.randomUUID().toString());
+            dummyHash = hash;
+        }
+        passwordEncoder.matches(rawPassword == null ? "" : rawPassword, hash);
+    }
+}
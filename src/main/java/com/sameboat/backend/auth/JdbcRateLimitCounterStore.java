@@ -0,0 +1,91 @@
+package com.sameboat.backend.auth;
+
+import com.sameboat.backend.config.SameboatProperties;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Array;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Postgres implementation of {@link RateLimitCounterStore} on the UNLOGGED
+ * {@code rate_limit_counters} table (migration V7). Every call is one statement (chunked for
+ * very large key sets) and runs with a query timeout derived from
+ * {@code sameboat.rate-limit.shared.sync-timeout}, so a slow database surfaces as an exception
+ * instead of stalling the sync.
+ */
+@Component
+@ConditionalOnProperty(prefix = "sameboat.rate-limit.shared", name = "enabled", havingValue = "true")
+public class JdbcRateLimitCounterStore implements RateLimitCounterStore {
+
+    private static final int CHUNK = 1000;
+
+    private static final String UPSERT_SQL = """
+            insert into rate_limit_counters (key, window_start, hits) values (?, ?, ?)
+            on conflict (key, window_start) do update set hits = rate_limit_counters.hits + excluded.hits""";
+
+    private final JdbcTemplate jdbc;
+
+    public JdbcRateLimitCounterStore(DataSource dataSource, SameboatProperties props) {
+        this.jdbc = new JdbcTemplate(dataSource);
+        long timeoutMillis = props.getRateLimit().getShared().getSyncTimeout().toMillis();
+        this.jdbc.setQueryTimeout((int) Math.max(1, (timeoutMillis + 999) / 1000)); // JDBC timeouts are whole seconds
+    }
+
+    @Override
+    public void add(Map<Counter, Long> deltas) {
+        if (deltas.isEmpty()) return;
+        List<Object[]> rows = new ArrayList<>(deltas.size());
+        deltas.forEach((c, n) -> rows.add(new Object[]{c.key(), c.windowStart(), n.intValue()}));
+        // sorted so concurrent syncs from several instances lock rows in the same order
+        rows.sort((a, b) -> {
+            int cmp = ((String) a[0]).compareTo((String) b[0]);
+            return cmp != 0 ? cmp : Long.compare((Long) a[1], (Long) b[1]);
+        });
+        jdbc.batchUpdate(UPSERT_SQL, rows);
+    }
+
+    @Override
+    public void reset(Collection<String> keys) {
+        forEachChunk(keys, chunk -> jdbc.update(con -> {
+            var ps = con.prepareStatement("delete from rate_limit_counters where key = any(?)");
+            ps.setArray(1, con.createArrayOf("text", chunk.toArray()));
+            return ps;
+        }));
+    }
+
+    @Override
+    public Map<Counter, Long> totals(Collection<String> keys, long fromWindowStart) {
+        Map<Counter, Long> totals = new HashMap<>();
+        forEachChunk(keys, chunk -> jdbc.query(con -> {
+            var ps = con.prepareStatement(
+                    "select key, window_start, hits from rate_limit_counters where key = any(?) and window_start >= ?");
+            Array array = con.createArrayOf("text", chunk.toArray());
+            ps.setArray(1, array);
+            ps.setLong(2, fromWindowStart);
+            return ps;
+        }, (org.springframework.jdbc.core.RowCallbackHandler) rs -> {
+            totals.put(new Counter(rs.getString(1), rs.getLong(2)), rs.getLong(3));
+        }));
+        return totals;
+    }
+
+    @Override
+    public int purgeBefore(long windowStart) {
+        return jdbc.update("delete from rate_limit_counters where window_start < ?", windowStart);
+    }
+
+    private static void forEachChunk(Collection<String> keys, Consumer<List<String>> action) {
+        List<String> all = keys instanceof List<String> l ? l : new ArrayList<>(keys);
+        for (int i = 0; i < all.size(); i += CHUNK) {
+            action.accept(all.subList(i, Math.min(all.size(), i + CHUNK)));
+        }
+    }
+}
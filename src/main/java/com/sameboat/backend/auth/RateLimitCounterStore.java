@@ -0,0 +1,36 @@
+package com.sameboat.backend.auth;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Shared storage for login failure counters, aggregated across instances in fixed windows.
+ * {@link RateLimiterService} batches local increments and calls the store from a single
+ * scheduled sync, so implementations see a few bulk calls per second rather than one per
+ * attempt. Implementations may throw any {@link RuntimeException}; the limiter then falls
+ * back to local-only limiting.
+ */
+public interface RateLimitCounterStore {
+
+    /**
+     * One counter cell.
+     * @param key         limiter key (email+IP)
+     * @param windowStart epoch millis of the fixed window start
+     */
+    record Counter(String key, long windowStart) { }
+
+    /** Adds the given hit deltas (upsert). */
+    void add(Map<Counter, Long> deltas);
+
+    /** Removes all windows of the given keys (successful login). */
+    void reset(Collection<String> keys);
+
+    /** Cluster totals of the given keys for windows starting at or after {@code fromWindowStart}. */
+    Map<Counter, Long> totals(Collection<String> keys, long fromWindowStart);
+
+    /**
+     * Deletes windows starting before {@code windowStart}.
+     * @return number of removed rows
+     */
+    int purgeBefore(long windowStart);
+}
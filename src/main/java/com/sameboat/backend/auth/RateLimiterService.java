@@ -1,19 +1,45 @@
 package com.sameboat.backend.auth;
 
+import com.sameboat.backend.config.SameboatProperties;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+import java.time.Clock;
 import java.time.Duration;
-import java.time.Instant;
-import java.util.ArrayDeque;
-import java.util.Deque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
- * Naive in-memory rate limiter keyed by an arbitrary string (e.g., email+IP).
+ * In-memory rate limiter keyed by an arbitrary string (e.g., email+IP).
  * Limits to MAX_ATTEMPTS within WINDOW. Intended for login endpoints.
  * Thread-safe per key via CHM.compute(..).
+ * <p>
+ * Memory is bounded regardless of key cardinality: each key holds a fixed ring of
+ * {@code MAX_ATTEMPTS} epoch-millisecond timestamps (no per-failure allocation), at most
+ * {@code sameboat.rate-limit.max-tracked-keys} keys are tracked, and a sweeper drops keys
+ * with no failure inside the window every {@code sweep-interval}. When the key table is
+ * full, failures for untracked keys are reported as limited (fail closed) until the sweeper
+ * frees space; keys already tracked keep their own budget.
+ * <p>
+ * With {@code sameboat.rate-limit.shared.enabled=true} failures are also counted cluster-wide
+ * through a {@link RateLimitCounterStore}. Failures are accumulated locally and flushed by
+ * {@link #syncShared()} every {@code sync-interval}, which also re-reads the cluster totals of
+ * the keys flushed or checked here since the previous sync (not every tracked key); a key is
+ * limited when its local ring or the sliding-window estimate over the shared fixed windows
+ * reaches the threshold. Totals of a key are therefore up to one sync interval stale while it
+ * is being checked, and keep their last known (lower-bound) value while it is not.
+ * A successful login ({@link #reset}) clears the key locally at once and deletes its shared
+ * counter rows at the next sync. A sync that fails or takes longer than {@code sync-timeout} switches the
+ * instance to local-only limiting for {@code degraded-backoff}.
  */
 @Component
 public class RateLimiterService {
@@ -21,19 +47,84 @@ public class RateLimiterService {
 
     private static final int MAX_ATTEMPTS = 5;
     private static final Duration WINDOW = Duration.ofMinutes(5);
+    private static final long WINDOW_MILLIS = WINDOW.toMillis();
 
-    private final ConcurrentHashMap<String, ArrayDeque<Instant>> buckets = new ConcurrentHashMap<>();
+    /** Last MAX_ATTEMPTS failure times of one key; only mutated inside CHM.compute for that key. */
+    private static final class FailureRing {
+        private final long[] times = new long[MAX_ATTEMPTS];
+        private int next;
+        private int size;
+
+        void add(long now) {
+            times[next] = now;
+            next = (next + 1) % MAX_ATTEMPTS;
+            if (size < MAX_ATTEMPTS) size++;
+        }
+
+        /** Failures recorded after {@code cutoff}. */
+        int countSince(long cutoff) {
+            int n = 0;
+            for (int i = 0; i < size; i++) {
+                if (times[i] > cutoff) n++;
+            }
+            return n;
+        }
+
+        long newest() {
+            return size == 0 ? Long.MIN_VALUE : times[(next - 1 + MAX_ATTEMPTS) % MAX_ATTEMPTS];
+        }
+    }
+
+    private final ConcurrentHashMap<String, FailureRing> buckets = new ConcurrentHashMap<>();
+    /** Rejections while the key table was full since the last warning (logged once per sweep, not per request). */
+    private final LongAdder overflowRejections = new LongAdder();
+    private final Clock clock;
+    private final int maxTrackedKeys;
+
+    /** Shared counter store, or null when running local-only. */
+    private final RateLimitCounterStore store;
+    private final long syncTimeoutNanos;
+    private final long degradedBackoffMillis;
+    /**
+     * Failures recorded here and not yet flushed to the store, per key: window start to count.
+     * Inner maps are immutable and replaced atomically per key, so {@link #reset} drops a key
+     * in O(1) and a sync hands off each key's windows in one remove.
+     */
+    private final ConcurrentHashMap<String, Map<Long, Long>> pendingHits = new ConcurrentHashMap<>();
+    /** Keys whose cluster totals were read since the last sync; only these (and flushed keys) are re-read. */
+    private final Set<String> checkedKeys = ConcurrentHashMap.newKeySet();
+    /** Keys reset by a successful login and not yet cleared in the store. */
+    private final Set<String> pendingResets = ConcurrentHashMap.newKeySet();
+    /** Cluster totals of recently checked keys, per key like {@link #pendingHits} (a new map is swapped in on every sync). */
+    private volatile ConcurrentHashMap<String, Map<Long, Long>> clusterTotals = new ConcurrentHashMap<>();
+    private volatile long degradedUntil;
+
+    public RateLimiterService(ObjectProvider<SameboatProperties> propsProvider, ObjectProvider<Clock> clockProvider,
+                              ObjectProvider<RateLimitCounterStore> storeProvider) {
+        var cfg = propsProvider.getIfAvailable(SameboatProperties::new).getRateLimit();
+        this.maxTrackedKeys = cfg.getMaxTrackedKeys();
+        this.clock = clockProvider.getIfAvailable(Clock::systemUTC);
+        this.store = cfg.getShared().isEnabled() ? storeProvider.getIfAvailable() : null;
+        this.syncTimeoutNanos = cfg.getShared().getSyncTimeout().toNanos();
+        this.degradedBackoffMillis = cfg.getShared().getDegradedBackoff().toMillis();
+        if (cfg.getShared().isEnabled() && store == null) {
+            log.warn("sameboat.rate-limit.shared.enabled is set but no RateLimitCounterStore is available; limiting locally");
+        }
+    }
 
     /** Returns true if the key is currently rate limited (at or above threshold). */
     public boolean isLimited(String key) {
-        final Instant now = Instant.now();
+        if (sharedLimited(key, clock.millis())) return true;
+        FailureRing ring = buckets.get(key);
+        if (ring == null) return false;
+        final long cutoff = clock.millis() - WINDOW_MILLIS;
         final boolean[] limited = new boolean[1];
 
-        // Atomically clean & check this bucket; remove it if it becomes empty.
-        buckets.computeIfPresent(key, (k, q) -> {
-            evictOld(q, now);
-            limited[0] = q.size() >= MAX_ATTEMPTS;
-            return q.isEmpty() ? null : q; // returning null deletes the entry
+        // Atomically check this bucket; remove it once every recorded failure is outside the window.
+        buckets.computeIfPresent(key, (k, r) -> {
+            int recent = r.countSince(cutoff);
+            limited[0] = recent >= MAX_ATTEMPTS;
+            return recent == 0 ? null : r; // returning null deletes the entry
         });
 
         return limited[0];
@@ -41,33 +132,176 @@ public class RateLimiterService {
 
     /** Records a failed attempt at current time; returns true if it hits the limit threshold after recording. */
     public boolean recordFailure(String key) {
-        final Instant now = Instant.now();
-        final boolean[] limited = new boolean[1];
+        final long now = clock.millis();
+        final long cutoff = now - WINDOW_MILLIS;
+        final int[] recent = new int[1];
 
-        buckets.compute(key, (k, q) -> {
-            if (q == null) q = new ArrayDeque<>();
-            evictOld(q, now);
-            q.addLast(now);
-            limited[0] = q.size() >= MAX_ATTEMPTS;
-            return q;
+        if (!buckets.containsKey(key) && buckets.mappingCount() >= maxTrackedKeys) {
+            overflowRejections.increment();
+            return true;
+        }
+        if (store != null && (pendingHits.containsKey(key) || pendingHits.size() < maxTrackedKeys)) {
+            pendingHits.merge(key, Map.of(windowStart(now), 1L), RateLimiterService::sum);
+        }
+        buckets.compute(key, (k, r) -> {
+            if (r == null) r = new FailureRing();
+            r.add(now);
+            recent[0] = r.countSince(cutoff);
+            return r;
         });
 
-        if (limited[0]) {
+        // log only when the threshold is crossed so a hammered key does not flood the log
+        if (recent[0] == MAX_ATTEMPTS) {
             log.info("Rate limit reached for key={} (>= {} failures within {} min)", key, MAX_ATTEMPTS, WINDOW.toMinutes());
         }
-        return limited[0];
+        return recent[0] >= MAX_ATTEMPTS || sharedLimited(key, now);
     }
 
-    /** Resets the bucket on success (optional soft reset). */
+    /**
+     * Resets the bucket on success (optional soft reset). In shared mode the key's unflushed and
+     * cached cluster counts are dropped here and its {@code rate_limit_counters} rows are deleted
+     * by the next sync, so the cluster-wide count restarts too. Constant time per call.
+     */
     public void reset(String key) {
         buckets.remove(key);
+        if (store != null) {
+            pendingHits.remove(key);
+            clusterTotals.remove(key);
+            if (pendingResets.size() < maxTrackedKeys) pendingResets.add(key);
+        }
+    }
+
+    /** True while shared counting is configured and the store is currently healthy. */
+    public boolean isSharedActive() {
+        return store != null && clock.millis() >= degradedUntil;
+    }
+
+    /**
+     * Flushes locally accumulated failures and resets to the shared store and re-reads the
+     * cluster totals of the keys flushed or checked since the previous sync. Totals of other
+     * keys are carried over until their windows age out. Keys reset since the previous sync are
+     * deleted from the store first. No-op when running local-only or degraded.
+     * @return number of counter cells flushed
+     */
+    @Scheduled(fixedDelayString = "${sameboat.rate-limit.shared.sync-interval:PT1S}",
+            initialDelayString = "${sameboat.rate-limit.shared.sync-interval:PT1S}")
+    public int syncShared() {
+        if (!isSharedActive()) return 0;
+        Map<String, Map<Long, Long>> taken = new HashMap<>();
+        Map<RateLimitCounterStore.Counter, Long> deltas = new HashMap<>();
+        for (String key : pendingHits.keySet()) {
+            var windows = pendingHits.remove(key); // atomic hand-off; concurrent failures re-add
+            if (windows == null) continue;
+            taken.put(key, windows);
+            windows.forEach((start, n) -> deltas.put(new RateLimitCounterStore.Counter(key, start), n));
+        }
+        List<String> resets = new ArrayList<>(pendingResets);
+        pendingResets.removeAll(resets);
+        Set<String> watched = new HashSet<>(checkedKeys);
+        checkedKeys.removeAll(watched);
+        watched.addAll(taken.keySet());
+
+        long started = System.nanoTime();
+        try {
+            if (!resets.isEmpty()) store.reset(resets);
+            store.add(deltas);
+            long since = windowStart(clock.millis()) - WINDOW_MILLIS;
+            var totals = new ConcurrentHashMap<String, Map<Long, Long>>();
+            clusterTotals.forEach((key, windows) -> {
+                if (watched.contains(key) || pendingResets.contains(key)) return;
+                var live = new HashMap<>(windows);
+                live.keySet().removeIf(start -> start < since);
+                if (!live.isEmpty()) totals.put(key, Map.copyOf(live));
+            });
+            if (!watched.isEmpty()) {
+                store.totals(watched, since).forEach((c, n) ->
+                        totals.merge(c.key(), Map.of(c.windowStart(), n), RateLimiterService::sum));
+            }
+            clusterTotals = totals;
+        } catch (RuntimeException ex) {
+            degrade("sync failed: " + ex.getMessage());
+            taken.forEach((key, windows) -> pendingHits.merge(key, windows, RateLimiterService::sum)); // retried after the backoff
+            pendingResets.addAll(resets);
+            return 0;
+        }
+        long elapsed = System.nanoTime() - started;
+        if (elapsed > syncTimeoutNanos) {
+            degrade("sync took " + Duration.ofNanos(elapsed).toMillis() + " ms");
+        }
+        return deltas.size();
+    }
+
+    private void degrade(String reason) {
+        degradedUntil = clock.millis() + degradedBackoffMillis;
+        clusterTotals = new ConcurrentHashMap<>();
+        checkedKeys.clear();
+        log.warn("Shared rate limit store unhealthy ({}); limiting locally for {} s", reason, degradedBackoffMillis / 1000);
     }
 
-    private static void evictOld(Deque<Instant> q, Instant now) {
-        final Instant cutoff = now.minus(WINDOW);
-        while (!q.isEmpty() && q.peekFirst().isBefore(cutoff)) {
-            q.removeFirst();
+    /**
+     * Sliding-window estimate over the shared fixed windows: the previous window's count is
+     * weighted by the share of it still inside the sliding window. Marks the key for re-reading
+     * at the next sync.
+     */
+    private boolean sharedLimited(String key, long now) {
+        if (store == null || now < degradedUntil) return false;
+        if (checkedKeys.size() < maxTrackedKeys) checkedKeys.add(key);
+        long current = windowStart(now);
+        long inCurrent = sharedCount(key, current);
+        long inPrevious = sharedCount(key, current - WINDOW_MILLIS);
+        double previousWeight = 1.0 - (double) (now - current) / WINDOW_MILLIS;
+        return inCurrent + inPrevious * previousWeight >= MAX_ATTEMPTS;
+    }
+
+    private long sharedCount(String key, long windowStart) {
+        return count(clusterTotals.get(key), windowStart) + count(pendingHits.get(key), windowStart);
+    }
+
+    private static long count(Map<Long, Long> windows, long windowStart) {
+        return windows == null ? 0 : windows.getOrDefault(windowStart, 0L);
+    }
+
+    /** Merges two immutable window maps into a new one (counts of the same window are added). */
+    private static Map<Long, Long> sum(Map<Long, Long> a, Map<Long, Long> b) {
+        var merged = new HashMap<>(a);
+        b.forEach((start, n) -> merged.merge(start, n, Long::sum));
+        return Map.copyOf(merged);
+    }
+
+    private static long windowStart(long millis) {
+        return millis - Math.floorMod(millis, WINDOW_MILLIS);
+    }
+
+    /** Number of keys currently tracked. */
+    public int trackedKeys() {
+        return (int) Math.min(Integer.MAX_VALUE, buckets.mappingCount());
+    }
+
+    /**
+     * Drops keys whose newest failure is outside the window.
+     * @return number of removed keys
+     */
+    @Scheduled(fixedDelayString = "${sameboat.rate-limit.sweep-interval:PT1M}",
+            initialDelayString = "${sameboat.rate-limit.sweep-interval:PT1M}")
+    public int sweepIdle() {
+        final long cutoff = clock.millis() - WINDOW_MILLIS;
+        int before = trackedKeys();
+        for (String key : buckets.keySet()) {
+            buckets.computeIfPresent(key, (k, r) -> r.newest() > cutoff ? r : null);
+        }
+        int removed = before - trackedKeys();
+        if (removed > 0) log.debug("Rate limiter swept {} idle key(s)", removed);
+        if (isSharedActive()) {
+            try {
+                store.purgeBefore(windowStart(clock.millis()) - WINDOW_MILLIS);
+            } catch (RuntimeException ex) {
+                log.debug("Shared rate limit purge failed: {}", ex.getMessage());
+            }
         }
+        long rejected = overflowRejections.sumThenReset();
+        if (rejected > 0) {
+            log.warn("Rate limiter key table was full ({} keys); limited {} failure(s) for untracked keys", maxTrackedKeys, rejected);
+        }
+        return Math.max(removed, 0);
     }
 }
-
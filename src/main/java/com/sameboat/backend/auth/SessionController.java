@@ -0,0 +1,73 @@
+package com.sameboat.backend.auth;
+
+import com.sameboat.backend.auth.dto.SessionDto;
+import com.sameboat.backend.auth.session.SessionService;
+import com.sameboat.backend.common.ErrorResponse;
+import com.sameboat.backend.common.ResourceNotFoundException;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Session registry of the current user: list active sessions, revoke one, or revoke all
+ * ("log out everywhere"), optionally keeping the session making the request.
+ */
+@RestController
+@RequestMapping({"", "/api"})
+public class SessionController {
+
+    private final SessionService sessionService;
+
+    public SessionController(SessionService sessionService) {
+        this.sessionService = sessionService;
+    }
+
+    @GetMapping("/me/sessions")
+    public ResponseEntity<?> list(Authentication authentication, HttpServletRequest request,
+                                  @CookieValue(value = "SBSESSION", required = false) String token) {
+        if (!(principal(authentication) instanceof AuthPrincipal ap)) return unauthenticated(request);
+        UUID current = sessionService.sessionIdOf(token).orElse(null);
+        var sessions = sessionService.listActive(ap.userId()).stream()
+                .map(s -> new SessionDto(s.getId(), s.getCreatedAt(), s.getLastSeenAt(), s.getExpiresAt(), s.getId().equals(current)))
+                .toList();
+        return ResponseEntity.ok(sessions);
+    }
+
+    @DeleteMapping("/me/sessions/{id}")
+    public ResponseEntity<?> revoke(Authentication authentication, HttpServletRequest request, @PathVariable("id") UUID id) {
+        if (!(principal(authentication) instanceof AuthPrincipal ap)) return unauthenticated(request);
+        if (!sessionService.revoke(ap.userId(), id)) {
+            throw new ResourceNotFoundException("Session not found");
+        }
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Revokes every session of the current user. With {@code keepCurrent=true} the session
+     * making the request survives ("log out other devices").
+     */
+    @DeleteMapping("/me/sessions")
+    public ResponseEntity<?> revokeAll(Authentication authentication, HttpServletRequest request,
+                                       @CookieValue(value = "SBSESSION", required = false) String token,
+                                       @RequestParam(value = "keepCurrent", defaultValue = "false") boolean keepCurrent) {
+        if (!(principal(authentication) instanceof AuthPrincipal ap)) return unauthenticated(request);
+        UUID keep = keepCurrent ? sessionService.sessionIdOf(token).orElse(null) : null;
+        int revoked = sessionService.revokeAll(ap.userId(), keep);
+        return ResponseEntity.ok(Map.of("revoked", revoked));
+    }
+
+    private static Object principal(Authentication authentication) {
+        return authentication == null ? null : authentication.getPrincipal();
+    }
+
+    private static ResponseEntity<ErrorResponse> unauthenticated(HttpServletRequest request) {
+        if (Boolean.TRUE.equals(request.getAttribute("sameboat.sessionExpired"))) {
+            return ResponseEntity.status(401).body(new ErrorResponse("SESSION_EXPIRED", "Session expired"));
+        }
+        return ResponseEntity.status(401).body(new ErrorResponse("UNAUTHENTICATED", "Authentication required"));
+    }
+}
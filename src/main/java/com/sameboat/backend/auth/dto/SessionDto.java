@@ -0,0 +1,15 @@
+package com.sameboat.backend.auth.dto;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * Active session of the current user as listed by {@code GET /me/sessions}.
+ * @param id         session id (usable with {@code DELETE /me/sessions/{id}})
+ * @param createdAt  login time
+ * @param lastSeenAt last recorded activity (coalesced, may lag by the touch interval)
+ * @param expiresAt  absolute expiry
+ * @param current    true for the session making the request
+ */
+public record SessionDto(UUID id, OffsetDateTime createdAt, OffsetDateTime lastSeenAt,
+                         OffsetDateTime expiresAt, boolean current) { }
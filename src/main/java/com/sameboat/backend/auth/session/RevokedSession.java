@@ -0,0 +1,12 @@
+package com.sameboat.backend.auth.session;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * Id and expiry of a session, as held by the {@link SessionRevocationList}: loaded for revoked,
+ * unexpired sessions on refresh, and for sessions about to be revoked in bulk.
+ * @param id        session id
+ * @param expiresAt session expiry (entry can be dropped after this)
+ */
+public record RevokedSession(UUID id, OffsetDateTime expiresAt) { }
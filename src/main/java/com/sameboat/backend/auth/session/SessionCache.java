@@ -0,0 +1,58 @@
+package com.sameboat.backend.auth.session;
+
+import com.sameboat.backend.common.BoundedTtlCache;
+import com.sameboat.backend.common.invalidation.CacheInvalidationListener;
+import com.sameboat.backend.common.invalidation.InvalidationEvent;
+import com.sameboat.backend.config.SameboatProperties;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * In-process cache of validated sessions keyed by session id. Lets the authentication
+ * filter skip the session and user lookups for repeat requests carrying the same cookie.
+ * Bounded by {@code sameboat.session.cache.max-entries} and {@code sameboat.session.cache.ttl};
+ * session expiry itself is still checked by {@link SessionService} on every hit.
+ * Logouts and profile changes on any instance reach it through the cache invalidation bus.
+ */
+@Component
+public class SessionCache implements CacheInvalidationListener {
+
+    private final BoundedTtlCache<UUID, SessionPrincipal> cache;
+
+    public SessionCache(ObjectProvider<SameboatProperties> propsProvider, ObjectProvider<Clock> clockProvider) {
+        var cfg = propsProvider.getIfAvailable(SameboatProperties::new).getSession().getCache();
+        this.cache = new BoundedTtlCache<>(cfg.getMaxEntries(), cfg.getTtl(), clockProvider.getIfAvailable(Clock::systemUTC));
+    }
+
+    public Optional<SessionPrincipal> get(UUID sessionId) { return cache.get(sessionId); }
+
+    public void put(SessionPrincipal principal) { cache.put(principal.sessionId(), principal); }
+
+    public void evict(UUID sessionId) { cache.invalidate(sessionId); }
+
+    /** Drops every cached session belonging to the user. */
+    public int evictUser(UUID userId) { return cache.invalidateIf(p -> p.userId().equals(userId)); }
+
+    /** Drops entries whose session (not cache entry) expired before {@code now}. */
+    public int evictExpiredSessions(Instant now) {
+        cache.evictExpired();
+        return cache.invalidateIf(p -> p.isExpiredAt(now));
+    }
+
+    public int size() { return cache.size(); }
+
+    @Override
+    public void onInvalidation(InvalidationEvent event) {
+        switch (event.kind()) {
+            case SESSION -> evict(event.id());
+            case USER, USER_SESSIONS -> evictUser(event.id());
+            case ALL -> cache.invalidateAll();
+            case USER_CREATED -> { } // a new user has no cached sessions
+        }
+    }
+}
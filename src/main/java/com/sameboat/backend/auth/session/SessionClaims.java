@@ -0,0 +1,24 @@
+package com.sameboat.backend.auth.session;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Claims carried by a signed session token (see {@link SessionTokenCodec}).
+ * @param sessionId session identifier (row in {@code sessions})
+ * @param userId    owning user id
+ * @param role      owning user role at issue time (informational; authorization reads the current role)
+ * @param expiresAt absolute session expiry
+ */
+public record SessionClaims(UUID sessionId, UUID userId, String role, Instant expiresAt) {
+
+    /** True when the token is no longer valid at the given instant. */
+    public boolean isExpiredAt(Instant now) {
+        return !expiresAt.isAfter(now);
+    }
+
+    /** Partition-narrowed lookup key of the session behind this token. */
+    public SessionKey key() {
+        return new SessionKey(sessionId, expiresAt);
+    }
+}
@@ -8,11 +8,21 @@ import lombok.Setter;
 import lombok.NoArgsConstructor;
 import lombok.EqualsAndHashCode;
 import lombok.AccessLevel;
+import org.springframework.data.domain.Persistable;
 
 /**
  * JPA entity representing an authenticated browser/session token. Stores user linkage,
  * creation, last-seen and expiry timestamps (UTC). Expiry enforcement is handled in
  * the service layer rather than a DB constraint for portability.
+ * <p>
+ * On Postgres the table is range-partitioned by {@code expires_at} (migration V6), so the
+ * database primary key is {@code (id, expires_at)}; {@code id} alone is still unique and
+ * remains the JPA identifier.
+ * <p>
+ * Ids are assigned by the application ({@link #SessionEntity(UUID)}, or on persist when
+ * unset). The entity implements {@link Persistable} so {@code save()} of a new session is a
+ * plain {@code persist} (no {@code merge} SELECT for an assigned id), letting the INSERT be
+ * deferred to the flush at commit and batched with other writes.
  */
 @Entity
 @Table(name = "sessions")
@@ -20,11 +30,10 @@ import lombok.AccessLevel;
 @Setter
 @NoArgsConstructor
 @EqualsAndHashCode(onlyExplicitlyIncluded = true)
-public class SessionEntity {
+public class SessionEntity implements Persistable<UUID> {
 
     /** Unique session identifier (also used as cookie value). */
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
     @EqualsAndHashCode.Include
     @Column(columnDefinition = "uuid")
     @Setter(AccessLevel.NONE)
@@ -47,8 +56,35 @@ public class SessionEntity {
     @Column(name = "expires_at", nullable = false)
     private OffsetDateTime expiresAt;
 
+    /** Set when a signed-token session is logged out; such rows are kept until expiry for the revocation list. */
+    @Column(name = "revoked_at")
+    private OffsetDateTime revokedAt;
+
+    /** True until the entity has been persisted or loaded. */
+    @Transient
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private boolean newEntity = true;
+
+    /** Creates a new session with an application-assigned id. */
+    public SessionEntity(UUID id) {
+        this.id = id;
+    }
+
+    @Override
+    public boolean isNew() {
+        return newEntity;
+    }
+
+    @PostPersist
+    @PostLoad
+    void markNotNew() {
+        newEntity = false;
+    }
+
     @PrePersist
     void prePersist() {
+        if (id == null) id = UUID.randomUUID();
         var now = OffsetDateTime.now();
         if (createdAt == null) createdAt = now;
         if (lastSeenAt == null) lastSeenAt = createdAt;
@@ -0,0 +1,37 @@
+package com.sameboat.backend.auth.session;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.UUID;
+
+/**
+ * Lookup key of a session: its id plus the expiry second carried by the cookie. On Postgres
+ * {@code sessions} is partitioned by {@code expires_at}, so queries bounded by
+ * {@link #expiresFrom()}..{@link #expiresTo()} touch one partition instead of probing all.
+ * @param id        session identifier
+ * @param expiresAt expiry carried by the cookie (second precision), null for legacy bare-UUID cookies
+ */
+public record SessionKey(UUID id, Instant expiresAt) {
+
+    /** Key for a session whose exact expiry is known (entity, principal or signed claims). */
+    public static SessionKey of(UUID id, OffsetDateTime expiresAt) {
+        return new SessionKey(id, expiresAt == null ? null : expiresAt.toInstant());
+    }
+
+    /** True when the key can be narrowed to the session's partition. */
+    public boolean hasExpiry() {
+        return expiresAt != null;
+    }
+
+    /** Inclusive lower bound on {@code expires_at}: the expiry second. */
+    public OffsetDateTime expiresFrom() {
+        return OffsetDateTime.ofInstant(expiresAt.truncatedTo(ChronoUnit.SECONDS), ZoneOffset.UTC);
+    }
+
+    /** Exclusive upper bound on {@code expires_at}: one second after {@link #expiresFrom()}. */
+    public OffsetDateTime expiresTo() {
+        return expiresFrom().plusSeconds(1);
+    }
+}
@@ -0,0 +1,167 @@
+package com.sameboat.backend.auth.session;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Maintains the daily range partitions of the Postgres {@code sessions} table created by
+ * migration V6: partitions are named {@code sessions_pYYYYMMDD} and hold sessions whose
+ * {@code expires_at} falls on that UTC day. Future partitions are created ahead of the
+ * session TTL; partitions whose whole day has passed are detached and dropped, which
+ * removes their expired sessions without row deletes. There is no default partition
+ * (which would rule out concurrent detach), so each day's partition must exist before
+ * sessions expiring on it are inserted.
+ * <p>
+ * Detaching uses {@code DETACH PARTITION ... CONCURRENTLY}, which only takes SHARE UPDATE
+ * EXCLUSIVE on {@code sessions}, under a short {@code lock_timeout}; a detach that times out,
+ * or is interrupted between its two phases, is finished on a later run. Works on a
+ * caller-supplied autocommit connection (the statement cannot run inside a transaction).
+ */
+public class SessionPartitionManager {
+
+    private static final Logger log = LoggerFactory.getLogger(SessionPartitionManager.class);
+
+    private static final Pattern DAILY = Pattern.compile("sessions_p(\\d{8})");
+    private static final DateTimeFormatter DAY = DateTimeFormatter.BASIC_ISO_DATE;
+
+    private static final String LIST_PARTITIONS_SQL =
+            "select c.relname from pg_inherits i " +
+            "join pg_class c on c.oid = i.inhrelid " +
+            "join pg_class p on p.oid = i.inhparent " +
+            "where p.relname = 'sessions' and p.relnamespace = current_schema()::regnamespace";
+
+    /**
+     * Every daily table with its attachment state: {@code inhdetachpending} is null once a table
+     * is fully detached (left behind when its drop failed), true mid-detach, false when attached.
+     */
+    private static final String LIST_DAILY_TABLES_SQL =
+            "select c.relname, i.inhdetachpending from pg_class c " +
+            "left join pg_inherits i on i.inhrelid = c.oid " +
+            "where c.relkind = 'r' and c.relname ~ '^sessions_p[0-9]{8}$' " +
+            "and c.relnamespace = current_schema()::regnamespace";
+
+    private final int lookaheadDays;
+    private final Duration lockTimeout;
+
+    /**
+     * @param lookaheadDays number of future days (beyond today) that must have a partition;
+     *                      should exceed the session TTL
+     * @param lockTimeout   lock wait allowed for each detach or drop statement
+     */
+    public SessionPartitionManager(int lookaheadDays, Duration lockTimeout) {
+        this.lookaheadDays = lookaheadDays;
+        this.lockTimeout = lockTimeout;
+    }
+
+    /** True when {@code sessions} in the current schema is a partitioned table. */
+    public boolean isPartitioned(Connection conn) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(
+                "select relkind from pg_class where relname = 'sessions' and relnamespace = current_schema()::regnamespace");
+             ResultSet rs = ps.executeQuery()) {
+            return rs.next() && "p".equals(rs.getString(1));
+        }
+    }
+
+    /**
+     * Creates missing daily partitions for {@code today .. today + lookaheadDays}. A partition
+     * that cannot be created is logged and skipped; the next run tries again.
+     * @return number of partitions created
+     */
+    public int createFuturePartitions(Connection conn, LocalDate today) throws SQLException {
+        var existing = dailyPartitions(conn);
+        int created = 0;
+        for (int i = 0; i <= lookaheadDays; i++) {
+            LocalDate day = today.plusDays(i);
+            if (existing.contains(day)) continue;
+            String sql = "create table if not exists " + name(day) + " partition of sessions for values from ('"
+                    + day + " 00:00:00+00') to ('" + day.plusDays(1) + " 00:00:00+00')";
+            try (Statement st = conn.createStatement()) {
+                st.execute(sql);
+                created++;
+            } catch (SQLException ex) {
+                log.warn("Could not create session partition {}: {}", name(day), ex.getMessage());
+            }
+        }
+        if (created > 0) log.info("Created {} session partition(s) through {}", created, today.plusDays(lookaheadDays));
+        return created;
+    }
+
+    /**
+     * Detaches (concurrently) and drops daily partitions whose entire range lies before
+     * {@code today} (every session in them has expired). A partition whose detach or drop
+     * hits the lock timeout is logged and left for the next run.
+     * @return number of partitions dropped
+     */
+    public int dropExpiredPartitions(Connection conn, LocalDate today) throws SQLException {
+        Map<LocalDate, Boolean> tables = dailyTables(conn);
+        int dropped = 0;
+        try (Statement st = conn.createStatement()) {
+            st.execute("set lock_timeout = " + Math.max(1, lockTimeout.toMillis()));
+            try {
+                for (var table : tables.entrySet()) {
+                    LocalDate day = table.getKey();
+                    if (day.plusDays(1).isAfter(today)) continue;
+                    Boolean pending = table.getValue();
+                    try {
+                        if (pending != null) {
+                            st.execute("alter table sessions detach partition " + name(day)
+                                    + (pending ? " finalize" : " concurrently"));
+                        }
+                        st.execute("drop table " + name(day));
+                        dropped++;
+                    } catch (SQLException ex) {
+                        log.warn("Could not drop session partition {} (retrying next run): {}", name(day), ex.getMessage());
+                    }
+                }
+            } finally {
+                st.execute("reset lock_timeout");
+            }
+        }
+        if (dropped > 0) log.info("Dropped {} expired session partition(s) before {}", dropped, today);
+        return dropped;
+    }
+
+    /** Daily tables by day; value as described on {@link #LIST_DAILY_TABLES_SQL}. */
+    private Map<LocalDate, Boolean> dailyTables(Connection conn) throws SQLException {
+        Map<LocalDate, Boolean> tables = new TreeMap<>();
+        try (PreparedStatement ps = conn.prepareStatement(LIST_DAILY_TABLES_SQL); ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                Matcher m = DAILY.matcher(rs.getString(1));
+                if (!m.matches()) continue;
+                boolean pending = rs.getBoolean(2);
+                tables.put(LocalDate.parse(m.group(1), DAY), rs.wasNull() ? null : pending);
+            }
+        }
+        return tables;
+    }
+
+    private List<LocalDate> dailyPartitions(Connection conn) throws SQLException {
+        List<LocalDate> days = new ArrayList<>();
+        try (PreparedStatement ps = conn.prepareStatement(LIST_PARTITIONS_SQL); ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                Matcher m = DAILY.matcher(rs.getString(1));
+                if (m.matches()) days.add(LocalDate.parse(m.group(1), DAY));
+            }
+        }
+        return days;
+    }
+
+    private static String name(LocalDate day) {
+        return "sessions_p" + DAY.format(day);
+    }
+}
@@ -0,0 +1,36 @@
+package com.sameboat.backend.auth.session;
+
+import com.sameboat.backend.auth.AuthPrincipal;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * Immutable snapshot of a validated session joined with the identity fields needed to
+ * authenticate a request. Safe to share between threads and to keep in {@link SessionCache}.
+ * @param sessionId session identifier (cookie value)
+ * @param userId    owning user id
+ * @param email     owning user email
+ * @param role      owning user role
+ * @param expiresAt absolute session expiry
+ * @param lastSeenAt last persisted activity timestamp (used to skip redundant touches)
+ */
+public record SessionPrincipal(UUID sessionId, UUID userId, String email, String role,
+                               OffsetDateTime expiresAt, OffsetDateTime lastSeenAt) {
+
+    /** True when the session is no longer valid at the given instant. */
+    public boolean isExpiredAt(Instant now) {
+        return expiresAt == null || !expiresAt.toInstant().isAfter(now);
+    }
+
+    /** Partition-narrowed lookup key of this session. */
+    public SessionKey key() {
+        return SessionKey.of(sessionId, expiresAt);
+    }
+
+    /** Converts to the principal type stored in the Spring Security context. */
+    public AuthPrincipal toAuthPrincipal() {
+        return new AuthPrincipal(userId, email, role);
+    }
+}
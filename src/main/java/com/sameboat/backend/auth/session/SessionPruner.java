@@ -1,15 +1,33 @@
 package com.sameboat.backend.auth.session;
 
+import com.sameboat.backend.config.SameboatProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
 
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
 import java.time.OffsetDateTime;
 import java.time.ZoneOffset;
 
 /**
  * Periodic job that deletes expired sessions from the database. Runs at a
- * fixed delay; cron can be adjusted later if needed. Exposes a pruneNow()
+ * fixed delay configured under {@code sameboat.session.prune}. Exposes a pruneNow()
  * method for tests and ad-hoc invocations.
  */
 @Component
@@ -23,29 +41,230 @@ public class SessionPruner {
 
     /**
      * Prunes expired sessions from the database.
-     * Runs every hour, starting 2 minutes after application start.
-     * // TODO: Externalize schedule timing to application.yml if environment tuning needed
+     * Runs every {@code sameboat.session.prune.interval} (default 1h), starting
+     * {@code initial-delay} (default 2 minutes) after application start.
      */
-    @Scheduled(fixedDelayString = "PT1H", initialDelayString = "PT2M")
+    @Scheduled(fixedDelayString = "${sameboat.session.prune.interval:PT1H}",
+            initialDelayString = "${sameboat.session.prune.initial-delay:PT2M}")
     public void scheduledPrune() {
         sessionPruneService.pruneNow();
     }
 
     /**
-     * Service to handle transactional session pruning.
+     * Deletes expired sessions in bounded batches, each committed on its own, with a pause
+     * between batches so a large backlog does not hold locks or produce one huge WAL burst.
+     * Each batch borrows a pooled connection only for its own short transaction and returns
+     * it before the pause, so a run never pins a connection while sleeping. On Postgres every
+     * batch takes a transaction-level advisory lock; an instance that finds it held ends its
+     * run, so only one instance prunes at a time. Also sweeps expired entries out of the
+     * {@link SessionCache}. Times come from the injected {@link Clock}.
+     * <p>
+     * When {@code sessions} is range-partitioned (Postgres, migration V6) expired days are
+     * removed by dropping whole partitions via {@link SessionPartitionManager} and future
+     * partitions are created ahead of the TTL; no rows are deleted one by one. Sessions that
+     * expired earlier today stay until their partition is dropped; expiry is enforced at
+     * request time regardless. Partition days are taken in UTC regardless of the clock's zone.
+     * The pause between batches sleeps on the calling scheduler thread, so the scheduling pool
+     * ({@code spring.task.scheduling.pool.size}) must have room for the other periodic jobs.
+     * <p>
+     * Metrics: {@code sameboat.sessions.pruned} (rows deleted),
+     * {@code sameboat.sessions.partitions.dropped} and {@code sameboat.sessions.prune.duration}
+     * (tagged {@code result=completed|skipped}).
      */
     @Component
     public static class SessionPruneService {
-        private final SessionRepository sessionRepository;
 
-        public SessionPruneService(SessionRepository sessionRepository) {
-            this.sessionRepository = sessionRepository;
+        private static final Logger log = LoggerFactory.getLogger(SessionPruneService.class);
+
+        /** Arbitrary application-wide advisory lock key ("SBPRUNE1" as ASCII). */
+        static final long ADVISORY_LOCK_KEY = 0x5342_5052_554E_4531L;
+
+        private static final String DELETE_BATCH_SQL =
+                "delete from %1$s where id in (select id from %1$s where expires_at < ? limit ?)";
+
+        private final JdbcTemplate jdbcTemplate;
+        private final SessionCache sessionCache;
+        private final SameboatProperties.Session.Prune cfg;
+        private final SessionPartitionManager partitions;
+        private final Counter prunedCounter;
+        private final Counter partitionsDroppedCounter;
+        private final Timer completedTimer;
+        private final Timer skippedTimer;
+        private final Clock clock;
+
+        public SessionPruneService(JdbcTemplate jdbcTemplate, SessionCache sessionCache,
+                                   ObjectProvider<SameboatProperties> propsProvider,
+                                   ObjectProvider<MeterRegistry> meterRegistryProvider,
+                                   ObjectProvider<Clock> clockProvider) {
+            this.jdbcTemplate = jdbcTemplate;
+            this.sessionCache = sessionCache;
+            this.clock = clockProvider.getIfAvailable(Clock::systemUTC);
+            var sessionCfg = propsProvider.getIfAvailable(SameboatProperties::new).getSession();
+            this.cfg = sessionCfg.getPrune();
+            // a session created today expires ttlDays from now; keep a small margin beyond that
+            this.partitions = new SessionPartitionManager(sessionCfg.getTtlDays() + 2, cfg.getDetachLockTimeout());
+            MeterRegistry registry = meterRegistryProvider.getIfAvailable(SimpleMeterRegistry::new);
+            this.prunedCounter = Counter.builder("sameboat.sessions.pruned")
+                    .description("Expired sessions deleted by the pruner").register(registry);
+            this.partitionsDroppedCounter = Counter.builder("sameboat.sessions.partitions.dropped")
+                    .description("Expired session partitions detached and dropped").register(registry);
+            this.completedTimer = Timer.builder("sameboat.sessions.prune.duration")
+                    .tag("result", "completed").register(registry);
+            this.skippedTimer = Timer.builder("sameboat.sessions.prune.duration")
+                    .tag("result", "skipped").register(registry);
         }
 
-        @Transactional
+        /**
+         * Runs one prune pass. Must not be called inside a transaction (each batch commits).
+         * @return number of deleted sessions (0 when another instance holds the lock)
+         */
         public long pruneNow() {
-            var now = OffsetDateTime.now(ZoneOffset.UTC);
-            return sessionRepository.deleteExpiredSessions(now);
+            long start = System.nanoTime();
+            var now = OffsetDateTime.now(clock);
+            long result = prune(now);
+            sessionCache.evictExpiredSessions(now.toInstant());
+            (result < 0 ? skippedTimer : completedTimer).record(Duration.ofNanos(System.nanoTime() - start));
+            return Math.max(result, 0);
+        }
+
+        /**
+         * Creates upcoming session partitions right after startup so inserts never depend on
+         * the first scheduled prune. No-op unless {@code sessions} is partitioned.
+         */
+        @EventListener(ApplicationReadyEvent.class)
+        public void prepareSessionPartitions() {
+            try {
+                jdbcTemplate.execute((ConnectionCallback<Integer>) conn -> {
+                    if (!isPostgres(conn) || !tryLock(conn)) return 0;
+                    try {
+                        return partitions.isPartitioned(conn)
+                                ? partitions.createFuturePartitions(conn, LocalDate.now(clock.withZone(ZoneOffset.UTC))) : 0;
+                    } finally {
+                        unlock(conn);
+                    }
+                });
+            } catch (RuntimeException ex) {
+                log.warn("Session partition preparation failed: {}", ex.getMessage());
+            }
+        }
+
+        /** @return rows deleted, or -1 if another instance is pruning */
+        private long prune(OffsetDateTime cutoff) {
+            String table = jdbcTemplate.execute((ConnectionCallback<String>) conn -> maintainPartitions(conn, cutoff));
+            if (table == null) {
+                log.debug("Session prune skipped; another instance holds the lock");
+                return -1;
+            }
+            return table.isEmpty() ? 0 : deleteInBatches(cutoff, table);
+        }
+
+        /**
+         * Partition upkeep on Postgres, under a session-level advisory lock that is released
+         * before returning (no pauses happen while it is held).
+         * @return table to prune with row deletes, empty when whole partitions cover it, or null
+         *         if another instance holds the lock
+         */
+        private String maintainPartitions(Connection conn, OffsetDateTime cutoff) throws SQLException {
+            if (!isPostgres(conn)) return "sessions";
+            if (!tryLock(conn)) return null;
+            try {
+                if (!partitions.isPartitioned(conn)) return "sessions";
+                // partitions are UTC days, whatever zone the injected clock uses
+                LocalDate today = cutoff.atZoneSameInstant(ZoneOffset.UTC).toLocalDate();
+                partitions.createFuturePartitions(conn, today);
+                partitionsDroppedCounter.increment(partitions.dropExpiredPartitions(conn, today));
+                return "";
+            } finally {
+                unlock(conn);
+            }
+        }
+
+        private long deleteInBatches(OffsetDateTime cutoff, String table) {
+            long total = 0;
+            int batches = 0;
+            while (batches < cfg.getMaxBatches()) {
+                Integer n = jdbcTemplate.execute((ConnectionCallback<Integer>) conn -> deleteBatch(conn, cutoff, table));
+                if (n == null || n < 0) {
+                    if (batches == 0) return -1;
+                    break; // another instance took over mid-run
+                }
+                total += n;
+                prunedCounter.increment(n);
+                batches++;
+                if (n < cfg.getBatchSize()) break;
+                if (!pause()) break; // connection already returned to the pool
+            }
+            if (total > 0) log.info("Pruned {} expired sessions in {} batch(es)", total, batches);
+            return total;
+        }
+
+        /**
+         * One batch in its own transaction; on Postgres guarded by a transaction-level advisory
+         * lock released by the commit.
+         * @return rows deleted, or -1 if the lock is held elsewhere
+         */
+        private int deleteBatch(Connection conn, OffsetDateTime cutoff, String table) throws SQLException {
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try {
+                if (isPostgres(conn) && !tryXactLock(conn)) {
+                    conn.rollback();
+                    return -1;
+                }
+                int n;
+                try (PreparedStatement ps = conn.prepareStatement(DELETE_BATCH_SQL.formatted(table))) {
+                    ps.setObject(1, cutoff);
+                    ps.setInt(2, cfg.getBatchSize());
+                    n = ps.executeUpdate();
+                }
+                conn.commit();
+                return n;
+            } catch (SQLException | RuntimeException ex) {
+                conn.rollback();
+                throw ex;
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+        }
+
+        private boolean pause() {
+            if (cfg.getPause().isZero()) return true;
+            try {
+                Thread.sleep(cfg.getPause());
+                return true;
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+
+        private static boolean isPostgres(Connection conn) throws SQLException {
+            return "PostgreSQL".equals(conn.getMetaData().getDatabaseProductName());
+        }
+
+        private static boolean tryLock(Connection conn) throws SQLException {
+            try (PreparedStatement ps = conn.prepareStatement("select pg_try_advisory_lock(?)")) {
+                ps.setLong(1, ADVISORY_LOCK_KEY);
+                try (ResultSet rs = ps.executeQuery()) {
+                    return rs.next() && rs.getBoolean(1);
+                }
+            }
+        }
+
+        private static boolean tryXactLock(Connection conn) throws SQLException {
+            try (PreparedStatement ps = conn.prepareStatement("select pg_try_advisory_xact_lock(?)")) {
+                ps.setLong(1, ADVISORY_LOCK_KEY);
+                try (ResultSet rs = ps.executeQuery()) {
+                    return rs.next() && rs.getBoolean(1);
+                }
+            }
+        }
+
+        private static void unlock(Connection conn) throws SQLException {
+            try (PreparedStatement ps = conn.prepareStatement("select pg_advisory_unlock(?)")) {
+                ps.setLong(1, ADVISORY_LOCK_KEY);
+                ps.execute();
+            }
         }
     }
 }
@@ -6,6 +6,8 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 /**
@@ -17,4 +19,85 @@ public interface SessionRepository extends JpaRepository<SessionEntity, UUID> {
     @Modifying(clearAutomatically = true, flushAutomatically = true)
     @Query("delete from SessionEntity s where s.expiresAt < :cutoff")
     int deleteExpiredSessions(@Param("cutoff") OffsetDateTime cutoff);
+
+    /**
+     * Resolves the session and its owning user's identity fields in one statement,
+     * returning a read-only projection (no managed entities are hydrated).
+     */
+    @Query("select new com.sameboat.backend.auth.session.SessionPrincipal(s.id, u.id, u.email, u.role, s.expiresAt, s.lastSeenAt) " +
+            "from SessionEntity s join UserEntity u on u.id = s.userId where s.id = :id and s.revokedAt is null")
+    Optional<SessionPrincipal> findPrincipalById(@Param("id") UUID id);
+
+    /**
+     * {@link #findPrincipalById} narrowed to the expiry window of a {@link SessionKey}, so on
+     * Postgres only the partition holding that expiry is probed.
+     */
+    @Query("select new com.sameboat.backend.auth.session.SessionPrincipal(s.id, u.id, u.email, u.role, s.expiresAt, s.lastSeenAt) " +
+            "from SessionEntity s join UserEntity u on u.id = s.userId where s.id = :id " +
+            "and s.expiresAt >= :from and s.expiresAt < :to and s.revokedAt is null")
+    Optional<SessionPrincipal> findPrincipalByIdExpiringBetween(@Param("id") UUID id, @Param("from") OffsetDateTime from,
+                                                                @Param("to") OffsetDateTime to);
+
+    /**
+     * Marks a session revoked (signed token mode); the row is kept until it expires. Bounded by
+     * the session's expiry window so only its partition is touched.
+     */
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("update SessionEntity s set s.revokedAt = :now where s.id = :id " +
+            "and s.expiresAt >= :from and s.expiresAt < :to and s.revokedAt is null")
+    int markRevoked(@Param("id") UUID id, @Param("from") OffsetDateTime from, @Param("to") OffsetDateTime to,
+                    @Param("now") OffsetDateTime now);
+
+    /** Deletes one session, bounded by its expiry window so only its partition is touched. */
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("delete from SessionEntity s where s.id = :id and s.expiresAt >= :from and s.expiresAt < :to")
+    int deleteByIdExpiringBetween(@Param("id") UUID id, @Param("from") OffsetDateTime from, @Param("to") OffsetDateTime to);
+
+    /** Active (unexpired, unrevoked) sessions of a user, newest first. Served by {@code idx_sessions_user_id}. */
+    @Query("select s from SessionEntity s where s.userId = :userId and s.expiresAt > :now and s.revokedAt is null " +
+            "order by s.createdAt desc")
+    List<SessionEntity> findActiveByUserId(@Param("userId") UUID userId, @Param("now") OffsetDateTime now);
+
+    /** Deletes every session of a user except {@code keepId} in one statement. */
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("delete from SessionEntity s where s.userId = :userId and s.id <> :keepId")
+    int deleteAllByUserIdExcept(@Param("userId") UUID userId, @Param("keepId") UUID keepId);
+
+    /**
+     * Enforces the per-user session cap: deletes all but the newest {@code keep} sessions of
+     * the user in a single statement.
+     */
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query(nativeQuery = true, value = "delete from sessions where user_id = :userId and id in (" +
+            "select id from sessions where user_id = :userId order by created_at desc, id desc offset :keep)")
+    int deleteOldestBeyond(@Param("userId") UUID userId, @Param("keep") int keep);
+
+    /**
+     * A user's unrevoked sessions, newest first (same order as {@link #deleteOldestBeyond}). Signed
+     * mode selects the sessions to evict or revoke with this, so the caller knows exactly which
+     * ids to add to the {@link SessionRevocationList}.
+     */
+    @Query("select new com.sameboat.backend.auth.session.RevokedSession(s.id, s.expiresAt) " +
+            "from SessionEntity s where s.userId = :userId and s.revokedAt is null order by s.createdAt desc, s.id desc")
+    List<RevokedSession> findUnrevokedByUserId(@Param("userId") UUID userId);
+
+    /**
+     * Marks the given sessions revoked in one statement. {@code from}/{@code to} span their
+     * expiries so on Postgres only the partitions holding them are touched.
+     */
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("update SessionEntity s set s.revokedAt = :now where s.id in :ids " +
+            "and s.expiresAt >= :from and s.expiresAt <= :to and s.revokedAt is null")
+    int markRevokedByIds(@Param("ids") List<UUID> ids, @Param("from") OffsetDateTime from,
+                         @Param("to") OffsetDateTime to, @Param("now") OffsetDateTime now);
+
+    /** Revoked sessions that have not expired yet (source for the in-memory revocation list). */
+    @Query("select new com.sameboat.backend.auth.session.RevokedSession(s.id, s.expiresAt) " +
+            "from SessionEntity s where s.revokedAt is not null and s.expiresAt > :now")
+    List<RevokedSession> findRevokedUnexpired(@Param("now") OffsetDateTime now);
+
+    /** {@link #findRevokedUnexpired} for one user, applied when another instance revokes that user's sessions. */
+    @Query("select new com.sameboat.backend.auth.session.RevokedSession(s.id, s.expiresAt) " +
+            "from SessionEntity s where s.userId = :userId and s.revokedAt is not null and s.expiresAt > :now")
+    List<RevokedSession> findRevokedUnexpiredByUserId(@Param("userId") UUID userId, @Param("now") OffsetDateTime now);
 }
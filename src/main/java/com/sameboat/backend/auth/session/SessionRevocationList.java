@@ -0,0 +1,97 @@
+package com.sameboat.backend.auth.session;
+
+import com.sameboat.backend.common.invalidation.CacheInvalidationListener;
+import com.sameboat.backend.common.invalidation.InvalidationEvent;
+import com.sameboat.backend.config.SameboatProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory set of revoked signed sessions. Only sessions that are revoked and not yet
+ * expired are kept, so the set stays small (roughly logouts per TTL window). Local
+ * revocations are added immediately. Revocations broadcast by other instances are applied
+ * by id: a single session is added without a query (kept for at most the session TTL until
+ * the next refresh corrects its expiry), a user's bulk revocation loads only that user's
+ * revoked sessions. The periodic full refresh from {@code sessions.revoked_at} is a safety
+ * net for lost notifications and also runs after the notification connection drops. Only
+ * consulted in signed token mode.
+ */
+@Component
+public class SessionRevocationList implements CacheInvalidationListener {
+
+    private static final Logger log = LoggerFactory.getLogger(SessionRevocationList.class);
+
+    private final SessionRepository repository;
+    private final SessionTokenCodec tokens;
+    private final Clock clock;
+    private final Duration sessionTtl;
+    private final ConcurrentHashMap<UUID, Instant> revoked = new ConcurrentHashMap<>();
+
+    public SessionRevocationList(SessionRepository repository, SessionTokenCodec tokens,
+                                 ObjectProvider<SameboatProperties> propsProvider, ObjectProvider<Clock> clockProvider) {
+        this.repository = repository;
+        this.tokens = tokens;
+        this.clock = clockProvider.getIfAvailable(Clock::systemUTC);
+        this.sessionTtl = Duration.ofDays(propsProvider.getIfAvailable(SameboatProperties::new).getSession().getTtlDays());
+    }
+
+    public boolean isRevoked(UUID sessionId) { return revoked.containsKey(sessionId); }
+
+    /** Adds a locally revoked session; kept until its expiry. */
+    public void revoke(UUID sessionId, Instant expiresAt) { revoked.put(sessionId, expiresAt); }
+
+    public int size() { return revoked.size(); }
+
+    /**
+     * Applies a revocation made on another instance. The payload carries no expiry, so a single
+     * session is kept until now + TTL, which no token issued before now can outlive.
+     */
+    @Override
+    public void onInvalidation(InvalidationEvent event) {
+        if (!event.remote() || !tokens.isSignedMode()) return;
+        switch (event.kind()) {
+            case SESSION -> revoke(event.id(), clock.instant().plus(sessionTtl));
+            case USER_SESSIONS -> refreshUser(event.id());
+            case ALL -> refresh(); // notifications may have been missed
+            case USER, USER_CREATED -> { } // profile changes and sign-ups revoke nothing
+        }
+    }
+
+    /** Loads the revoked, unexpired sessions of one user (served by {@code idx_sessions_user_id}). */
+    private void refreshUser(UUID userId) {
+        var now = OffsetDateTime.ofInstant(clock.instant(), ZoneOffset.UTC);
+        for (RevokedSession r : repository.findRevokedUnexpiredByUserId(userId, now)) {
+            revoked.put(r.id(), r.expiresAt().toInstant());
+        }
+    }
+
+    /**
+     * Merges revocations recorded in the database (by any instance) and drops entries whose
+     * session has expired anyway.
+     * @return current set size
+     */
+    @Scheduled(fixedDelayString = "${sameboat.session.revocation-refresh:PT30S}")
+    @Transactional(readOnly = true)
+    public int refresh() {
+        if (!tokens.isSignedMode()) return revoked.size();
+        Instant now = clock.instant();
+        for (RevokedSession r : repository.findRevokedUnexpired(OffsetDateTime.ofInstant(now, ZoneOffset.UTC))) {
+            revoked.put(r.id(), r.expiresAt().toInstant());
+        }
+        revoked.values().removeIf(exp -> !exp.isAfter(now));
+        log.debug("Session revocation list refreshed size={}", revoked.size());
+        return revoked.size();
+    }
+}
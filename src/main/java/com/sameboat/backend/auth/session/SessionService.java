@@ -1,10 +1,16 @@
 package com.sameboat.backend.auth.session;
 
+import com.sameboat.backend.common.invalidation.CacheInvalidationBus;
+import com.sameboat.backend.common.invalidation.InvalidationEvent;
+import com.sameboat.backend.config.SameboatProperties;
 import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.*;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -15,6 +21,11 @@ import org.slf4j.LoggerFactory;
  * Service encapsulating session lifecycle operations: creation, validation,
  * last-seen touch updates and invalidation. Uses a {@link java.time.Clock} to
  * ensure deterministic time handling and simplify testing.
+ * <p>
+ * Validated sessions are kept in a {@link SessionCache}; cache reads never open a
+ * transaction so a hit costs no database connection. In signed token mode
+ * ({@link SessionTokenCodec}) cookies are verified in-process and only checked against the
+ * {@link SessionRevocationList}.
  */
 @Service
 @Transactional
@@ -23,29 +34,179 @@ public class SessionService {
     private static final Logger log = LoggerFactory.getLogger(SessionService.class);
 
     private final SessionRepository repository;
+    private final SessionCache cache;
+    private final SessionTouchBuffer touchBuffer;
+    private final SessionTokenCodec tokens;
+    private final SessionRevocationList revocations;
+    private final CacheInvalidationBus invalidationBus;
     private final Clock clock;
+    private final int maxPerUser;
 
-    public SessionService(SessionRepository repository, ObjectProvider<java.time.Clock> clockProvider) {
+    public SessionService(SessionRepository repository, SessionCache cache, SessionTouchBuffer touchBuffer,
+                          SessionTokenCodec tokens, SessionRevocationList revocations,
+                          CacheInvalidationBus invalidationBus, ObjectProvider<SameboatProperties> propsProvider,
+                          ObjectProvider<java.time.Clock> clockProvider) {
         this.repository = repository;
+        this.cache = cache;
+        this.touchBuffer = touchBuffer;
+        this.tokens = tokens;
+        this.revocations = revocations;
+        this.invalidationBus = invalidationBus;
         this.clock = clockProvider.getIfAvailable(java.time.Clock::systemUTC);
+        this.maxPerUser = propsProvider.getIfAvailable(SameboatProperties::new).getSession().getMaxPerUser();
     }
 
     /**
-     * Creates and persists a new session for a user with a specified TTL.
+     * Creates and persists a new session for a user with a specified TTL. When
+     * {@code sameboat.session.max-per-user} is set, the user's oldest sessions beyond the cap
+     * are evicted with a single set-based statement (in signed mode: marked revoked and added to
+     * the local revocation list by id).
      * @param userId user identifier
      * @param ttl time to live duration
      * @return persisted session entity
      */
     public SessionEntity createSession(UUID userId, Duration ttl) {
-        SessionEntity s = new SessionEntity();
+        SessionEntity s = new SessionEntity(UUID.randomUUID());
         s.setUserId(userId);
         s.setExpiresAt(OffsetDateTime.ofInstant(clock.instant().plus(ttl), ZoneOffset.UTC));
+        // No explicit flush: the INSERT goes out with the cap statement below or at commit. Callers
+        // issue the cookie only after their transaction commits, so a follow-up request sees the row.
         SessionEntity saved = repository.save(s);
-        repository.flush(); // ensure persistence before returning (visibility for immediate follow-up request)
         log.debug("Created session id={} userId={} expiresAt={} nowUTC={}", saved.getId(), userId, saved.getExpiresAt(), clock.instant());
+        if (maxPerUser > 0) {
+            int evicted = tokens.isSignedMode()
+                    ? markRevoked(repository.findUnrevokedByUserId(userId).stream().skip(maxPerUser).toList())
+                    : repository.deleteOldestBeyond(userId, maxPerUser);
+            if (evicted > 0) {
+                log.info("Evicted {} oldest session(s) of userId={} (cap {})", evicted, userId, maxPerUser);
+                afterBulkRevocation(userId);
+            }
+        }
         return saved;
     }
 
+    /**
+     * Lists a user's active (unexpired, unrevoked) sessions, newest first.
+     * @param userId owning user
+     * @return active sessions
+     */
+    @Transactional(readOnly = true)
+    public List<SessionEntity> listActive(UUID userId) {
+        return repository.findActiveByUserId(userId, now());
+    }
+
+    /**
+     * Revokes one session of the given user (deleted in opaque mode, marked revoked in signed mode).
+     * @param userId    owning user (sessions of other users are never touched)
+     * @param sessionId session to revoke
+     * @return true if the session existed and belonged to the user
+     */
+    public boolean revoke(UUID userId, UUID sessionId) {
+        // The API addresses sessions by id alone, so this lookup probes every partition; the
+        // write below is narrowed to the session's partition.
+        var found = repository.findById(sessionId).filter(s -> s.getUserId().equals(userId));
+        if (found.isEmpty()) return false;
+        var key = SessionKey.of(sessionId, found.get().getExpiresAt());
+        if (tokens.isSignedMode()) {
+            repository.markRevoked(sessionId, key.expiresFrom(), key.expiresTo(), now());
+            revocations.revoke(sessionId, key.expiresAt());
+        } else {
+            repository.deleteByIdExpiringBetween(sessionId, key.expiresFrom(), key.expiresTo());
+        }
+        cache.evict(sessionId);
+        invalidationBus.publish(InvalidationEvent.session(sessionId));
+        return true;
+    }
+
+    /**
+     * Revokes all sessions of a user ("log out everywhere") with one set-based statement,
+     * then purges the user's cached sessions on every instance.
+     * @param userId    owning user
+     * @param keepId    session to keep (typically the caller's current one), or null to revoke all
+     * @return number of sessions revoked
+     */
+    public int revokeAll(UUID userId, UUID keepId) {
+        UUID keep = keepId != null ? keepId : new UUID(0L, 0L); // nil UUID never matches a session
+        int revoked = tokens.isSignedMode()
+                ? markRevoked(repository.findUnrevokedByUserId(userId).stream().filter(r -> !r.id().equals(keep)).toList())
+                : repository.deleteAllByUserIdExcept(userId, keep);
+        afterBulkRevocation(userId);
+        log.info("Revoked {} session(s) of userId={} (kept={})", revoked, userId, keepId);
+        return revoked;
+    }
+
+    /**
+     * Resolves the session id behind a cookie value (verifying signed tokens first).
+     * @param token cookie value
+     * @return session id, empty when the token is malformed or forged
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public Optional<UUID> sessionIdOf(String token) {
+        if (token == null) return Optional.empty();
+        if (tokens.isSigned(token)) return tokens.verify(token).map(SessionClaims::sessionId);
+        return tokens.parseOpaque(token).map(SessionKey::id);
+    }
+
+    /**
+     * Parses an opaque (non-signed) cookie value into its lookup key.
+     * @param token cookie value
+     * @return key, empty when the value is malformed
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public Optional<SessionKey> opaqueKeyOf(String token) {
+        return tokens.parseOpaque(token);
+    }
+
+    /**
+     * Signed mode: marks the given sessions revoked with one statement and adds exactly those
+     * ids to the local revocation list, instead of reloading the whole list.
+     * @return number of sessions marked
+     */
+    private int markRevoked(List<RevokedSession> sessions) {
+        if (sessions.isEmpty()) return 0;
+        var from = sessions.stream().map(RevokedSession::expiresAt).min(Comparator.naturalOrder()).orElseThrow();
+        var to = sessions.stream().map(RevokedSession::expiresAt).max(Comparator.naturalOrder()).orElseThrow();
+        int marked = repository.markRevokedByIds(sessions.stream().map(RevokedSession::id).toList(), from, to, now());
+        sessions.forEach(r -> revocations.revoke(r.id(), r.expiresAt().toInstant()));
+        return marked;
+    }
+
+    /** Local cache purge plus broadcast after revoking several sessions of a user at once. */
+    private void afterBulkRevocation(UUID userId) {
+        cache.evictUser(userId);
+        invalidationBus.publish(InvalidationEvent.userSessions(userId));
+    }
+
+    private OffsetDateTime now() {
+        return OffsetDateTime.ofInstant(clock.instant(), ZoneOffset.UTC);
+    }
+
+    /**
+     * Produces the cookie value for a session: the UUID in opaque mode, a signed token in signed mode.
+     * @param session persisted session
+     * @param role    owning user's role (embedded in signed tokens)
+     * @return cookie value
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public String issueToken(SessionEntity session, String role) {
+        return tokens.issue(session, role);
+    }
+
+    /** True when the cookie value is a signed token rather than an opaque session UUID. */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public boolean isSignedToken(String token) { return tokens.isSigned(token); }
+
+    /**
+     * Verifies a signed token in-process. Expiry is left to the caller (to report it);
+     * revoked sessions are filtered out. Never touches the database.
+     * @param token signed cookie value
+     * @return claims if the signature is valid and the session has not been revoked
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public Optional<SessionClaims> verifySigned(String token) {
+        return tokens.verify(token).filter(c -> !revocations.isRevoked(c.sessionId()));
+    }
+
     /**
      * Finds a session by id and filters out those already expired at current clock instant.
      * @param id session uuid
@@ -60,18 +221,92 @@ public class SessionService {
     /** Raw find without expiry filtering. */
     public Optional<SessionEntity> findById(UUID id) { return repository.findById(id); }
 
-    /** Updates the lastSeen timestamp for activity tracking purposes. */
+    /**
+     * Loads the session joined with its user's id, email and role in a single query,
+     * without expiry filtering (callers distinguish expired from missing sessions). Keys
+     * carrying an expiry are looked up in that expiry's partition only; legacy keys by id.
+     * @param key session key parsed from the cookie
+     * @return principal projection if the session and its user exist
+     */
+    @Transactional(readOnly = true)
+    public Optional<SessionPrincipal> findPrincipal(SessionKey key) {
+        return key.hasExpiry()
+                ? repository.findPrincipalByIdExpiringBetween(key.id(), key.expiresFrom(), key.expiresTo())
+                : repository.findPrincipalById(key.id());
+    }
+
+    /**
+     * Returns a cached principal for the session if it is still valid at the current clock
+     * instant. Expired entries are evicted so the caller falls back to the database path,
+     * which reports the expiry. Never touches the database.
+     * @param id session uuid
+     * @return cached, unexpired principal
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public Optional<SessionPrincipal> findCached(UUID id) {
+        var hit = cache.get(id);
+        if (hit.isPresent() && hit.get().isExpiredAt(clock.instant())) {
+            cache.evict(id);
+            return Optional.empty();
+        }
+        return hit;
+    }
+
+    /** Caches a principal resolved from the database unless it is already expired. */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public void cache(SessionPrincipal principal) {
+        if (!principal.isExpiredAt(clock.instant())) {
+            cache.put(principal);
+        }
+    }
+
+    /**
+     * Records activity for the session. The write is buffered and coalesced by
+     * {@link SessionTouchBuffer}; sessions seen within the configured minimum interval are skipped.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
     public void touch(SessionEntity s) {
-        s.setLastSeenAt(OffsetDateTime.ofInstant(clock.instant(), ZoneOffset.UTC));
-        repository.save(s);
+        touchBuffer.record(SessionKey.of(s.getId(), s.getExpiresAt()), s.getLastSeenAt());
+    }
+
+    /** Records activity for a resolved principal (see {@link #touch(SessionEntity)}). */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public void touch(SessionPrincipal principal) {
+        touchBuffer.record(principal.key(), principal.lastSeenAt());
     }
 
-    /** Invalidates (deletes) a session if the token parses as a UUID. */
+    /** Records activity for a session authenticated by a signed token. */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public void touch(SessionClaims claims) {
+        touchBuffer.record(claims.key(), null);
+    }
+
+    /**
+     * Invalidates a session and evicts it from the cache. Opaque tokens delete the row; signed
+     * tokens (only if the signature verifies) mark it revoked so every instance's revocation
+     * list picks it up until the token expires. Malformed tokens are ignored. The invalidation
+     * is broadcast so other instances drop their cached copy after commit.
+     */
     public void invalidate(String token) {
-        try {
-            UUID id = UUID.fromString(token);
-            repository.deleteById(id);
-        } catch (IllegalArgumentException ignored) { }
+        if (tokens.isSigned(token)) {
+            tokens.verify(token).ifPresent(claims -> {
+                var key = claims.key();
+                repository.markRevoked(claims.sessionId(), key.expiresFrom(), key.expiresTo(), now());
+                revocations.revoke(claims.sessionId(), claims.expiresAt());
+                cache.evict(claims.sessionId());
+                invalidationBus.publish(InvalidationEvent.session(claims.sessionId()));
+            });
+            return;
+        }
+        tokens.parseOpaque(token).ifPresent(key -> {
+            if (key.hasExpiry()) {
+                repository.deleteByIdExpiringBetween(key.id(), key.expiresFrom(), key.expiresTo());
+            } else {
+                repository.deleteById(key.id());
+            }
+            cache.evict(key.id());
+            invalidationBus.publish(InvalidationEvent.session(key.id()));
+        });
     }
 
     /** Returns total stored sessions. */
@@ -0,0 +1,133 @@
+package com.sameboat.backend.auth.session;
+
+import com.sameboat.backend.config.SameboatProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Encodes and decodes {@code SBSESSION} cookie values.
+ * <p>
+ * In {@code opaque} mode (default) the cookie is {@code <session uuid>~<expiry epoch second>}
+ * and every check needs a lookup; the expiry lets that lookup touch only the session's
+ * partition (see {@link SessionKey}). Bare-UUID cookies issued before the suffix existed are
+ * still accepted and looked up by id alone. In {@code signed} mode the cookie is {@code base64url(payload).base64url(hmac)}
+ * where the payload carries session id, user id, role and expiry, signed with HMAC-SHA256
+ * using {@code sameboat.session.signing-secret}; the filter verifies it in-process and only
+ * consults the in-memory {@link SessionRevocationList}. Opaque UUID cookies are accepted in
+ * both modes so switching modes does not log anyone out.
+ */
+@Component
+public class SessionTokenCodec {
+
+    private static final Logger log = LoggerFactory.getLogger(SessionTokenCodec.class);
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final String VERSION = "v1";
+    private static final int MIN_SECRET_BYTES = 32;
+    private static final char OPAQUE_EXPIRY_SEPARATOR = '~';
+
+    private final boolean signedMode;
+    private final SecretKeySpec key;
+
+    public SessionTokenCodec(ObjectProvider<SameboatProperties> propsProvider) {
+        var cfg = propsProvider.getIfAvailable(SameboatProperties::new).getSession();
+        this.signedMode = cfg.getTokenMode() == SameboatProperties.Session.TokenMode.SIGNED;
+        String secret = cfg.getSigningSecret();
+        if (secret != null && !secret.isBlank()) {
+            byte[] bytes = secret.getBytes(StandardCharsets.UTF_8);
+            if (bytes.length < MIN_SECRET_BYTES) {
+                throw new IllegalStateException("sameboat.session.signing-secret must be at least " + MIN_SECRET_BYTES + " bytes");
+            }
+            this.key = new SecretKeySpec(bytes, ALGORITHM);
+        } else if (signedMode) {
+            throw new IllegalStateException("sameboat.session.token-mode=signed requires sameboat.session.signing-secret");
+        } else {
+            this.key = null;
+        }
+        log.info("Session token mode={}", signedMode ? "signed" : "opaque");
+    }
+
+    /** True when new sessions are issued as signed tokens. */
+    public boolean isSignedMode() { return signedMode; }
+
+    /** True when the cookie value has the signed-token shape (UUIDs never contain a dot). */
+    public boolean isSigned(String token) {
+        return token != null && token.indexOf('.') > 0;
+    }
+
+    /**
+     * Produces the cookie value for a freshly created session.
+     * @param session persisted session
+     * @param role    owning user's role (embedded in signed tokens)
+     */
+    public String issue(SessionEntity session, String role) {
+        if (!signedMode) return session.getId().toString() + OPAQUE_EXPIRY_SEPARATOR + session.getExpiresAt().toEpochSecond();
+        String payload = String.join("|", VERSION, session.getId().toString(), session.getUserId().toString(),
+                role == null ? "" : role, Long.toString(session.getExpiresAt().toEpochSecond()));
+        byte[] payloadBytes = payload.getBytes(StandardCharsets.UTF_8);
+        var b64 = Base64.getUrlEncoder().withoutPadding();
+        return b64.encodeToString(payloadBytes) + "." + b64.encodeToString(sign(payloadBytes));
+    }
+
+    /**
+     * Parses an opaque cookie value. The expiry suffix is not trusted for validity: it only
+     * narrows the lookup, and a wrong value simply finds no session.
+     * @return session key, empty when the value is malformed
+     */
+    public Optional<SessionKey> parseOpaque(String token) {
+        if (token == null || isSigned(token)) return Optional.empty();
+        try {
+            int sep = token.indexOf(OPAQUE_EXPIRY_SEPARATOR);
+            if (sep < 0) return Optional.of(new SessionKey(UUID.fromString(token), null));
+            return Optional.of(new SessionKey(UUID.fromString(token.substring(0, sep)),
+                    Instant.ofEpochSecond(Long.parseLong(token.substring(sep + 1)))));
+        } catch (IllegalArgumentException | DateTimeException ex) { // bad UUID or number
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Verifies a signed token and returns its claims. Expiry is not checked here so callers
+     * can distinguish expired from forged tokens.
+     * @return claims if the signature is valid and the payload well-formed
+     */
+    public Optional<SessionClaims> verify(String token) {
+        if (key == null || !isSigned(token)) return Optional.empty();
+        try {
+            int dot = token.indexOf('.');
+            var b64 = Base64.getUrlDecoder();
+            byte[] payloadBytes = b64.decode(token.substring(0, dot));
+            byte[] signature = b64.decode(token.substring(dot + 1));
+            if (!MessageDigest.isEqual(sign(payloadBytes), signature)) return Optional.empty();
+            String[] parts = new String(payloadBytes, StandardCharsets.UTF_8).split("\\|", -1);
+            if (parts.length != 5 || !VERSION.equals(parts[0])) return Optional.empty();
+            return Optional.of(new SessionClaims(UUID.fromString(parts[1]), UUID.fromString(parts[2]),
+                    parts[3].isEmpty() ? null : parts[3], Instant.ofEpochSecond(Long.parseLong(parts[4]))));
+        } catch (IllegalArgumentException ex) { // bad base64, UUID or number
+            return Optional.empty();
+        }
+    }
+
+    private byte[] sign(byte[] payload) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac.doFinal(payload);
+        } catch (GeneralSecurityException ex) {
+            throw new IllegalStateException("HMAC unavailable", ex);
+        }
+    }
+}
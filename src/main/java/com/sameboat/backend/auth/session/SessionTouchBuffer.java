@@ -0,0 +1,129 @@
+package com.sameboat.backend.auth.session;
+
+import com.sameboat.backend.common.BoundedTtlCache;
+import com.sameboat.backend.config.SameboatProperties;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Write-behind buffer for session {@code last_seen_at} updates. Authenticated requests
+ * record the latest activity instant in memory; a scheduled job flushes all pending
+ * instants in one batched UPDATE. Sessions already touched within
+ * {@code sameboat.session.touch.min-interval} are skipped entirely, so read-heavy traffic
+ * produces (almost) no write traffic. Pending touches are drained on shutdown. Each UPDATE
+ * is bounded by the session's expiry window ({@link SessionKey}) so on Postgres it touches
+ * only that session's partition.
+ * <p>
+ * last_seen_at is advisory (activity tracking only); a failed flush is logged and dropped.
+ */
+@Component
+public class SessionTouchBuffer {
+
+    private static final Logger log = LoggerFactory.getLogger(SessionTouchBuffer.class);
+
+    private static final String UPDATE_SQL =
+            "update sessions set last_seen_at = ? where id = ? and expires_at >= ? and expires_at < ? and last_seen_at < ?";
+    /** Fallback for keys without an expiry (not produced by current callers). */
+    private static final String UPDATE_BY_ID_SQL =
+            "update sessions set last_seen_at = ? where id = ? and last_seen_at < ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Clock clock;
+    private final Duration minInterval;
+    private final ConcurrentHashMap<UUID, Pending> pending = new ConcurrentHashMap<>();
+    /** Sessions recorded within the last {@code minInterval}; entries expire on their own. */
+    private final BoundedTtlCache<UUID, Boolean> recentlyTouched;
+
+    public SessionTouchBuffer(JdbcTemplate jdbcTemplate,
+                              ObjectProvider<SameboatProperties> propsProvider,
+                              ObjectProvider<Clock> clockProvider) {
+        var sessionCfg = propsProvider.getIfAvailable(SameboatProperties::new).getSession();
+        this.jdbcTemplate = jdbcTemplate;
+        this.clock = clockProvider.getIfAvailable(Clock::systemUTC);
+        this.minInterval = sessionCfg.getTouch().getMinInterval();
+        this.recentlyTouched = new BoundedTtlCache<>(sessionCfg.getCache().getMaxEntries(), minInterval, clock);
+    }
+
+    /** Latest activity recorded for a session, with the key used to address its row. */
+    private record Pending(SessionKey key, Instant seen) {
+        Pending latest(Pending other) {
+            return seen.isAfter(other.seen) ? this : other;
+        }
+    }
+
+    /**
+     * Records activity for a session.
+     * @param key          session key (id and expiry)
+     * @param lastSeenKnown last-seen value already persisted, if the caller has it (null otherwise)
+     * @return true if the touch was buffered, false if skipped as too recent
+     */
+    public boolean record(SessionKey key, OffsetDateTime lastSeenKnown) {
+        UUID sessionId = key.id();
+        Instant now = clock.instant();
+        boolean recentInDb = lastSeenKnown != null && lastSeenKnown.toInstant().plus(minInterval).isAfter(now);
+        if (recentInDb || recentlyTouched.get(sessionId).isPresent()) {
+            if (recentInDb) recentlyTouched.put(sessionId, Boolean.TRUE);
+            return false;
+        }
+        recentlyTouched.put(sessionId, Boolean.TRUE);
+        pending.merge(sessionId, new Pending(key, now), Pending::latest);
+        return true;
+    }
+
+    /** Number of sessions waiting to be flushed. */
+    public int pendingCount() { return pending.size(); }
+
+    /**
+     * Flushes all pending touches in a single JDBC batch (two if legacy keys without an expiry are pending).
+     * @return number of sessions included in the batch
+     */
+    @Scheduled(fixedDelayString = "${sameboat.session.touch.flush-interval:PT30S}",
+            initialDelayString = "${sameboat.session.touch.flush-interval:PT30S}")
+    public int flush() {
+        if (pending.isEmpty()) return 0;
+        List<Object[]> batch = new ArrayList<>(pending.size());
+        List<Object[]> byId = new ArrayList<>();
+        for (UUID id : pending.keySet()) {
+            Pending touch = pending.remove(id); // atomic hand-off; concurrent records re-add
+            if (touch == null) continue;
+            var ts = OffsetDateTime.ofInstant(touch.seen(), ZoneOffset.UTC);
+            SessionKey key = touch.key();
+            if (key.hasExpiry()) {
+                batch.add(new Object[]{ts, id, key.expiresFrom(), key.expiresTo(), ts});
+            } else {
+                byId.add(new Object[]{ts, id, ts});
+            }
+        }
+        int total = batch.size() + byId.size();
+        if (total == 0) return 0;
+        try {
+            if (!batch.isEmpty()) jdbcTemplate.batchUpdate(UPDATE_SQL, batch);
+            if (!byId.isEmpty()) jdbcTemplate.batchUpdate(UPDATE_BY_ID_SQL, byId);
+            log.debug("Flushed {} session touches", total);
+        } catch (RuntimeException ex) {
+            log.warn("Session touch flush failed; dropped {} last_seen updates: {}", total, ex.getMessage());
+        }
+        return total;
+    }
+
+    @PreDestroy
+    void drain() {
+        int flushed = flush();
+        if (flushed > 0) log.info("Drained {} pending session touches on shutdown", flushed);
+    }
+}
@@ -0,0 +1,183 @@
+package com.sameboat.backend.common;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+
+/**
+ * Small in-process cache bounded by entry count and a fixed time-to-live.
+ * <p>
+ * Once {@code maxEntries} is reached the least-recently-used entry is evicted. Expired
+ * entries are dropped lazily on read and in bulk via {@link #evictExpired()}. Time is read
+ * from the supplied {@link Clock} so tests can drive expiry deterministically. A
+ * {@link ReentrantLock} is used instead of {@code synchronized} so callers running on
+ * virtual threads do not pin their carrier while waiting. Entries dropped for capacity or
+ * expiry (not explicit invalidation) are counted in {@link #evictions()}.
+ *
+ * @param <K> key type
+ * @param <V> value type (should be immutable; values are shared between threads)
+ */
+public class BoundedTtlCache<K, V> {
+
+    private record Entry<V>(V value, Instant expiresAt) { }
+
+    private final int maxEntries;
+    private final Duration ttl;
+    private final Clock clock;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LinkedHashMap<K, Entry<V>> entries;
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * @param maxEntries hard upper bound on stored entries (must be positive)
+     * @param ttl        time an entry stays readable after it was written
+     * @param clock      time source used for expiry decisions
+     */
+    public BoundedTtlCache(int maxEntries, Duration ttl, Clock clock) {
+        if (maxEntries <= 0) throw new IllegalArgumentException("maxEntries must be positive");
+        if (ttl == null || ttl.isNegative() || ttl.isZero()) throw new IllegalArgumentException("ttl must be positive");
+        this.maxEntries = maxEntries;
+        this.ttl = ttl;
+        this.clock = clock;
+        // access-order = true gives LRU iteration order for eviction
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                if (size() <= BoundedTtlCache.this.maxEntries) return false;
+                evictions.increment();
+                return true;
+            }
+        };
+    }
+
+    /** Returns the cached value if present and not expired; expired entries are removed. */
+    public Optional<V> get(K key) {
+        lock.lock();
+        try {
+            Entry<V> e = entries.get(key);
+            if (e == null) return Optional.empty();
+            if (!e.expiresAt().isAfter(clock.instant())) {
+                entries.remove(key);
+                evictions.increment();
+                return Optional.empty();
+            }
+            return Optional.of(e.value());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Stores (or replaces) a value; the TTL starts at the current clock instant. */
+    public void put(K key, V value) {
+        lock.lock();
+        try {
+            entries.put(key, new Entry<>(value, clock.instant().plus(ttl)));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Stores a value only if {@code condition} holds, evaluated under the cache lock. A caller that
+     * bumps a generation before {@link #invalidate} can use this to make check-and-write atomic:
+     * either the check sees the new generation, or the write lands before the removal.
+     * @return true if the value was stored
+     */
+    public boolean putIf(K key, V value, BooleanSupplier condition) {
+        lock.lock();
+        try {
+            if (!condition.getAsBoolean()) return false;
+            entries.put(key, new Entry<>(value, clock.instant().plus(ttl)));
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Removes a single key if present. */
+    public void invalidate(K key) {
+        lock.lock();
+        try {
+            entries.remove(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes every entry whose value matches the predicate.
+     * @return number of removed entries
+     */
+    public int invalidateIf(Predicate<? super V> predicate) {
+        lock.lock();
+        try {
+            int removed = 0;
+            Iterator<Entry<V>> it = entries.values().iterator();
+            while (it.hasNext()) {
+                if (predicate.test(it.next().value())) {
+                    it.remove();
+                    removed++;
+                }
+            }
+            return removed;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Drops all entries. */
+    public void invalidateAll() {
+        lock.lock();
+        try {
+            entries.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes entries whose TTL has elapsed.
+     * @return number of removed entries
+     */
+    public int evictExpired() {
+        lock.lock();
+        try {
+            Instant now = clock.instant();
+            int removed = 0;
+            Iterator<Entry<V>> it = entries.values().iterator();
+            while (it.hasNext()) {
+                if (!it.next().expiresAt().isAfter(now)) {
+                    it.remove();
+                    removed++;
+                }
+            }
+            evictions.add(removed);
+            return removed;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Current number of stored entries (expired entries not yet swept included). */
+    public int size() {
+        lock.lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Entries dropped so far because the cache was full or their TTL elapsed. */
+    public long evictions() {
+        return evictions.sum();
+    }
+}
@@ -2,6 +2,7 @@ package com.sameboat.backend.common;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatusCode;
@@ -89,6 +90,22 @@ public class GlobalExceptionHandler extends ResponseEntityExceptionHandler {
         return build(HttpStatus.BAD_REQUEST, "BAD_REQUEST", ex.getMessage());
     }
 
+    /** Maps a lost optimistic-lock race (a concurrent update committed first) to 409 UPDATE_CONFLICT. */
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<ErrorResponse> handleOptimisticLock(OptimisticLockingFailureException ex) {
+        log.debug("Optimistic lock conflict: {}", ex.getMessage());
+        return build(HttpStatus.CONFLICT, "UPDATE_CONFLICT", "Resource was modified concurrently; retry the request");
+    }
+
+    /** Sheds load with 503 SERVER_BUSY when a bounded executor is saturated. */
+    @ExceptionHandler(ServiceOverloadedException.class)
+    public ResponseEntity<ErrorResponse> handleOverloaded(ServiceOverloadedException ex) {
+        log.debug("Request shed: {}", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(new ErrorResponse("SERVER_BUSY", "Server busy; try again shortly"));
+    }
+
     /** Fallback handler producing an INTERNAL_ERROR with a random reference id. */
     @ExceptionHandler(Exception.class)
     public ResponseEntity<ErrorResponse> handleGeneric(Exception ex) {
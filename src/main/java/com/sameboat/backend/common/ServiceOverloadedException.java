@@ -0,0 +1,10 @@
+package com.sameboat.backend.common;
+
+/**
+ * Signals that a bounded resource (e.g. the password hashing executor) is saturated and the
+ * request was shed instead of queued. Mapped to HTTP 503 with error code SERVER_BUSY and a
+ * {@code Retry-After} header by {@link GlobalExceptionHandler}.
+ */
+public class ServiceOverloadedException extends RuntimeException {
+    public ServiceOverloadedException(String message) { super(message); }
+}
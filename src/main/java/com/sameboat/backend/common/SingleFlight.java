@@ -0,0 +1,62 @@
+package com.sameboat.backend.common;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent loads of the same key: the first caller (leader) runs the loader,
+ * callers arriving while it is in flight wait for and share its result (or exception).
+ * Nothing is cached; once the leader finishes the key is released and the next call loads
+ * again, so pair this with a cache that the loader populates.
+ * <p>
+ * Waiting uses {@link CompletableFuture#join()}, which parks rather than blocking a monitor,
+ * so virtual threads do not pin their carrier. Loaders must not call back into the same
+ * key (that would wait on itself).
+ *
+ * @param <K> key type
+ * @param <V> result type (shared between threads; should be immutable)
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the loader's result, running it at most once per key among concurrent callers.
+     * @param key    coalescing key
+     * @param loader computation to run if no call for {@code key} is in flight
+     * @return loader result (possibly computed by another thread)
+     */
+    public V execute(K key, Supplier<V> loader) {
+        CompletableFuture<V> mine = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, mine);
+        if (existing != null) {
+            return await(existing);
+        }
+        try {
+            V value = loader.get();
+            mine.complete(value);
+            return value;
+        } catch (RuntimeException | Error ex) {
+            mine.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    /** Number of keys currently being loaded. */
+    public int inFlightCount() { return inFlight.size(); }
+
+    private static <V> V await(CompletableFuture<V> future) {
+        try {
+            return future.join();
+        } catch (CompletionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof RuntimeException re) throw re;
+            if (cause instanceof Error err) throw err;
+            throw ex;
+        }
+    }
+}
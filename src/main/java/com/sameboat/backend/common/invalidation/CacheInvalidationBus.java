@@ -0,0 +1,116 @@
+package com.sameboat.backend.common.invalidation;
+
+import com.sameboat.backend.config.SameboatProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+/**
+ * Broadcasts cache invalidations to every {@link CacheInvalidationListener} on this instance
+ * and, when running on Postgres, to all other instances via {@code pg_notify}. Remote events
+ * arrive through {@link PgNotificationSubscriber}.
+ * <p>
+ * Publishing inside a transaction defers both local dispatch and the NOTIFY until after
+ * commit, so a rolled-back change never invalidates anything and peers never re-read stale
+ * rows. On H2 (dev/test) or with {@code sameboat.invalidation.enabled=false} the bus is
+ * local-only.
+ */
+@Component
+public class CacheInvalidationBus {
+
+    private static final Logger log = LoggerFactory.getLogger(CacheInvalidationBus.class);
+    private static final Pattern IDENTIFIER = Pattern.compile("[a-z_][a-z0-9_]{0,62}");
+
+    /** Random per-process id so an instance ignores its own notifications. */
+    private final String origin = UUID.randomUUID().toString();
+    private final ObjectProvider<CacheInvalidationListener> listenerProvider;
+    private final JdbcTemplate jdbcTemplate;
+    private final DataSourceProperties dataSource;
+    private final String channel;
+    private final boolean distributed;
+    private volatile List<CacheInvalidationListener> listeners;
+
+    public CacheInvalidationBus(ObjectProvider<CacheInvalidationListener> listenerProvider,
+                                ObjectProvider<JdbcTemplate> jdbcTemplateProvider,
+                                ObjectProvider<DataSourceProperties> dataSourceProvider,
+                                ObjectProvider<SameboatProperties> propsProvider) {
+        var cfg = propsProvider.getIfAvailable(SameboatProperties::new).getInvalidation();
+        this.listenerProvider = listenerProvider;
+        this.jdbcTemplate = jdbcTemplateProvider.getIfAvailable();
+        this.dataSource = dataSourceProvider.getIfAvailable();
+        this.channel = cfg.getChannel();
+        if (!IDENTIFIER.matcher(channel).matches()) {
+            throw new IllegalStateException("sameboat.invalidation.channel must be a lowercase SQL identifier: " + channel);
+        }
+        String url = dataSource != null ? dataSource.determineUrl() : null;
+        this.distributed = cfg.isEnabled() && jdbcTemplate != null && url != null && url.startsWith("jdbc:postgresql:");
+        log.info("Cache invalidation bus mode={} channel={}", distributed ? "postgres-notify" : "local", channel);
+    }
+
+    /** True when invalidations are exchanged with other instances via Postgres. */
+    public boolean isDistributed() { return distributed; }
+
+    String channel() { return channel; }
+
+    DataSourceProperties dataSource() { return dataSource; }
+
+    /**
+     * Publishes an invalidation locally and to peers. Deferred until after commit when a
+     * transaction is active.
+     */
+    public void publish(InvalidationEvent event) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() { deliver(event); }
+            });
+        } else {
+            deliver(event);
+        }
+    }
+
+    private void deliver(InvalidationEvent event) {
+        dispatch(event);
+        if (!distributed) return;
+        try {
+            jdbcTemplate.queryForObject("select pg_notify(?, ?)", Object.class, channel, event.encode(origin));
+        } catch (RuntimeException ex) {
+            // peers fall back to cache TTLs; a lost connection on their side triggers a full flush anyway
+            log.warn("Cache invalidation NOTIFY failed kind={} id={}: {}", event.kind(), event.id(), ex.getMessage());
+        }
+    }
+
+    /** Handles a raw NOTIFY payload received from Postgres. */
+    void receive(String payload) {
+        InvalidationEvent.decode(payload, origin).ifPresent(this::dispatch);
+    }
+
+    /** Delivers an event to local listeners only (also used for the full flush on reconnect). */
+    void dispatch(InvalidationEvent event) {
+        for (CacheInvalidationListener l : listeners()) {
+            try {
+                l.onInvalidation(event);
+            } catch (RuntimeException ex) {
+                log.warn("Cache invalidation listener {} failed for kind={}: {}", l.getClass().getSimpleName(), event.kind(), ex.getMessage());
+            }
+        }
+    }
+
+    private List<CacheInvalidationListener> listeners() {
+        var current = listeners;
+        if (current == null) {
+            current = listenerProvider.orderedStream().toList();
+            listeners = current;
+        }
+        return current;
+    }
+}
@@ -0,0 +1,12 @@
+package com.sameboat.backend.common.invalidation;
+
+/**
+ * Implemented by beans holding in-process caches that must be dropped when data changes on
+ * this or any other instance. Called on the publishing request thread (after commit) for
+ * local events and on the notification listener thread for remote ones; implementations
+ * must be thread-safe and fast.
+ */
+public interface CacheInvalidationListener {
+
+    void onInvalidation(InvalidationEvent event);
+}
@@ -0,0 +1,62 @@
+package com.sameboat.backend.common.invalidation;
+
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * A cache invalidation broadcast through {@link CacheInvalidationBus}.
+ * @param kind   what changed
+ * @param id     affected session or user id ({@code null} for {@link Kind#ALL})
+ * @param remote true when the event was received from another instance
+ */
+public record InvalidationEvent(Kind kind, UUID id, boolean remote) {
+
+    /** Scope of an invalidation. */
+    public enum Kind {
+        /** A single session was logged out / revoked. */
+        SESSION,
+        /** A user's profile (or anything derived from the user row) changed. */
+        USER,
+        /** Some or all sessions of a user were revoked at once (log out everywhere, session cap). */
+        USER_SESSIONS,
+        /** A user registered (lets peers learn about new accounts, e.g. the email existence filter). */
+        USER_CREATED,
+        /** Drop everything; sent locally after the notification connection was lost. */
+        ALL
+    }
+
+    public static InvalidationEvent session(UUID sessionId) { return new InvalidationEvent(Kind.SESSION, sessionId, false); }
+
+    public static InvalidationEvent user(UUID userId) { return new InvalidationEvent(Kind.USER, userId, false); }
+
+    public static InvalidationEvent userSessions(UUID userId) { return new InvalidationEvent(Kind.USER_SESSIONS, userId, false); }
+
+    public static InvalidationEvent userCreated(UUID userId) { return new InvalidationEvent(Kind.USER_CREATED, userId, false); }
+
+    public static InvalidationEvent all(boolean remote) { return new InvalidationEvent(Kind.ALL, null, remote); }
+
+    /** Wire format: {@code origin|KIND|id}. */
+    String encode(String origin) {
+        return origin + "|" + kind + "|" + (id == null ? "" : id);
+    }
+
+    /**
+     * Parses a NOTIFY payload.
+     * @param payload raw payload
+     * @param self    this instance's origin id; own notifications are skipped
+     * @return event from another instance, empty when malformed or self-originated
+     */
+    static Optional<InvalidationEvent> decode(String payload, String self) {
+        if (payload == null) return Optional.empty();
+        String[] parts = payload.split("\\|", -1);
+        if (parts.length != 3 || parts[0].equals(self)) return Optional.empty();
+        try {
+            Kind kind = Kind.valueOf(parts[1]);
+            UUID id = parts[2].isEmpty() ? null : UUID.fromString(parts[2]);
+            if (id == null && kind != Kind.ALL) return Optional.empty();
+            return Optional.of(new InvalidationEvent(kind, id, true));
+        } catch (IllegalArgumentException ex) {
+            return Optional.empty();
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.sameboat.backend.common.invalidation;
+
+import com.sameboat.backend.config.SameboatProperties;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+
+/**
+ * Listens for {@link CacheInvalidationBus} notifications on a dedicated Postgres connection
+ * (opened with {@link DriverManager}, so it never occupies a pool slot). When the connection
+ * drops, every local cache is flushed, the subscriber backs off and reconnects, and flushes
+ * again once listening resumes because notifications sent in between are lost.
+ * Does nothing unless the bus runs in distributed mode.
+ */
+@Component
+public class PgNotificationSubscriber implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(PgNotificationSubscriber.class);
+
+    private final CacheInvalidationBus bus;
+    private final Duration reconnectBackoff;
+    private final Duration pollTimeout;
+    private volatile boolean running;
+    private volatile Thread worker;
+
+    public PgNotificationSubscriber(CacheInvalidationBus bus, ObjectProvider<SameboatProperties> propsProvider) {
+        var cfg = propsProvider.getIfAvailable(SameboatProperties::new).getInvalidation();
+        this.bus = bus;
+        this.reconnectBackoff = cfg.getReconnectBackoff();
+        this.pollTimeout = cfg.getPollTimeout();
+    }
+
+    @Override
+    public void start() {
+        if (!bus.isDistributed() || running) return;
+        running = true;
+        worker = Thread.ofPlatform().daemon().name("sameboat-invalidation-listener").start(this::run);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        Thread t = worker;
+        if (t != null) {
+            t.interrupt();
+            worker = null;
+        }
+    }
+
+    @Override
+    public boolean isRunning() { return running; }
+
+    private void run() {
+        boolean reconnect = false;
+        while (running) {
+            try (Connection conn = open(); Statement st = conn.createStatement()) {
+                st.execute("LISTEN " + bus.channel());
+                log.info("Listening for cache invalidations on channel={}", bus.channel());
+                if (reconnect) bus.dispatch(InvalidationEvent.all(true)); // catch up on anything missed
+                PGConnection pg = conn.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] notifications = pg.getNotifications((int) pollTimeout.toMillis());
+                    if (notifications == null) continue;
+                    for (PGNotification n : notifications) {
+                        bus.receive(n.getParameter());
+                    }
+                }
+            } catch (SQLException ex) {
+                if (!running) break;
+                log.warn("Cache invalidation listener connection lost; flushing local caches and reconnecting in {}: {}",
+                        reconnectBackoff, ex.getMessage());
+                bus.dispatch(InvalidationEvent.all(true));
+                reconnect = true;
+                try {
+                    Thread.sleep(reconnectBackoff);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }
+        log.info("Cache invalidation listener stopped");
+    }
+
+    private Connection open() throws SQLException {
+        var ds = bus.dataSource();
+        Connection conn = DriverManager.getConnection(ds.determineUrl(), ds.determineUsername(), ds.determinePassword());
+        conn.setAutoCommit(true);
+        return conn;
+    }
+}
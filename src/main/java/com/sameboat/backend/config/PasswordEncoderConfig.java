@@ -1,21 +1,83 @@
 package com.sameboat.backend.config;
 
+import com.sameboat.backend.security.hashing.BcryptCostCalibrator;
+import com.sameboat.backend.security.hashing.BoundedPasswordEncoder;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
+import java.time.Duration;
+import java.util.Map;
+
 /**
  * Provides the application-wide {@link PasswordEncoder}. BCrypt is chosen for
- * adaptive hashing so strength can be increased over time.
+ * adaptive hashing so strength can be increased over time: every instance hashes with the
+ * one configured cost ({@code sameboat.auth.hashing.cost}) and new hashes carry an
+ * algorithm id ({@code {bcrypt}...}) so the algorithm can change later. Legacy hashes
+ * without an id still verify, and {@link PasswordEncoder#upgradeEncoding} reports them
+ * (and hashes below the configured cost) so login can rehash them toward that target; a
+ * per-host cost would make instances rehash each other's hashes. Startup calibration, when
+ * enabled, logs the cost this host could afford as a recommendation and rejects a configured
+ * cost far slower than the target latency. Hashing runs on a bounded executor so bursts of
+ * logins cannot occupy every request thread.
  * @author ArchILLtect
  */
 @Configuration
 public class PasswordEncoderConfig {
 
-    /** Exposes a BCrypt encoder bean. */
+    private static final Logger log = LoggerFactory.getLogger(PasswordEncoderConfig.class);
+
+    /** Id written in front of new hashes. */
+    static final String ENCODING_ID = "bcrypt";
+    /** Configured cost slower than this multiple of the target latency is logged as an error. */
+    static final int SLOW_COST_ERROR_FACTOR = 2;
+    /** Configured cost slower than this multiple of the target latency fails startup. */
+    static final int SLOW_COST_FAIL_FACTOR = 4;
+
+    /** Exposes a delegating BCrypt encoder wrapped in the bounded hashing executor. */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(SameboatProperties props, ObjectProvider<MeterRegistry> meterRegistryProvider) {
+        var cfg = props.getAuth().getHashing();
+        int cost = cfg.getCost();
+        if (cfg.isCalibrate()) {
+            checkCost(cost, cfg.getTargetLatency(),
+                    BcryptCostCalibrator.calibrate(cfg.getTargetLatency(), cfg.getMinCost(), cfg.getMaxCost()));
+        }
+        var bcrypt = new BCryptPasswordEncoder(cost);
+        var delegating = new DelegatingPasswordEncoder(ENCODING_ID, Map.of(ENCODING_ID, bcrypt));
+        delegating.setDefaultPasswordEncoderForMatches(bcrypt); // hashes stored before ids were introduced
+        return new BoundedPasswordEncoder(delegating, cfg.effectiveThreads(), cfg.getQueueCapacity(),
+                cfg.getTimeout(), meterRegistryProvider.getIfAvailable(SimpleMeterRegistry::new));
+    }
+
+    /**
+     * Compares the configured cost with what this host measured. A different recommendation is
+     * only logged; a configured cost estimated above {@value #SLOW_COST_ERROR_FACTOR}x the target
+     * latency is logged as an error, and above {@value #SLOW_COST_FAIL_FACTOR}x (two cost steps
+     * too high) startup fails, since every login would queue on the hashing executor.
+     */
+    static void checkCost(int cost, Duration target, BcryptCostCalibrator.Calibration calibration) {
+        Duration estimate = calibration.estimate(cost);
+        if (estimate.compareTo(target.multipliedBy(SLOW_COST_FAIL_FACTOR)) > 0) {
+            throw new IllegalStateException("sameboat.auth.hashing.cost " + cost + " takes ~" + estimate.toMillis()
+                    + " ms per hash on this host, over " + SLOW_COST_FAIL_FACTOR + "x the " + target.toMillis()
+                    + " ms target; this host meets the target at cost " + calibration.recommendedCost());
+        }
+        if (estimate.compareTo(target.multipliedBy(SLOW_COST_ERROR_FACTOR)) > 0) {
+            log.error("bcrypt cost {} takes ~{} ms per hash on this host, over {}x the {} ms target; "
+                    + "this host meets the target at cost {}", cost, estimate.toMillis(), SLOW_COST_ERROR_FACTOR,
+                    target.toMillis(), calibration.recommendedCost());
+        } else if (calibration.recommendedCost() != cost) {
+            log.warn("bcrypt cost {} is configured (~{} ms here); this host meets the {} ms target at cost {}. "
+                    + "Change sameboat.auth.hashing.cost fleet-wide if that is intended.",
+                    cost, estimate.toMillis(), target.toMillis(), calibration.recommendedCost());
+        }
     }
 }
@@ -2,6 +2,8 @@ package com.sameboat.backend.config;
 
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.validation.annotation.Validated;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
 import lombok.Getter;
 import lombok.Setter;
@@ -21,6 +23,11 @@ public class SameboatProperties {
     private final Cookie cookie = new Cookie();
     private final Session session = new Session();
     private final Cors cors = new Cors();
+    private final Invalidation invalidation = new Invalidation();
+    private final RateLimit rateLimit = new RateLimit();
+    private final Idempotency idempotency = new Idempotency();
+    private final Profile profile = new Profile();
+    private final Admin admin = new Admin();
 
     /** Authentication related toggles (dev conveniences). */
     @Getter @Setter
@@ -29,6 +36,48 @@ public class SameboatProperties {
         private boolean devAutoCreate = false;
         /** Password that allows dev auto creation when enabled. */
         private String stubPassword = "dev";
+        /** Dedicated executor for CPU-bound password hashing. */
+        private Hashing hashing = new Hashing();
+        /** In-memory Bloom filter of registered emails consulted before login lookups. */
+        private EmailFilter emailFilter = new EmailFilter();
+
+        /** Sizing of the email existence filter. */
+        @Getter @Setter
+        public static class EmailFilter {
+            /** Whether logins for emails the filter has never seen skip the database. */
+            private boolean enabled = true;
+            /** Users the filter is sized for (grown to twice the user count at startup if larger). */
+            private long expectedInsertions = 1_000_000;
+            /** Target false-positive rate at {@code expectedInsertions}. */
+            private double falsePositiveRate = 0.01;
+            /** Periodic full rebuild; bounds how long accounts inserted outside the app stay invisible. */
+            private Duration rebuildInterval = Duration.ofHours(1);
+        }
+
+        /** Bounds for the password hashing executor; excess work is rejected instead of queued. */
+        @Getter @Setter
+        public static class Hashing {
+            /** Hashing threads (0 = number of available processors). */
+            private int threads = 0;
+            /** Hash operations allowed to wait for a thread; beyond this requests fail fast with 503. */
+            private int queueCapacity = 32;
+            /** Longest a request waits for its hash (queue wait included) before giving up with 503. */
+            private Duration timeout = Duration.ofSeconds(5);
+            /** Whether to benchmark bcrypt at startup, log the cost meeting {@code targetLatency} and reject a far slower {@code cost}. */
+            private boolean calibrate = true;
+            /** Target time for one hash when calibrating. */
+            private Duration targetLatency = Duration.ofMillis(250);
+            /** Lowest cost calibration may recommend (floor for slow hosts). */
+            private int minCost = 10;
+            /** Highest cost calibration may recommend. */
+            private int maxCost = 14;
+            /** Bcrypt cost for new hashes on every instance; lower-cost hashes are upgraded on login. */
+            private int cost = 10;
+
+            public int effectiveThreads() {
+                return threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+            }
+        }
     }
     /** Cookie attribute customization. */
     @Getter @Setter
@@ -45,6 +94,181 @@ public class SameboatProperties {
     public static class Session {
         /** Session time-to-live in days. */
         private int ttlDays = 7;
+        /** Maximum concurrent sessions per user; the oldest are evicted on login (0 = unlimited). */
+        private int maxPerUser = 10;
+        /** In-process cache of validated sessions used by the authentication filter. */
+        private final Cache cache = new Cache();
+        /** Write-behind buffering of last_seen_at updates. */
+        private final Touch touch = new Touch();
+        /** Scheduled deletion of expired sessions. */
+        private final Prune prune = new Prune();
+        /** Cookie format for new sessions: opaque UUID (default) or HMAC-signed token. */
+        private TokenMode tokenMode = TokenMode.OPAQUE;
+        /** HMAC-SHA256 key for signed tokens (at least 32 bytes); required when token mode is signed. */
+        private String signingSecret = "";
+        /** How often the signed-token revocation list is refreshed from the database. */
+        private Duration revocationRefresh = Duration.ofSeconds(30);
+
+        /** Expired-session pruning schedule and batching. */
+        @Getter @Setter
+        public static class Prune {
+            /** Delay between prune runs. */
+            private Duration interval = Duration.ofHours(1);
+            /** Delay before the first run after startup. */
+            private Duration initialDelay = Duration.ofMinutes(2);
+            /** Maximum rows deleted per statement (each batch commits on its own). */
+            private int batchSize = 1000;
+            /** Pause between batches so the delete does not monopolize I/O or WAL. */
+            private Duration pause = Duration.ofMillis(200);
+            /** Upper bound on batches per run; the remainder is picked up by the next run. */
+            private int maxBatches = 500;
+            /** Lock wait allowed for detaching an expired partition; on timeout the next run retries. */
+            private Duration detachLockTimeout = Duration.ofSeconds(2);
+        }
+
+        /** Session cookie formats. */
+        public enum TokenMode {
+            /** Cookie is the session UUID; every request is validated against the sessions table. */
+            OPAQUE,
+            /** Cookie carries signed claims; validated in-process against a revocation list. */
+            SIGNED
+        }
+
+        /** Bounds for the validated-session cache. */
+        @Getter @Setter
+        public static class Cache {
+            /** Maximum number of cached sessions (least recently used evicted first). */
+            private int maxEntries = 10_000;
+            /** How long a cached session is trusted before it is re-read from the database. */
+            private Duration ttl = Duration.ofMinutes(1);
+        }
+
+        /** Coalescing of session last-seen writes. */
+        @Getter @Setter
+        public static class Touch {
+            /** How often buffered last-seen instants are flushed in one batched UPDATE. */
+            private Duration flushInterval = Duration.ofSeconds(30);
+            /** Sessions touched more recently than this are not re-recorded. */
+            private Duration minInterval = Duration.ofSeconds(60);
+        }
+    }
+    /** Rate limiting: login failure limiter bounds and per-route request policies. */
+    @Getter @Setter
+    public static class RateLimit {
+        /** Whether per-route policies are enforced by the rate limit filter. */
+        private boolean enabled = true;
+        /** Hard cap on keys tracked per limiter (memory stays flat beyond it). */
+        private int maxTrackedKeys = 100_000;
+        /** How often keys without recent activity are swept. */
+        private Duration sweepInterval = Duration.ofMinutes(1);
+        /** Per-route request policies (GCRA); every matching policy must admit the request. */
+        private List<Policy> policies = new ArrayList<>();
+        /** Cluster-wide login failure counting through Postgres. */
+        private Shared shared = new Shared();
+
+        /** Shared (cross-instance) login failure counters; local limiting always stays active. */
+        @Getter @Setter
+        public static class Shared {
+            /** Whether failures are aggregated across instances (requires Postgres, migration V7). */
+            private boolean enabled = false;
+            /** How often locally accumulated failures are flushed and cluster totals re-read. */
+            private Duration syncInterval = Duration.ofSeconds(1);
+            /** A sync slower than this (or failing) switches the instance to local-only limiting. */
+            private Duration syncTimeout = Duration.ofMillis(500);
+            /** How long to stay local-only after a slow or failed sync before trying again. */
+            private Duration degradedBackoff = Duration.ofSeconds(30);
+        }
+
+        /** Dimension a policy counts requests by. */
+        public enum KeyType {
+            /** Client address. */
+            IP,
+            /** Authenticated user id (falls back to IP for anonymous requests). */
+            USER,
+            /** {@code email} field of a login/register body (falls back to IP when absent). */
+            EMAIL
+        }
+
+        /** One rate limit: {@code limit} requests per {@code period}, allowing bursts of {@code burst}. */
+        @Getter @Setter
+        public static class Policy {
+            /** Policy name used in keys, logs and the {@code RateLimit-Policy} header. */
+            private String name;
+            /** HTTP method to match (blank = any). */
+            private String method = "";
+            /** Path patterns (Spring {@code PathPattern} syntax) the policy applies to. */
+            private List<String> paths = new ArrayList<>();
+            /** Dimension requests are counted by. */
+            private KeyType key = KeyType.IP;
+            /** Sustained number of requests allowed per period. */
+            private int limit = 60;
+            /** Period over which {@code limit} applies. */
+            private Duration period = Duration.ofMinutes(1);
+            /** Requests allowed back-to-back from a full bucket (0 = same as limit). */
+            private int burst = 0;
+
+            public int effectiveBurst() { return burst > 0 ? burst : limit; }
+        }
+    }
+    /** User profile read path. */
+    @Getter @Setter
+    public static class Profile {
+        /** Per-instance read-through cache of user profiles (bodies and ETags of /me and /users/{id}). */
+        private Cache cache = new Cache();
+        /** Maximum ids accepted by one batch profile lookup ({@code POST /users/batch}); capped at 1000. */
+        private int batchMaxIds = 200;
+
+        /** Bounds for the profile cache; entries are also dropped through the invalidation bus. */
+        @Getter @Setter
+        public static class Cache {
+            /** Maximum cached users per instance (least recently used evicted first). */
+            private int maxEntries = 10_000;
+            /** Upper bound on staleness should an invalidation from another instance be lost. */
+            private Duration ttl = Duration.ofMinutes(5);
+        }
+    }
+    /** Admin-only endpoints. */
+    @Getter @Setter
+    public static class Admin {
+        /** Keyset-paginated user listing ({@code GET /admin/users}). */
+        private UserList userList = new UserList();
+
+        @Getter @Setter
+        public static class UserList {
+            /** Rows per page when the request gives no {@code limit}. */
+            private int defaultPageSize = 100;
+            /** Upper bound on {@code limit}; bounds how long one page holds a connection. */
+            private int maxPageSize = 1000;
+            /** JDBC fetch size; rows are streamed to the response in chunks of this many. */
+            private int fetchSize = 200;
+        }
+    }
+    /** Replay of login/register responses for requests repeating an {@code Idempotency-Key}. */
+    @Getter @Setter
+    public static class Idempotency {
+        /** Whether the {@code Idempotency-Key} header is honoured. */
+        private boolean enabled = true;
+        /** How long a response can be replayed after it was produced. */
+        private Duration ttl = Duration.ofMinutes(2);
+        /** Hard cap on stored responses per instance (least recently used evicted first). */
+        private int maxEntries = 10_000;
+        /** Larger request bodies are passed through without idempotency handling. */
+        private int maxBodyBytes = 16 * 1024;
+        /** Path patterns (Spring {@code PathPattern} syntax) of the POST endpoints covered. */
+        private List<String> paths = new ArrayList<>(List.of(
+                "/auth/login", "/auth/register", "/api/auth/login", "/api/auth/register"));
+    }
+    /** Cross-instance cache invalidation over Postgres LISTEN/NOTIFY. */
+    @Getter @Setter
+    public static class Invalidation {
+        /** Whether to publish/subscribe invalidations via Postgres (local-only when false or not on Postgres). */
+        private boolean enabled = true;
+        /** NOTIFY channel name (plain SQL identifier). */
+        private String channel = "sameboat_cache_invalidation";
+        /** Wait before reconnecting the listener connection after it drops. */
+        private Duration reconnectBackoff = Duration.ofSeconds(5);
+        /** Maximum time the listener blocks waiting for notifications before re-checking its state. */
+        private Duration pollTimeout = Duration.ofSeconds(10);
     }
     /** Cross-Origin Resource Sharing settings. */
     @Getter @Setter
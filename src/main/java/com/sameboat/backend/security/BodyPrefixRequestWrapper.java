@@ -0,0 +1,84 @@
+package com.sameboat.backend.security;
+
+import com.sameboat.backend.security.idempotency.IdempotencyFilter;
+import com.sameboat.backend.security.ratelimit.RateLimitFilter;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Request wrapper that reads at most {@code maxBytes} of the body up front and replays them,
+ * followed by the untouched remainder of the original stream, to downstream readers. Lets
+ * {@link RateLimitFilter} inspect a small prefix (e.g. the {@code email} field of a login
+ * body) and {@link IdempotencyFilter} fingerprint small bodies without parsing the payload.
+ * Filters further down the chain reuse an existing wrapper instead of reading again.
+ */
+public final class BodyPrefixRequestWrapper extends HttpServletRequestWrapper {
+
+    private final byte[] prefix;
+    private final boolean complete;
+    private ServletInputStream stream;
+
+    public BodyPrefixRequestWrapper(HttpServletRequest request, int maxBytes) throws IOException {
+        super(request);
+        this.prefix = request.getInputStream().readNBytes(maxBytes);
+        this.complete = prefix.length < maxBytes;
+    }
+
+    /** Bytes read ahead of downstream consumers. */
+    public byte[] prefix() { return prefix; }
+
+    /** True when the prefix holds the entire body. */
+    public boolean isComplete() { return complete; }
+
+    @Override
+    public ServletInputStream getInputStream() throws IOException {
+        if (stream == null) {
+            ServletInputStream rest = super.getInputStream();
+            stream = new ServletInputStream() {
+                private int pos;
+
+                @Override
+                public int read() throws IOException {
+                    return pos < prefix.length ? prefix[pos++] & 0xFF : rest.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) throws IOException {
+                    if (len == 0) return 0;
+                    if (pos < prefix.length) {
+                        int n = Math.min(len, prefix.length - pos);
+                        System.arraycopy(prefix, pos, b, off, n);
+                        pos += n;
+                        return n;
+                    }
+                    return rest.read(b, off, len);
+                }
+
+                @Override
+                public boolean isFinished() { return pos >= prefix.length && rest.isFinished(); }
+
+                @Override
+                public boolean isReady() { return pos < prefix.length || rest.isReady(); }
+
+                @Override
+                public void setReadListener(ReadListener listener) { rest.setReadListener(listener); }
+            };
+        }
+        return stream;
+    }
+
+    @Override
+    public BufferedReader getReader() throws IOException {
+        String enc = getCharacterEncoding();
+        Charset cs = enc != null ? Charset.forName(enc) : StandardCharsets.UTF_8;
+        return new BufferedReader(new InputStreamReader(getInputStream(), cs));
+    }
+}
@@ -3,16 +3,23 @@ package com.sameboat.backend.security;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.sameboat.backend.common.ErrorResponse;
 import com.sameboat.backend.auth.session.SessionService;
-import com.sameboat.backend.user.UserService;
+import com.sameboat.backend.config.SameboatProperties;
+import com.sameboat.backend.security.idempotency.IdempotencyFilter;
+import com.sameboat.backend.security.ratelimit.GcraRateLimiter;
+import com.sameboat.backend.security.ratelimit.RateLimitFilter;
+import com.sameboat.backend.user.UserProfileCache;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
-import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.security.web.access.AccessDeniedHandlerImpl;
+import org.springframework.security.web.context.RequestAttributeSecurityContextRepository;
+import org.springframework.security.web.savedrequest.NullRequestCache;
 import org.springframework.security.web.AuthenticationEntryPoint;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
@@ -21,6 +28,8 @@ import org.springframework.security.core.AuthenticationException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.time.Clock;
+
 @Configuration
 @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class SecurityConfig {
@@ -54,28 +63,52 @@ public class SecurityConfig {
     }
 
     @Bean
-    public SessionAuthenticationFilter sessionAuthenticationFilter(SessionService sessionService, UserService userService) {
-        return new SessionAuthenticationFilter(sessionService, userService);
+    public SessionAuthenticationFilter sessionAuthenticationFilter(SessionService sessionService,
+                                                                   UserProfileCache profiles,
+                                                                   ObjectProvider<Clock> clockProvider) {
+        return new SessionAuthenticationFilter(sessionService, profiles, clockProvider.getIfAvailable(Clock::systemUTC));
+    }
+
+    @Bean
+    public RateLimitFilter rateLimitFilter(GcraRateLimiter limiter, SameboatProperties props, ObjectMapper objectMapper) {
+        return new RateLimitFilter(limiter, props, objectMapper);
+    }
+
+    @Bean
+    public IdempotencyFilter idempotencyFilter(SameboatProperties props, ObjectMapper objectMapper,
+                                               ObjectProvider<Clock> clockProvider) {
+        return new IdempotencyFilter(props, objectMapper, clockProvider.getIfAvailable(Clock::systemUTC));
     }
 
     @Bean
     public SecurityFilterChain securityFilterChain(@NonNull HttpSecurity http,
                                                    @NonNull SessionAuthenticationFilter sessionAuthenticationFilter,
+                                                   @NonNull RateLimitFilter rateLimitFilter,
+                                                   @NonNull IdempotencyFilter idempotencyFilter,
                                                    @NonNull AuthenticationEntryPoint jsonAuthEntryPoint) throws Exception {
         http
                 .cors(Customizer.withDefaults())
-                .csrf(org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer::disable)
+                .csrf(AbstractHttpConfigurer::disable)
                 .authorizeHttpRequests(auth -> auth
                         .requestMatchers(HttpMethod.OPTIONS, "/**").permitAll()
                         .requestMatchers("/actuator/health", "/actuator/info").permitAll()
                         .requestMatchers("/health", "/auth/login", "/auth/register", "/api/auth/login", "/api/auth/register").permitAll()
                         .requestMatchers("/api/version").permitAll()
+                        .requestMatchers("/admin/**", "/api/admin/**").hasRole("ADMIN")
                         .anyRequest().authenticated())
                 .exceptionHandling(e -> e
                         .authenticationEntryPoint(jsonAuthEntryPoint)
                         .accessDeniedHandler(new AccessDeniedHandlerImpl()))
-                .sessionManagement(sm -> sm.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+                // Stateless without SessionManagementFilter: that filter reads the SecurityContext on
+                // every request, which would defeat lazy session resolution in SessionAuthenticationFilter.
+                .sessionManagement(AbstractHttpConfigurer::disable)
+                .securityContext(sc -> sc.securityContextRepository(new RequestAttributeSecurityContextRepository()))
+                .requestCache(rc -> rc.requestCache(new NullRequestCache()))
                 .addFilterBefore(sessionAuthenticationFilter, UsernamePasswordAuthenticationFilter.class)
+                // After authentication (USER keys) but ahead of controllers, so rejected requests are never parsed.
+                .addFilterAfter(rateLimitFilter, SessionAuthenticationFilter.class)
+                // Replays are answered before rate limiting, so a retried login does not spend another token.
+                .addFilterBefore(idempotencyFilter, RateLimitFilter.class)
                 .httpBasic(Customizer.withDefaults());
         return http.build();
     }
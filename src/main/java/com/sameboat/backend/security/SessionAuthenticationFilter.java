@@ -1,15 +1,20 @@
 package com.sameboat.backend.security;
 
 import com.sameboat.backend.auth.AuthPrincipal;
+import com.sameboat.backend.auth.session.SessionKey;
+import com.sameboat.backend.auth.session.SessionPrincipal;
 import com.sameboat.backend.auth.session.SessionService;
-import com.sameboat.backend.user.UserService;
+import com.sameboat.backend.common.SingleFlight;
+import com.sameboat.backend.user.UserProfileCache;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.Cookie;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.lang.NonNull;
 import org.springframework.web.filter.OncePerRequestFilter;
@@ -18,19 +23,46 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.time.Clock;
+import java.time.Instant;
 import java.util.List;
-import java.util.UUID;
+import java.util.Optional;
+import java.util.function.Supplier;
 
+/**
+ * Authenticates requests carrying the {@code SBSESSION} (or legacy {@code sb_session}) cookie.
+ * <p>
+ * Resolution is lazy: the filter only parses the cookie and installs a deferred
+ * {@link SecurityContext}. The session cache / database is consulted the first time
+ * something asks for the {@code Authentication} (authorization of a protected route or a
+ * controller argument), so {@code permitAll} routes such as {@code /health} cost no queries
+ * even when the browser sends a cookie.
+ * <p>
+ * Cache misses are coalesced with a {@link SingleFlight}: parallel requests carrying the same
+ * cookie (e.g. an SPA booting) share one database lookup, and the leader caches the result
+ * before releasing the others.
+ * <p>
+ * Signed tokens are verified in-process, but their role claim is not trusted for authorization:
+ * the current role is read from the {@link UserProfileCache} (no query on a hit), so a demoted
+ * user loses elevated access as soon as the {@code USER} invalidation arrives, or within the
+ * profile cache TTL if the role was changed outside the application.
+ * <p>
+ * Expiry is judged against the injected {@link Clock} (the same one {@link SessionService} and
+ * the session cache use), so tests can drive it deterministically.
+ */
 public class SessionAuthenticationFilter extends OncePerRequestFilter {
 
     private static final Logger log = LoggerFactory.getLogger(SessionAuthenticationFilter.class);
 
     private final SessionService sessionService;
-    private final UserService userService;
+    private final UserProfileCache profiles;
+    private final Clock clock;
+    private final SingleFlight<SessionKey, Optional<SessionPrincipal>> principalLoads = new SingleFlight<>();
 
-    public SessionAuthenticationFilter(SessionService sessionService, UserService userService) {
+    public SessionAuthenticationFilter(SessionService sessionService, UserProfileCache profiles, Clock clock) {
         this.sessionService = sessionService;
-        this.userService = userService;
+        this.profiles = profiles;
+        this.clock = clock;
     }
 
     @Override
@@ -38,43 +70,17 @@ public class SessionAuthenticationFilter extends OncePerRequestFilter {
         String token = extractSessionCookie(request);
         if (token != null) {
             log.debug("Session cookie detected token={}", token);
-            try {
-                var uuid = UUID.fromString(token);
-                var sessionOpt = sessionService.findById(uuid);
-                if (sessionOpt.isPresent()) {
-                    var session = sessionOpt.get();
-                    var expiresAt = session.getExpiresAt();
-                    java.time.OffsetDateTime nowOffset = java.time.OffsetDateTime.now();
-                    java.time.Instant nowInstant = java.time.Instant.now();
-                    java.time.Instant expInstant = expiresAt == null ? null : expiresAt.toInstant();
-                    log.debug("TZDIAG systemDefault={} nowOffset={} nowInstant={} expiresAt={} expInstant={}", java.time.ZoneId.systemDefault(), nowOffset, nowInstant, expiresAt, expInstant);
-                    log.debug("Session lookup success token={} userId={} expiresAt={} nowInstant={}", token, session.getUserId(), expiresAt, nowInstant);
-                    if (expInstant != null && !expInstant.isAfter(nowInstant)) {
-                        log.warn("Expired session token={} userId={} expiresAt={} nowInstant={}", token, session.getUserId(), expiresAt, nowInstant);
-                        request.setAttribute("sameboat.sessionExpired", true);
-                        SecurityContextHolder.clearContext();
-                    } else {
-                        var userOpt = userService.findById(session.getUserId());
-                        if (userOpt.isPresent()) {
-                            var user = userOpt.get();
-                            log.info("Authenticated user id={} email={}", user.getId(), user.getEmail());
-                            sessionService.touch(session);
-                            var principal = new AuthPrincipal(user.getId(), user.getEmail(), user.getRole());
-                            var auth = new UsernamePasswordAuthenticationToken(principal, null,
-                                    List.of(new SimpleGrantedAuthority("ROLE_" + user.getRole())));
-                            SecurityContextHolder.getContext().setAuthentication(auth);
-                        } else {
-                            log.warn("User not found for session userId={} token={}", session.getUserId(), token);
-                            SecurityContextHolder.clearContext();
-                        }
-                    }
+            var strategy = SecurityContextHolder.getContextHolderStrategy();
+            if (sessionService.isSignedToken(token)) {
+                strategy.setDeferredContext(new DeferredSessionContext(() -> resolveSigned(token, request)));
+            } else {
+                var key = sessionService.opaqueKeyOf(token);
+                if (key.isPresent()) {
+                    strategy.setDeferredContext(new DeferredSessionContext(() -> resolve(key.get(), token, request)));
                 } else {
-                    log.warn("No session found for token={}", token);
+                    log.warn("Invalid session token format token={}", token);
                     SecurityContextHolder.clearContext();
                 }
-            } catch (IllegalArgumentException ex) {
-                log.warn("Invalid session token format token={}", token);
-                SecurityContextHolder.clearContext();
             }
         } else {
             log.trace("No session cookie present on path={} method={}", request.getRequestURI(), request.getMethod());
@@ -82,6 +88,101 @@ public class SessionAuthenticationFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
+    /**
+     * Memoizing supplier evaluated on first access to the security context. Only ever used
+     * by the request thread that installed it, so no synchronization is needed.
+     */
+    private static final class DeferredSessionContext implements Supplier<SecurityContext> {
+        private final Supplier<Optional<Authentication>> resolver;
+        private SecurityContext resolved;
+
+        private DeferredSessionContext(Supplier<Optional<Authentication>> resolver) {
+            this.resolver = resolver;
+        }
+
+        @Override
+        public SecurityContext get() {
+            if (resolved == null) {
+                SecurityContext context = SecurityContextHolder.getContextHolderStrategy().createEmptyContext();
+                resolver.get().ifPresent(context::setAuthentication);
+                resolved = context;
+            }
+            return resolved;
+        }
+    }
+
+    private Optional<Authentication> resolve(SessionKey key, String token, HttpServletRequest request) {
+        var cached = sessionService.findCached(key.id());
+        if (cached.isPresent()) {
+            var principal = cached.get();
+            log.debug("Session cache hit token={} userId={}", token, principal.userId());
+            sessionService.touch(principal);
+            return Optional.of(authentication(principal.toAuthPrincipal()));
+        }
+        return resolveFromDatabase(key, token, request);
+    }
+
+    /** Cache-miss path: resolves session + user identity in one query, enforces expiry and caches the result. */
+    private Optional<Authentication> resolveFromDatabase(SessionKey key, String token, HttpServletRequest request) {
+        var found = principalLoads.execute(key, () -> loadAndCache(key));
+        if (found.isEmpty()) {
+            log.warn("No session found for token={}", token);
+            return Optional.empty();
+        }
+        var principal = found.get();
+        Instant nowInstant = clock.instant();
+        log.debug("Session lookup success token={} userId={} expiresAt={} nowInstant={}", token, principal.userId(), principal.expiresAt(), nowInstant);
+        if (principal.isExpiredAt(nowInstant)) {
+            log.warn("Expired session token={} userId={} expiresAt={} nowInstant={}", token, principal.userId(), principal.expiresAt(), nowInstant);
+            request.setAttribute("sameboat.sessionExpired", true);
+            return Optional.empty();
+        }
+        log.info("Authenticated user id={} email={}", principal.userId(), principal.email());
+        sessionService.touch(principal);
+        return Optional.of(authentication(principal.toAuthPrincipal()));
+    }
+
+    /** Single-flight loader: one query per session id at a time; caches valid sessions for followers. */
+    private Optional<SessionPrincipal> loadAndCache(SessionKey key) {
+        var found = sessionService.findPrincipal(key);
+        found.ifPresent(sessionService::cache); // cache() skips expired sessions
+        return found;
+    }
+
+    /**
+     * Signed-token path: signature, expiry and revocation are checked in-process; no session
+     * query is issued. The role comes from the user's current profile, not the token claim.
+     * Tokens that fail verification (forged, tampered, revoked) or whose user no longer exists
+     * are treated as anonymous.
+     */
+    private Optional<Authentication> resolveSigned(String token, HttpServletRequest request) {
+        var verified = sessionService.verifySigned(token);
+        if (verified.isEmpty()) {
+            log.warn("Rejected signed session token (bad signature or revoked)");
+            return Optional.empty();
+        }
+        var claims = verified.get();
+        Instant nowInstant = clock.instant();
+        if (claims.isExpiredAt(nowInstant)) {
+            log.warn("Expired signed session sessionId={} userId={} expiresAt={}", claims.sessionId(), claims.userId(), claims.expiresAt());
+            request.setAttribute("sameboat.sessionExpired", true);
+            return Optional.empty();
+        }
+        var profile = profiles.get(claims.userId());
+        if (profile.isEmpty()) {
+            log.warn("Signed session of unknown user sessionId={} userId={}", claims.sessionId(), claims.userId());
+            return Optional.empty();
+        }
+        log.debug("Signed session verified sessionId={} userId={}", claims.sessionId(), claims.userId());
+        sessionService.touch(claims);
+        return Optional.of(authentication(new AuthPrincipal(claims.userId(), profile.get().email(), profile.get().role())));
+    }
+
+    private static Authentication authentication(AuthPrincipal principal) {
+        return new UsernamePasswordAuthenticationToken(principal, null,
+                List.of(new SimpleGrantedAuthority("ROLE_" + principal.role())));
+    }
+
     private String extractSessionCookie(HttpServletRequest request) {
         Cookie[] cookies = request.getCookies();
         if (cookies != null) {
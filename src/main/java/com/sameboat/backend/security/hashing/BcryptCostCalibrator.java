@@ -0,0 +1,76 @@
+package com.sameboat.backend.security.hashing;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.crypto.bcrypt.BCrypt;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.function.IntToLongFunction;
+
+/**
+ * Picks the bcrypt cost factor for the current host: the highest cost within
+ * {@code [minCost, maxCost]} whose hash time stays at or below a target latency.
+ * <p>
+ * Only {@code minCost} is measured (median of a few runs after a warm-up); each additional
+ * cost step doubles the work, so higher costs are extrapolated instead of paying for them at
+ * startup. The result never goes below {@code minCost}, even on a slow host. The same
+ * extrapolation tells how long a given (configured) cost would take here.
+ */
+public final class BcryptCostCalibrator {
+
+    private static final Logger log = LoggerFactory.getLogger(BcryptCostCalibrator.class);
+    private static final int SAMPLES = 3;
+
+    private BcryptCostCalibrator() { }
+
+    /**
+     * Result of a calibration run.
+     * @param recommendedCost highest cost within bounds meeting the target
+     * @param measuredCost    cost that was actually timed
+     * @param measuredNanos   median time of one hash at {@code measuredCost}
+     */
+    public record Calibration(int recommendedCost, int measuredCost, long measuredNanos) {
+        /** Extrapolated time of one hash at {@code cost} on this host (each step doubles the work). */
+        public Duration estimate(int cost) {
+            int steps = cost - measuredCost;
+            return Duration.ofNanos(steps >= 0 ? measuredNanos << steps : measuredNanos >> -steps);
+        }
+    }
+
+    /** Calibrates against real bcrypt hashing on this host. */
+    public static Calibration calibrate(Duration target, int minCost, int maxCost) {
+        return calibrate(target, minCost, maxCost, BcryptCostCalibrator::measureNanos);
+    }
+
+    /**
+     * @param measureNanos returns the time of one hash at the given cost
+     */
+    static Calibration calibrate(Duration target, int minCost, int maxCost, IntToLongFunction measureNanos) {
+        if (minCost < 4 || maxCost > 31 || minCost > maxCost) {
+            throw new IllegalArgumentException("bcrypt cost bounds must satisfy 4 <= min <= max <= 31");
+        }
+        measureNanos.applyAsLong(minCost); // warm-up
+        long[] samples = new long[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) samples[i] = measureNanos.applyAsLong(minCost);
+        Arrays.sort(samples);
+        long base = samples[SAMPLES / 2];
+        long targetNanos = target.toNanos();
+        int cost = minCost;
+        long estimate = base;
+        while (cost < maxCost && estimate * 2 <= targetNanos) {
+            cost++;
+            estimate *= 2;
+        }
+        log.info("bcrypt calibration: cost {} measured {} ms; chose cost {} (~{} ms, target {} ms)",
+                minCost, base / 1_000_000, cost, estimate / 1_000_000, target.toMillis());
+        return new Calibration(cost, minCost, base);
+    }
+
+    private static long measureNanos(int cost) {
+        String salt = BCrypt.gensalt(cost);
+        long start = System.nanoTime();
+        BCrypt.hashpw("calibration-password", salt);
+        return System.nanoTime() - start;
+    }
+}
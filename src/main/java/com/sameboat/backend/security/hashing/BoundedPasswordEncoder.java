@@ -0,0 +1,133 @@
+package com.sameboat.backend.security.hashing;
+
+import com.sameboat.backend.common.ServiceOverloadedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@link PasswordEncoder} decorator that runs {@code encode}/{@code matches} on a dedicated,
+ * bounded executor instead of the calling request thread.
+ * <p>
+ * The pool has a fixed number of threads (one per core by default) and a bounded queue. When
+ * the queue is full the call fails immediately with {@link ServiceOverloadedException}
+ * (503 SERVER_BUSY) rather than piling up work: a login storm then costs one rejected request
+ * each instead of pinning every Tomcat worker on bcrypt, and cheap endpoints stay responsive.
+ * Callers also give up after {@code timeout}.
+ * <p>
+ * Metrics: {@code sameboat.auth.hashing.queue.depth} and {@code .active} (gauges),
+ * {@code sameboat.auth.hashing.duration{op}} (hash time on the executor),
+ * {@code sameboat.auth.hashing.wait} (queue wait) and {@code sameboat.auth.hashing.rejected}.
+ */
+public class BoundedPasswordEncoder implements PasswordEncoder, AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(BoundedPasswordEncoder.class);
+
+    private final PasswordEncoder delegate;
+    private final ThreadPoolExecutor executor;
+    private final long timeoutNanos;
+    private final Timer encodeTimer;
+    private final Timer matchesTimer;
+    private final Timer waitTimer;
+    private final Counter rejected;
+
+    /**
+     * @param delegate      encoder doing the actual hashing
+     * @param threads       executor threads (positive)
+     * @param queueCapacity operations allowed to wait for a thread (positive)
+     * @param timeout       longest a caller waits for a result
+     * @param registry      meter registry for queue and latency metrics
+     */
+    public BoundedPasswordEncoder(PasswordEncoder delegate, int threads, int queueCapacity, Duration timeout,
+                                  MeterRegistry registry) {
+        this.delegate = delegate;
+        this.timeoutNanos = timeout.toNanos();
+        AtomicInteger seq = new AtomicInteger();
+        ThreadFactory factory = r -> {
+            Thread t = new Thread(r, "pwd-hash-" + seq.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), factory, new ThreadPoolExecutor.AbortPolicy());
+        Gauge.builder("sameboat.auth.hashing.queue.depth", executor, e -> e.getQueue().size())
+                .description("Password hash operations waiting for a thread").register(registry);
+        Gauge.builder("sameboat.auth.hashing.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Password hash operations running").register(registry);
+        this.encodeTimer = Timer.builder("sameboat.auth.hashing.duration").tag("op", "encode").register(registry);
+        this.matchesTimer = Timer.builder("sameboat.auth.hashing.duration").tag("op", "matches").register(registry);
+        this.waitTimer = Timer.builder("sameboat.auth.hashing.wait")
+                .description("Time hash operations spent queued").register(registry);
+        this.rejected = Counter.builder("sameboat.auth.hashing.rejected")
+                .description("Hash operations rejected because the queue was full").register(registry);
+        log.info("Password hashing executor threads={} queueCapacity={}", threads, queueCapacity);
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return submit(encodeTimer, () -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return submit(matchesTimer, () -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword); // parses the hash only; no hashing
+    }
+
+    /** Operations currently waiting for a thread. */
+    public int queueDepth() { return executor.getQueue().size(); }
+
+    private <T> T submit(Timer timer, Callable<T> work) {
+        long queuedAt = System.nanoTime();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                waitTimer.record(System.nanoTime() - queuedAt, TimeUnit.NANOSECONDS);
+                return timer.recordCallable(work);
+            });
+        } catch (RejectedExecutionException ex) {
+            rejected.increment();
+            throw new ServiceOverloadedException("Password hashing queue full");
+        }
+        try {
+            return future.get(timeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException ex) {
+            future.cancel(true);
+            rejected.increment();
+            throw new ServiceOverloadedException("Password hashing timed out");
+        } catch (InterruptedException ex) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new ServiceOverloadedException("Interrupted while waiting for password hashing");
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException re) throw re;
+            if (ex.getCause() instanceof Error err) throw err;
+            throw new IllegalStateException("Password hashing failed", ex.getCause());
+        }
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,239 @@
+package com.sameboat.backend.security.idempotency;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sameboat.backend.common.BoundedTtlCache;
+import com.sameboat.backend.common.ErrorResponse;
+import com.sameboat.backend.common.SingleFlight;
+import com.sameboat.backend.config.SameboatProperties;
+import com.sameboat.backend.security.BodyPrefixRequestWrapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.PathContainer;
+import org.springframework.lang.NonNull;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Replays the first response for POSTs to the paths in {@code sameboat.idempotency.paths}
+ * (login and register by default) that carry the same {@code Idempotency-Key} header, so
+ * double-clicks and client retries neither hash the password again nor mint another session.
+ * <p>
+ * Responses are kept in a {@link BoundedTtlCache} for {@code sameboat.idempotency.ttl}, with
+ * status, body, {@code Set-Cookie} and {@code Location}; replays add
+ * {@value #REPLAYED_HEADER}{@code : true}. Each entry is bound to a fingerprint of the client
+ * address and request body (HMAC-SHA256 under a random key generated per process, so a stored
+ * fingerprint cannot be brute-forced back to the password in the body), so reusing a key for a different request is answered with 422
+ * {@code IDEMPOTENCY_KEY_REUSED} instead of someone else's session. Duplicates that arrive
+ * while the first request is still running wait for it through {@link SingleFlight}.
+ * <p>
+ * 5xx and 429 responses are not stored, so a retry after an overload still runs. Requests
+ * without the header, or with a body above {@code max-body-bytes}, pass through untouched.
+ * The cache is per instance; retries routed to another instance run normally.
+ */
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(IdempotencyFilter.class);
+
+    public static final String KEY_HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+    static final int MAX_KEY_LENGTH = 255;
+    private static final List<String> REPLAYED_HEADERS = List.of(HttpHeaders.SET_COOKIE, HttpHeaders.LOCATION);
+    private static final String FINGERPRINT_ALGORITHM = "HmacSHA256";
+
+    /**
+     * Captured response. Immutable apart from the body array, which is never modified after capture.
+     * @param fingerprint keyed hash of client address and request body the response belongs to
+     * @param status      HTTP status
+     * @param contentType response content type (may be null)
+     * @param headers     replayed header values ({@code Set-Cookie}, {@code Location}) by name
+     * @param body        response body bytes
+     */
+    record StoredResponse(String fingerprint, int status, String contentType,
+                          Map<String, List<String>> headers, byte[] body) {
+        boolean cacheable() {
+            return status < 500 && status != HttpStatus.TOO_MANY_REQUESTS.value();
+        }
+    }
+
+    /** Carries checked exceptions of the leading request through {@link SingleFlight}. */
+    private static final class ChainFailure extends RuntimeException {
+        private ChainFailure(Exception cause) { super(cause); }
+    }
+
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final int maxBodyBytes;
+    private final List<PathPattern> paths;
+    private final BoundedTtlCache<String, StoredResponse> responses;
+    private final SingleFlight<String, StoredResponse> inFlight = new SingleFlight<>();
+    /** Fingerprint key; entries never outlive the process, so it is never shared or persisted. */
+    private final SecretKeySpec fingerprintKey;
+
+    public IdempotencyFilter(SameboatProperties props, ObjectMapper objectMapper, Clock clock) {
+        var cfg = props.getIdempotency();
+        this.objectMapper = objectMapper;
+        this.enabled = cfg.isEnabled();
+        this.maxBodyBytes = cfg.getMaxBodyBytes();
+        this.paths = cfg.getPaths().stream().map(PathPatternParser.defaultInstance::parse).toList();
+        this.responses = new BoundedTtlCache<>(cfg.getMaxEntries(), cfg.getTtl(), clock);
+        byte[] keyBytes = new byte[32];
+        new SecureRandom().nextBytes(keyBytes);
+        this.fingerprintKey = new SecretKeySpec(keyBytes, FINGERPRINT_ALGORITHM);
+    }
+
+    /** Number of stored responses (expired entries not yet dropped included). */
+    public int size() { return responses.size(); }
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        if (!enabled || !"POST".equals(request.getMethod())) return true;
+        String key = request.getHeader(KEY_HEADER);
+        if (key == null || key.isBlank()) return true;
+        PathContainer path = PathContainer.parsePath(request.getRequestURI().substring(request.getContextPath().length()));
+        for (PathPattern p : paths) {
+            if (p.matches(path)) return false;
+        }
+        return true;
+    }
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+                                    @NonNull FilterChain filterChain) throws ServletException, IOException {
+        String key = request.getHeader(KEY_HEADER).trim();
+        if (key.length() > MAX_KEY_LENGTH) {
+            writeError(response, HttpStatus.BAD_REQUEST, "VALIDATION_ERROR",
+                    KEY_HEADER + " must be at most " + MAX_KEY_LENGTH + " characters");
+            return;
+        }
+        HttpServletRequest req = request;
+        byte[] body;
+        if (isForm(request)) {
+            body = canonicalParameters(request); // the container parses form bodies itself
+        } else {
+            var wrapper = new BodyPrefixRequestWrapper(request, maxBodyBytes + 1);
+            req = wrapper;
+            if (!wrapper.isComplete() || wrapper.prefix().length > maxBodyBytes) {
+                filterChain.doFilter(req, response);
+                return;
+            }
+            body = wrapper.prefix();
+        }
+        String cacheKey = request.getRequestURI() + ' ' + key;
+        String fingerprint = fingerprint(request, body);
+
+        var stored = responses.get(cacheKey);
+        if (stored.isPresent()) {
+            replay(stored.get(), fingerprint, response);
+            return;
+        }
+        boolean[] leader = {false};
+        HttpServletRequest chainRequest = req;
+        StoredResponse result;
+        try {
+            result = inFlight.execute(cacheKey + ' ' + fingerprint, () -> {
+                leader[0] = true;
+                return runAndCapture(chainRequest, response, filterChain, cacheKey, fingerprint);
+            });
+        } catch (ChainFailure ex) {
+            if (!leader[0]) throw new ServletException("Idempotent request failed in a concurrent duplicate", ex.getCause());
+            if (ex.getCause() instanceof IOException io) throw io;
+            if (ex.getCause() instanceof ServletException se) throw se;
+            throw ex;
+        }
+        if (!leader[0]) replay(result, fingerprint, response);
+    }
+
+    private StoredResponse runAndCapture(HttpServletRequest request, HttpServletResponse response,
+                                         FilterChain chain, String cacheKey, String fingerprint) {
+        var wrapper = new ContentCachingResponseWrapper(response);
+        try {
+            chain.doFilter(request, wrapper);
+            var headers = new TreeMap<String, List<String>>(String.CASE_INSENSITIVE_ORDER);
+            for (String name : REPLAYED_HEADERS) {
+                var values = List.copyOf(wrapper.getHeaders(name));
+                if (!values.isEmpty()) headers.put(name, values);
+            }
+            var captured = new StoredResponse(fingerprint, wrapper.getStatus(), wrapper.getContentType(),
+                    Map.copyOf(headers), wrapper.getContentAsByteArray());
+            if (captured.cacheable()) responses.put(cacheKey, captured);
+            wrapper.copyBodyToResponse();
+            return captured;
+        } catch (IOException | ServletException ex) {
+            throw new ChainFailure(ex);
+        }
+    }
+
+    private void replay(StoredResponse stored, String fingerprint, HttpServletResponse response) throws IOException {
+        if (!stored.fingerprint().equals(fingerprint)) {
+            log.debug("Idempotency key reused for a different request");
+            writeError(response, HttpStatus.UNPROCESSABLE_ENTITY, "IDEMPOTENCY_KEY_REUSED",
+                    KEY_HEADER + " was already used for a different request");
+            return;
+        }
+        response.setStatus(stored.status());
+        if (stored.contentType() != null) response.setContentType(stored.contentType());
+        stored.headers().forEach((name, values) -> values.forEach(v -> response.addHeader(name, v)));
+        response.setHeader(REPLAYED_HEADER, "true");
+        response.setContentLength(stored.body().length);
+        response.getOutputStream().write(stored.body());
+        response.flushBuffer();
+    }
+
+    private void writeError(HttpServletResponse response, HttpStatus status, String code, String message)
+            throws IOException {
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        try (var out = response.getOutputStream()) {
+            objectMapper.writeValue(out, new ErrorResponse(code, message));
+        }
+    }
+
+    private static boolean isForm(HttpServletRequest request) {
+        String type = request.getContentType();
+        return type != null && type.toLowerCase(Locale.ROOT).startsWith(MediaType.APPLICATION_FORM_URLENCODED_VALUE);
+    }
+
+    private static byte[] canonicalParameters(HttpServletRequest request) {
+        var sb = new StringBuilder();
+        new TreeMap<>(request.getParameterMap()).forEach((name, values) -> {
+            for (String v : values) sb.append(name).append('=').append(v).append('&');
+        });
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private String fingerprint(HttpServletRequest request, byte[] body) {
+        try {
+            Mac mac = Mac.getInstance(FINGERPRINT_ALGORITHM);
+            mac.init(fingerprintKey);
+            mac.update(String.valueOf(request.getRemoteAddr()).getBytes(StandardCharsets.UTF_8));
+            mac.update((byte) 0);
+            mac.update(body);
+            return HexFormat.of().formatHex(mac.doFinal());
+        } catch (GeneralSecurityException ex) {
+            throw new IllegalStateException("HMAC unavailable", ex);
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.sameboat.backend.security.ratelimit;
+
+import com.sameboat.backend.config.SameboatProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Generic Cell Rate Algorithm (GCRA) limiter: a token bucket that stores a single
+ * "theoretical arrival time" (TAT) per key instead of a token count and refill timestamp.
+ * <p>
+ * For a policy of {@code limit} requests per {@code period} the emission interval is
+ * {@code T = period / limit}; a request is admitted while {@code TAT - burst * T <= now},
+ * after which {@code TAT = max(TAT, now) + T}. A full bucket therefore admits {@code burst}
+ * back-to-back requests and then one every {@code T}.
+ * <p>
+ * State is one {@code long} per key, updated inside {@code CHM.compute(..)}. At most
+ * {@code sameboat.rate-limit.max-tracked-keys} keys are tracked; requests for new keys beyond
+ * the cap are admitted untracked (fail open — this limiter guards every request, so failing
+ * closed would turn a key flood into an outage). Keys whose bucket has refilled are swept
+ * every {@code sweep-interval}.
+ */
+@Component
+public class GcraRateLimiter {
+
+    private static final Logger log = LoggerFactory.getLogger(GcraRateLimiter.class);
+
+    /**
+     * Outcome of one acquisition.
+     * @param allowed    whether the request may proceed
+     * @param limit      bucket capacity (burst)
+     * @param remaining  requests still admissible right now
+     * @param resetAfter time until the bucket is full again
+     * @param retryAfter time until the next request would be admitted (zero when allowed)
+     */
+    public record Decision(boolean allowed, int limit, long remaining, Duration resetAfter, Duration retryAfter) { }
+
+    private final ConcurrentHashMap<String, long[]> tats = new ConcurrentHashMap<>();
+    private final LongAdder untracked = new LongAdder();
+    private final Clock clock;
+    private final int maxTrackedKeys;
+
+    public GcraRateLimiter(ObjectProvider<SameboatProperties> propsProvider, ObjectProvider<Clock> clockProvider) {
+        this.maxTrackedKeys = propsProvider.getIfAvailable(SameboatProperties::new).getRateLimit().getMaxTrackedKeys();
+        this.clock = clockProvider.getIfAvailable(Clock::systemUTC);
+    }
+
+    /**
+     * Consumes one request from the key's bucket if admissible.
+     * @param key    bucket key (policy name plus dimension value)
+     * @param limit  sustained requests per period (positive)
+     * @param period refill period (positive)
+     * @param burst  bucket capacity (positive)
+     */
+    public Decision acquire(String key, int limit, Duration period, int burst) {
+        final long interval = Math.max(1, period.toNanos() / 1000 / limit);
+        final long tolerance = interval * burst;
+        final long now = ChronoUnit.MICROS.between(Instant.EPOCH, clock.instant());
+        final long[] result = new long[2]; // [0] = allowAt, [1] = tat after this request
+
+        long[] cell = tats.get(key);
+        if (cell == null && tats.size() >= maxTrackedKeys) {
+            untracked.increment();
+            return new Decision(true, burst, burst - 1L, Duration.ofNanos(interval * 1000), Duration.ZERO);
+        }
+        tats.compute(key, (k, c) -> {
+            long[] tat = c != null ? c : new long[]{now};
+            long newTat = Math.max(tat[0], now) + interval;
+            long allowAt = newTat - tolerance;
+            result[0] = allowAt;
+            if (allowAt <= now) {
+                tat[0] = newTat;
+                result[1] = newTat;
+            } else {
+                result[1] = tat[0];
+            }
+            return tat;
+        });
+        long allowAt = result[0];
+        if (allowAt > now) {
+            return new Decision(false, burst, 0, micros(result[1] - now), micros(allowAt - now));
+        }
+        long remaining = Math.min(burst, (now - allowAt) / interval);
+        return new Decision(true, burst, remaining, micros(result[1] - now), Duration.ZERO);
+    }
+
+    /** Number of keys currently holding state. */
+    public int trackedKeys() { return tats.size(); }
+
+    /**
+     * Drops keys whose bucket has refilled (TAT in the past); such keys behave exactly like
+     * untracked ones, so removal is invisible to clients.
+     * @return number of removed keys
+     */
+    @Scheduled(fixedDelayString = "${sameboat.rate-limit.sweep-interval:PT1M}",
+            initialDelayString = "${sameboat.rate-limit.sweep-interval:PT1M}")
+    public int sweepIdle() {
+        final long now = ChronoUnit.MICROS.between(Instant.EPOCH, clock.instant());
+        final int[] removed = new int[1];
+        // Re-check under the per-key lock so a concurrent acquire is never discarded.
+        for (String key : tats.keySet()) {
+            tats.computeIfPresent(key, (k, tat) -> {
+                if (tat[0] > now) return tat;
+                removed[0]++;
+                return null;
+            });
+        }
+        long overflow = untracked.sumThenReset();
+        if (overflow > 0) {
+            log.warn("Rate limit key table full ({} keys); admitted {} requests untracked", maxTrackedKeys, overflow);
+        }
+        if (removed[0] > 0) log.debug("Swept {} idle rate limit keys", removed[0]);
+        return removed[0];
+    }
+
+    private static Duration micros(long micros) {
+        return Duration.of(Math.max(0, micros), ChronoUnit.MICROS);
+    }
+}
@@ -0,0 +1,245 @@
+package com.sameboat.backend.security.ratelimit;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sameboat.backend.auth.AuthPrincipal;
+import com.sameboat.backend.common.ErrorResponse;
+import com.sameboat.backend.config.SameboatProperties;
+import com.sameboat.backend.config.SameboatProperties.RateLimit.KeyType;
+import com.sameboat.backend.config.SameboatProperties.RateLimit.Policy;
+import com.sameboat.backend.security.BodyPrefixRequestWrapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.PathContainer;
+import org.springframework.lang.NonNull;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Enforces the per-route policies from {@code sameboat.rate-limit.policies} with a
+ * {@link GcraRateLimiter}. Runs in the security chain right after session authentication and
+ * before any controller reads the body, so rejected requests cost neither JSON parsing nor
+ * password hashing.
+ * <p>
+ * Every policy matching the method and path must admit the request. Admitted responses carry
+ * {@code RateLimit-Limit}, {@code RateLimit-Remaining}, {@code RateLimit-Reset} and
+ * {@code RateLimit-Policy} for the tightest matching policy; rejected ones get 429
+ * {@code RATE_LIMITED} plus {@code Retry-After}.
+ * <p>
+ * {@code EMAIL} keys are read with Jackson's streaming parser from the first
+ * {@value #EMAIL_PEEK_BYTES} bytes of a JSON body (the remainder is streamed through untouched),
+ * or from the form parameters of a form post, so escapes are decoded exactly as the controller
+ * will see them. The filter fails closed: a request whose email cannot be read (missing, not
+ * a string, beyond the prefix, unsupported content type) or that repeats the {@code email}
+ * field (Jackson would bind the last one while an earlier one picked the bucket) is rejected
+ * with 400 {@code VALIDATION_ERROR} instead of being counted under its IP.
+ */
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(RateLimitFilter.class);
+
+    static final int EMAIL_PEEK_BYTES = 4096;
+    private static final String EMAIL_FIELD = "email";
+    private static final int MAX_EMAIL_LENGTH = 320;
+
+    /** Email read ahead of the controller: {@code value} when readable, otherwise why the request is rejected. */
+    private record EmailRead(String value, String error) {
+        static EmailRead of(String email) {
+            String normalized = email.trim().toLowerCase(Locale.ROOT);
+            return normalized.isEmpty() || normalized.length() > MAX_EMAIL_LENGTH
+                    ? invalid("email is required (at most " + MAX_EMAIL_LENGTH + " characters)")
+                    : new EmailRead(normalized, null);
+        }
+
+        static EmailRead invalid(String error) { return new EmailRead(null, error); }
+    }
+
+    private record CompiledPolicy(Policy policy, String method, List<PathPattern> patterns, String header) {
+        boolean matches(String requestMethod, PathContainer path) {
+            if (!method.isEmpty() && !method.equalsIgnoreCase(requestMethod)) return false;
+            for (PathPattern p : patterns) {
+                if (p.matches(path)) return true;
+            }
+            return false;
+        }
+    }
+
+    private final GcraRateLimiter limiter;
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final List<CompiledPolicy> policies;
+
+    public RateLimitFilter(GcraRateLimiter limiter, SameboatProperties props, ObjectMapper objectMapper) {
+        var cfg = props.getRateLimit();
+        this.limiter = limiter;
+        this.objectMapper = objectMapper;
+        this.enabled = cfg.isEnabled();
+        this.policies = cfg.getPolicies().stream().map(RateLimitFilter::compile).toList();
+    }
+
+    private static CompiledPolicy compile(Policy p) {
+        if (p.getName() == null || p.getName().isBlank()) {
+            throw new IllegalStateException("sameboat.rate-limit.policies[].name is required");
+        }
+        if (p.getLimit() <= 0 || p.getPeriod() == null || p.getPeriod().isZero() || p.getPeriod().isNegative()) {
+            throw new IllegalStateException("Rate limit policy '" + p.getName() + "' needs a positive limit and period");
+        }
+        var parser = PathPatternParser.defaultInstance;
+        List<PathPattern> patterns = p.getPaths().stream().map(parser::parse).toList();
+        String method = p.getMethod() == null ? "" : p.getMethod().trim();
+        String header = p.getLimit() + ";w=" + p.getPeriod().toSeconds() + ";burst=" + p.effectiveBurst()
+                + ";name=\"" + p.getName() + "\"";
+        return new CompiledPolicy(p, method, patterns, header);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        return !enabled || policies.isEmpty();
+    }
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+                                    @NonNull FilterChain filterChain) throws ServletException, IOException {
+        PathContainer path = PathContainer.parsePath(request.getRequestURI().substring(request.getContextPath().length()));
+        HttpServletRequest req = request;
+        CompiledPolicy tightest = null;
+        GcraRateLimiter.Decision tightestDecision = null;
+        for (CompiledPolicy cp : policies) {
+            if (!cp.matches(request.getMethod(), path)) continue;
+            Policy p = cp.policy();
+            if (p.getKey() == KeyType.EMAIL && !(req instanceof BodyPrefixRequestWrapper) && isJson(request)) {
+                req = new BodyPrefixRequestWrapper(request, EMAIL_PEEK_BYTES);
+            }
+            String key;
+            if (p.getKey() == KeyType.EMAIL) {
+                EmailRead email = readEmail(req);
+                if (email.error() != null) {
+                    badRequest(response, cp, email.error());
+                    return;
+                }
+                key = p.getName() + ":email:" + email.value();
+            } else {
+                key = p.getName() + ':' + resolveKey(p.getKey(), req);
+            }
+            var decision = limiter.acquire(key, p.getLimit(), p.getPeriod(), p.effectiveBurst());
+            if (!decision.allowed()) {
+                reject(response, cp, decision, key);
+                return;
+            }
+            if (tightestDecision == null || decision.remaining() < tightestDecision.remaining()) {
+                tightest = cp;
+                tightestDecision = decision;
+            }
+        }
+        if (tightest != null) writeHeaders(response, tightest, tightestDecision);
+        filterChain.doFilter(req, response);
+    }
+
+    /** Key for the IP and USER dimensions; anonymous requests under a USER policy count by IP. */
+    private String resolveKey(KeyType type, HttpServletRequest request) {
+        if (type == KeyType.USER) {
+            Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+            if (auth != null && auth.getPrincipal() instanceof AuthPrincipal principal) {
+                return "user:" + principal.userId();
+            }
+        }
+        return "ip:" + request.getRemoteAddr();
+    }
+
+    private EmailRead readEmail(HttpServletRequest request) {
+        if (request instanceof BodyPrefixRequestWrapper wrapper) return readJsonEmail(wrapper);
+        if (isForm(request)) {
+            String[] values = request.getParameterValues(EMAIL_FIELD);
+            if (values == null || values.length == 0) return EmailRead.invalid("email is required");
+            if (values.length > 1) return EmailRead.invalid("email must be given once");
+            return EmailRead.of(values[0]);
+        }
+        return EmailRead.invalid("email must be sent as JSON or form data");
+    }
+
+    /**
+     * Walks the top-level object of the body prefix. The whole object has to fit in the prefix:
+     * a duplicate {@code email} further on would otherwise go unseen.
+     */
+    private EmailRead readJsonEmail(BodyPrefixRequestWrapper wrapper) {
+        String email = null;
+        try (JsonParser parser = objectMapper.getFactory().createParser(wrapper.prefix())) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) return EmailRead.invalid("body must be a JSON object");
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if (!EMAIL_FIELD.equals(name)) {
+                    parser.skipChildren();
+                } else if (email != null) {
+                    return EmailRead.invalid("email must be given once");
+                } else if (value == JsonToken.VALUE_STRING) {
+                    email = parser.getText();
+                } else {
+                    return EmailRead.invalid("email must be a string");
+                }
+            }
+        } catch (IOException ex) { // malformed, or cut off at the prefix limit
+            return EmailRead.invalid(wrapper.isComplete() ? "malformed JSON body"
+                    : "login body must not exceed " + EMAIL_PEEK_BYTES + " bytes");
+        }
+        return email == null ? EmailRead.invalid("email is required") : EmailRead.of(email);
+    }
+
+    private static boolean isJson(HttpServletRequest request) {
+        String type = request.getContentType();
+        return type != null && type.toLowerCase(Locale.ROOT).contains("json");
+    }
+
+    private static boolean isForm(HttpServletRequest request) {
+        String type = request.getContentType();
+        return type != null && type.toLowerCase(Locale.ROOT).startsWith(MediaType.APPLICATION_FORM_URLENCODED_VALUE);
+    }
+
+    private void writeHeaders(HttpServletResponse response, CompiledPolicy cp, GcraRateLimiter.Decision d) {
+        response.setHeader("RateLimit-Limit", Integer.toString(d.limit()));
+        response.setHeader("RateLimit-Remaining", Long.toString(d.remaining()));
+        response.setHeader("RateLimit-Reset", Long.toString(ceilSeconds(d.resetAfter())));
+        response.setHeader("RateLimit-Policy", cp.header());
+    }
+
+    private void reject(HttpServletResponse response, CompiledPolicy cp, GcraRateLimiter.Decision d, String key)
+            throws IOException {
+        log.debug("Rate limit policy={} rejected key={} retryAfter={}", cp.policy().getName(), key, d.retryAfter());
+        writeHeaders(response, cp, d);
+        response.setHeader("Retry-After", Long.toString(Math.max(1, ceilSeconds(d.retryAfter()))));
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        try (var out = response.getOutputStream()) {
+            objectMapper.writeValue(out, new ErrorResponse("RATE_LIMITED", "Too many requests; try again later"));
+        }
+    }
+
+    private void badRequest(HttpServletResponse response, CompiledPolicy cp, String message) throws IOException {
+        log.debug("Rate limit policy={} rejected unreadable email: {}", cp.policy().getName(), message);
+        response.setStatus(HttpStatus.BAD_REQUEST.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        try (var out = response.getOutputStream()) {
+            objectMapper.writeValue(out, new ErrorResponse("VALIDATION_ERROR", message));
+        }
+    }
+
+    private static long ceilSeconds(Duration d) {
+        long s = d.getSeconds();
+        return d.getNano() > 0 ? s + 1 : s;
+    }
+}
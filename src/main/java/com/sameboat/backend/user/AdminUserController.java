@@ -0,0 +1,47 @@
+package com.sameboat.backend.user;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.time.OffsetDateTime;
+
+/**
+ * Admin user listing. Access is restricted to role ADMIN in {@code SecurityConfig}
+ * ({@code /admin/**}). The page is streamed straight to the response by
+ * {@link UserListingService}; clients follow {@code nextCursor} until it is null.
+ */
+@RestController
+@RequestMapping({"/admin","/api/admin"})
+public class AdminUserController {
+
+    private final UserListingService listingService;
+    private final ObjectMapper objectMapper;
+
+    public AdminUserController(UserListingService listingService, ObjectMapper objectMapper) {
+        this.listingService = listingService;
+        this.objectMapper = objectMapper;
+    }
+
+    @GetMapping("/users")
+    public void listUsers(@RequestParam(required = false) String role,
+                          @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime createdFrom,
+                          @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime createdTo,
+                          @RequestParam(required = false) String cursor,
+                          @RequestParam(required = false) Integer limit,
+                          HttpServletResponse response) throws IOException {
+        var page = listingService.prepare(new UserListingService.Query(role, createdFrom, createdTo, cursor, limit));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        try (var gen = objectMapper.getFactory().createGenerator(response.getOutputStream(), JsonEncoding.UTF8)) {
+            listingService.writePage(page, gen);
+        }
+    }
+}
@@ -0,0 +1,336 @@
+package com.sameboat.backend.user;
+
+import com.sameboat.backend.common.invalidation.CacheInvalidationListener;
+import com.sameboat.backend.common.invalidation.InvalidationEvent;
+import com.sameboat.backend.config.SameboatProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Bloom filter over normalized emails of registered users. Login consults it before querying
+ * {@code users}: a definite miss means the account does not exist, so credential-stuffing
+ * traffic for unknown emails costs no database round trip (the caller still burns a dummy
+ * hash so response time does not reveal which emails exist).
+ * <p>
+ * The filter is rebuilt at startup by streaming the {@code users} table, and again after the
+ * invalidation bus lost events (remote {@code ALL}). Those later rebuilds run on a dedicated
+ * thread, never on the invalidation listener, and are coalesced: requests arriving while one
+ * is queued are dropped, and at most one more follows a running rebuild. New accounts are added on registration
+ * and by peers' {@code USER_CREATED} events (looked up on the same thread); any code that inserts users must go through
+ * {@code AuthService#accountCreated}. Rows inserted outside the application (seed SQL, admin
+ * scripts, restores) are only seen by the next full rebuild, which also runs every
+ * {@code sameboat.auth.email-filter.rebuild-interval}. Until the first build completes, after
+ * a failed rebuild (until one succeeds), and when {@code sameboat.auth.email-filter.enabled=false},
+ * every email "might exist", so logins fall back to the database. Accounts are never removed,
+ * which at worst costs a query.
+ * <p>
+ * Metrics: {@code sameboat.auth.email_filter.bytes}, {@code .false_positive_rate} (estimated
+ * from the fill ratio) and {@code .checks{result=absent|maybe}}.
+ */
+@Component
+public class EmailExistenceFilter implements CacheInvalidationListener {
+
+    private static final Logger log = LoggerFactory.getLogger(EmailExistenceFilter.class);
+
+    /** Bit array plus its hash count; replaced wholesale on rebuild. */
+    static final class Bits {
+        final AtomicLongArray words;
+        final long numBits;
+        final int hashes;
+
+        Bits(long expected, double fpp) {
+            long n = Math.max(1, expected);
+            long m = (long) Math.ceil(-n * Math.log(fpp) / (Math.log(2) * Math.log(2)));
+            this.numBits = Math.max(64, (m + 63) / 64 * 64);
+            this.words = new AtomicLongArray(Math.toIntExact(numBits / 64));
+            this.hashes = Math.max(1, (int) Math.round((double) numBits / n * Math.log(2)));
+        }
+
+        void add(String email) {
+            long h1 = hash(email);
+            long h2 = fmix64(h1 + 0x9E3779B97F4A7C15L) | 1L;
+            for (int i = 0; i < hashes; i++) {
+                long bit = Math.floorMod(h1 + i * h2, numBits);
+                int word = (int) (bit >>> 6);
+                long mask = 1L << bit;
+                long cur;
+                while (((cur = words.get(word)) & mask) == 0 && !words.compareAndSet(word, cur, cur | mask)) {
+                    Thread.onSpinWait();
+                }
+            }
+        }
+
+        boolean mightContain(String email) {
+            long h1 = hash(email);
+            long h2 = fmix64(h1 + 0x9E3779B97F4A7C15L) | 1L;
+            for (int i = 0; i < hashes; i++) {
+                long bit = Math.floorMod(h1 + i * h2, numBits);
+                if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) return false;
+            }
+            return true;
+        }
+
+        /** False-positive probability implied by the current share of set bits. */
+        double estimatedFalsePositiveRate() {
+            long set = 0;
+            for (int i = 0; i < words.length(); i++) set += Long.bitCount(words.get(i));
+            return Math.pow((double) set / numBits, hashes);
+        }
+
+        private static long hash(String email) {
+            long h = 0xcbf29ce484222325L; // FNV-1a 64, finalized with the murmur3 mixer
+            for (byte b : email.getBytes(StandardCharsets.UTF_8)) {
+                h ^= b & 0xff;
+                h *= 0x100000001b3L;
+            }
+            return fmix64(h);
+        }
+
+        private static long fmix64(long k) {
+            k ^= k >>> 33;
+            k *= 0xff51afd7ed558ccdL;
+            k ^= k >>> 33;
+            k *= 0xc4ceb9fe1a85ec53L;
+            k ^= k >>> 33;
+            return k;
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    /** Read-only transaction around the streaming read; null without a transaction manager (unit tests). */
+    private final TransactionTemplate readOnlyTx;
+    private final boolean enabled;
+    private final long expectedInsertions;
+    private final double falsePositiveRate;
+    private final Counter absent;
+    private final Counter maybe;
+    /** Add/swap coordination: adds share the read lock, the rebuild swap takes the write lock. */
+    private final ReentrantReadWriteLock swapLock = new ReentrantReadWriteLock();
+    /** Emails added while a rebuild streams the table; replayed into the new bits before the swap. */
+    private final List<String> addedDuringRebuild = new ArrayList<>();
+    private volatile Bits bits;
+    private volatile boolean rebuilding;
+    /** Set when the last rebuild failed: the bits may miss accounts, so misses are not trusted. */
+    private volatile boolean stale;
+    /** Serializes rebuilds (startup and background). */
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+    /** Set while a background rebuild is queued but not started; further requests coalesce into it. */
+    private final AtomicBoolean rebuildQueued = new AtomicBoolean();
+    private final ExecutorService rebuildExecutor = Executors.newSingleThreadExecutor(
+            Thread.ofPlatform().daemon().name("sameboat-email-filter-rebuild").factory());
+
+    public EmailExistenceFilter(JdbcTemplate jdbcTemplate, ObjectProvider<SameboatProperties> propsProvider,
+                                ObjectProvider<MeterRegistry> meterRegistryProvider,
+                                ObjectProvider<PlatformTransactionManager> txManagerProvider) {
+        var cfg = propsProvider.getIfAvailable(SameboatProperties::new).getAuth().getEmailFilter();
+        this.jdbcTemplate = jdbcTemplate;
+        PlatformTransactionManager txManager = txManagerProvider.getIfAvailable();
+        if (txManager != null) {
+            this.readOnlyTx = new TransactionTemplate(txManager);
+            this.readOnlyTx.setReadOnly(true);
+        } else {
+            this.readOnlyTx = null;
+        }
+        this.enabled = cfg.isEnabled();
+        this.expectedInsertions = cfg.getExpectedInsertions();
+        this.falsePositiveRate = cfg.getFalsePositiveRate();
+        if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalStateException("sameboat.auth.email-filter.false-positive-rate must be in (0, 1)");
+        }
+        MeterRegistry registry = meterRegistryProvider.getIfAvailable(SimpleMeterRegistry::new);
+        Gauge.builder("sameboat.auth.email_filter.bytes", this, f -> f.memoryBytes())
+                .description("Memory used by the email existence filter").baseUnit("bytes").register(registry);
+        Gauge.builder("sameboat.auth.email_filter.false_positive_rate", this, f -> f.estimatedFalsePositiveRate())
+                .description("Estimated false-positive rate from the filter's fill ratio").register(registry);
+        this.absent = Counter.builder("sameboat.auth.email_filter.checks").tag("result", "absent").register(registry);
+        this.maybe = Counter.builder("sameboat.auth.email_filter.checks").tag("result", "maybe").register(registry);
+    }
+
+    /**
+     * @param normalizedEmail trimmed, lowercased email
+     * @return false only if no user with this email has ever been seen
+     */
+    public boolean mightExist(String normalizedEmail) {
+        Bits b = bits;
+        if (!enabled || b == null || stale || normalizedEmail == null) return true;
+        boolean result = b.mightContain(normalizedEmail);
+        (result ? maybe : absent).increment();
+        return result;
+    }
+
+    /** Records a newly registered email. */
+    public void add(String normalizedEmail) {
+        if (!enabled || normalizedEmail == null) return;
+        swapLock.readLock().lock();
+        try {
+            Bits b = bits;
+            if (b != null) b.add(normalizedEmail);
+            if (rebuilding) {
+                synchronized (addedDuringRebuild) {
+                    addedDuringRebuild.add(normalizedEmail);
+                }
+            }
+        } finally {
+            swapLock.readLock().unlock();
+        }
+    }
+
+    /** True once the filter has been built and answers definitively for misses. */
+    public boolean isReady() { return enabled && bits != null && !stale; }
+
+    /** Periodic full rebuild (see {@code rebuild-interval}); runs on the rebuild thread. */
+    @Scheduled(fixedDelayString = "${sameboat.auth.email-filter.rebuild-interval:PT1H}",
+            initialDelayString = "${sameboat.auth.email-filter.rebuild-interval:PT1H}")
+    public void scheduledRebuild() {
+        requestRebuild();
+    }
+
+    /**
+     * Queues a rebuild on the filter's own thread; coalesces with one already queued. The
+     * current bits keep answering until the new ones are swapped in.
+     */
+    public void requestRebuild() {
+        if (!enabled || !rebuildQueued.compareAndSet(false, true)) return;
+        rebuildExecutor.execute(() -> {
+            rebuildQueued.set(false); // later requests queue one more pass after this one
+            rebuild();
+        });
+    }
+
+    /**
+     * Rebuilds the filter from the {@code users} table, synchronously (at startup; see
+     * {@link #requestRebuild()} otherwise). The read runs in a read-only transaction opened
+     * here, not through a proxy, so the JDBC driver streams rows with the fetch size instead
+     * of materializing the result whoever the caller is.
+     * @return number of emails loaded
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public long rebuild() {
+        if (!enabled) return 0;
+        rebuildLock.lock();
+        rebuilding = true;
+        try {
+            Long count = jdbcTemplate.queryForObject("select count(*) from users", Long.class);
+            long users = count == null ? 0 : count;
+            Bits fresh = new Bits(Math.max(expectedInsertions, users * 2), falsePositiveRate);
+            long[] loaded = new long[1];
+            Runnable stream = () -> jdbcTemplate.query(con -> {
+                var ps = con.prepareStatement("select email from users", ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                ps.setFetchSize(1000);
+                return ps;
+            }, rs -> {
+                fresh.add(normalize(rs.getString(1)));
+                loaded[0]++;
+            });
+            if (readOnlyTx != null) {
+                readOnlyTx.executeWithoutResult(status -> stream.run());
+            } else {
+                stream.run();
+            }
+            swap(fresh);
+            stale = false;
+            log.info("Email existence filter built: {} emails, {} KiB, {} hash functions",
+                    loaded[0], fresh.numBits / 8 / 1024, fresh.hashes);
+            return loaded[0];
+        } catch (RuntimeException ex) {
+            stale = true;
+            log.warn("Email existence filter rebuild failed; misses go to the database until a rebuild succeeds: {}", ex.getMessage());
+            return 0;
+        } finally {
+            rebuilding = false;
+            synchronized (addedDuringRebuild) {
+                addedDuringRebuild.clear();
+            }
+            rebuildLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        rebuildExecutor.shutdownNow();
+    }
+
+    private void swap(Bits fresh) {
+        swapLock.writeLock().lock();
+        try {
+            synchronized (addedDuringRebuild) {
+                addedDuringRebuild.forEach(fresh::add);
+                addedDuringRebuild.clear();
+            }
+            bits = fresh;
+        } finally {
+            swapLock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onInvalidation(InvalidationEvent event) {
+        if (!enabled || !event.remote()) return; // local registrations are added directly
+        switch (event.kind()) {
+            case USER_CREATED -> addRemoteAccount(event.id());
+            case ALL -> requestRebuild(); // notifications may have been missed; never block the listener
+            case SESSION, USER, USER_SESSIONS -> { }
+        }
+    }
+
+    /**
+     * Looks up a peer's new account on the rebuild thread rather than the invalidation
+     * listener, which must not wait on the database. A lookup queued behind a rebuild still
+     * lands in the new bits (the swap replays adds made meanwhile, later adds go straight in).
+     */
+    private void addRemoteAccount(UUID userId) {
+        try {
+            rebuildExecutor.execute(() -> {
+                try {
+                    jdbcTemplate.queryForList("select email from users where id = ?", String.class, userId)
+                            .forEach(email -> add(normalize(email)));
+                } catch (RuntimeException ex) {
+                    log.warn("Could not add account {} to the email filter (next rebuild picks it up): {}", userId, ex.getMessage());
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            log.debug("Email filter executor shut down; dropped USER_CREATED {}", userId);
+        }
+    }
+
+    long memoryBytes() {
+        Bits b = bits;
+        return b == null ? 0 : b.numBits / 8;
+    }
+
+    double estimatedFalsePositiveRate() {
+        Bits b = bits;
+        return b == null ? 1.0 : b.estimatedFalsePositiveRate();
+    }
+
+    private static String normalize(String email) {
+        return email == null ? null : email.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,74 @@
+package com.sameboat.backend.user;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sameboat.backend.common.ErrorResponse;
+import com.sameboat.backend.config.SameboatProperties;
+import com.sameboat.backend.security.BodyPrefixRequestWrapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Set;
+
+/**
+ * Rejects {@code POST /users/batch} bodies larger than {@code batch-max-ids} ids can need with
+ * 413 {@code PAYLOAD_TOO_LARGE}, before Jackson binds them, so an oversized id list is never
+ * materialized only to fail validation. A declared {@code Content-Length} is checked first;
+ * otherwise (chunked) at most one byte past the limit is read.
+ */
+@Component
+@ConditionalOnProperty(prefix = "sameboat.endpoints", name = "user-read", havingValue = "true")
+public class UserBatchBodyLimitFilter extends OncePerRequestFilter {
+
+    private static final Set<String> PATHS = Set.of("/users/batch", "/api/users/batch");
+    /** Per id: a quoted UUID (38 bytes) plus separator, with room for whitespace. */
+    private static final int BYTES_PER_ID = 64;
+    private static final int ENVELOPE_BYTES = 256;
+
+    private final ObjectMapper objectMapper;
+    private final int maxBodyBytes;
+
+    public UserBatchBodyLimitFilter(SameboatProperties props, ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        int maxIds = Math.min(props.getProfile().getBatchMaxIds(), UserBatchRequest.MAX_IDS);
+        this.maxBodyBytes = ENVELOPE_BYTES + maxIds * BYTES_PER_ID;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        return !"POST".equals(request.getMethod())
+                || !PATHS.contains(request.getRequestURI().substring(request.getContextPath().length()));
+    }
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+                                    @NonNull FilterChain filterChain) throws ServletException, IOException {
+        if (request.getContentLengthLong() > maxBodyBytes) {
+            tooLarge(response);
+            return;
+        }
+        var wrapper = new BodyPrefixRequestWrapper(request, maxBodyBytes + 1);
+        if (!wrapper.isComplete()) {
+            tooLarge(response);
+            return;
+        }
+        filterChain.doFilter(wrapper, response);
+    }
+
+    private void tooLarge(HttpServletResponse response) throws IOException {
+        response.setStatus(HttpStatus.PAYLOAD_TOO_LARGE.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        try (var out = response.getOutputStream()) {
+            objectMapper.writeValue(out, new ErrorResponse("PAYLOAD_TOO_LARGE",
+                    "request body must be at most " + maxBodyBytes + " bytes"));
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.sameboat.backend.user;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Batch public-profile lookup. {@code ids} is capped at {@link #MAX_IDS} by validation; the
+ * configured bound ({@code sameboat.profile.batch-max-ids}, at most {@link #MAX_IDS}) is
+ * checked by the controller. The body itself is size-limited by {@link UserBatchBodyLimitFilter}
+ * before it is bound.
+ * @param ids user ids to resolve (duplicates are ignored)
+ */
+public record UserBatchRequest(@NotEmpty @Size(max = UserBatchRequest.MAX_IDS) List<@NotNull UUID> ids) {
+
+    /** Hard upper bound on ids per request, whatever {@code batch-max-ids} says. */
+    public static final int MAX_IDS = 1000;
+}
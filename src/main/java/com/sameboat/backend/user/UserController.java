@@ -4,9 +4,11 @@ import com.sameboat.backend.auth.AuthPrincipal;
 import com.sameboat.backend.common.ErrorResponse;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
+import org.springframework.http.CacheControl;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.UUID;
 
@@ -14,24 +16,36 @@ import java.util.UUID;
 @RequestMapping({"","/api"})
 public class UserController {
 
+    /** Browsers may store profile responses but must revalidate them (with the ETag) on every use. */
+    static final CacheControl REVALIDATE = CacheControl.noCache().cachePrivate();
+
     private final UserService userService;
 
     public UserController(UserService userService) {
         this.userService = userService;
     }
 
+    /**
+     * Returns the current user's profile (served from the profile cache) with a strong ETag.
+     * A matching {@code If-None-Match} is answered with 304 and no body.
+     */
     @GetMapping("/me")
-    public ResponseEntity<?> me(Authentication authentication, HttpServletRequest request) {
+    public ResponseEntity<?> me(Authentication authentication, HttpServletRequest request, WebRequest webRequest) {
         if (Boolean.TRUE.equals(request.getAttribute("sameboat.sessionExpired"))) {
             return ResponseEntity.status(401).body(new ErrorResponse("SESSION_EXPIRED", "Session expired"));
         }
         if (authentication == null || !(authentication.getPrincipal() instanceof AuthPrincipal ap)) {
             return ResponseEntity.status(401).body(new ErrorResponse("UNAUTHENTICATED", "Authentication required"));
         }
-        return userService.findById(ap.userId())
-                .map(UserMapper::toDto)
-                .<ResponseEntity<?>>map(ResponseEntity::ok)
-                .orElseGet(() -> ResponseEntity.status(401).body(new ErrorResponse("UNAUTHENTICATED", "Authentication required")));
+        var profile = userService.findProfile(ap.userId()).orElse(null);
+        if (profile == null) {
+            return ResponseEntity.status(401).body(new ErrorResponse("UNAUTHENTICATED", "Authentication required"));
+        }
+        var etag = profile.etag(UserProfile.Variant.SELF);
+        if (webRequest.checkNotModified(etag)) {
+            return null; // 304 with ETag already written
+        }
+        return ResponseEntity.ok().eTag(etag).cacheControl(REVALIDATE).body(profile.toDto());
     }
 
     @PatchMapping("/me")
@@ -46,11 +60,10 @@ public class UserController {
             return ResponseEntity.status(400).body(new ErrorResponse("VALIDATION_ERROR", "At least one field must be provided"));
         }
         UUID uid = ap.userId();
-        var user = userService.findById(uid).orElse(null);
-        if (user == null) {
+        var updated = userService.updateProfile(uid, request).orElse(null);
+        if (updated == null) {
             return ResponseEntity.status(401).body(new ErrorResponse("UNAUTHENTICATED", "Authentication required"));
         }
-        var updated = userService.updatePartial(user, request);
         return ResponseEntity.ok(UserMapper.toDto(updated));
     }
 }
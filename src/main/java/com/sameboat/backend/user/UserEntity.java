@@ -8,9 +8,16 @@ import lombok.Setter;
 import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
 import lombok.AccessLevel;
+import org.hibernate.annotations.DynamicUpdate;
 
+/**
+ * User row. Updates are column-minimal ({@link DynamicUpdate}) and optimistically locked on
+ * {@link #version}, so concurrent profile edits never need row locks and a password-hash swap
+ * is not overwritten by a profile write.
+ */
 @Entity
 @Table(name = "users")
+@DynamicUpdate
 @Getter
 @Setter
 @NoArgsConstructor
@@ -53,6 +60,11 @@ public class UserEntity {
     @Setter(AccessLevel.NONE)
     private OffsetDateTime updatedAt;
 
+    @Version
+    @Column(nullable = false)
+    @Setter(AccessLevel.NONE)
+    private long version;
+
     @PrePersist
     void prePersist() {
         var now = OffsetDateTime.now();
@@ -0,0 +1,152 @@
+package com.sameboat.backend.user;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.sameboat.backend.config.SameboatProperties;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+
+/**
+ * Admin user listing paginated by keyset on {@code (created_at, id)} (index
+ * {@code users_created_at_id_idx}), so every page costs the same no matter how deep it is.
+ * Rows are read through a forward-only cursor with {@code sameboat.admin.user-list.fetch-size}
+ * and written to the JSON generator one at a time; neither the page nor the table is ever
+ * materialized in memory.
+ */
+@Service
+public class UserListingService {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SameboatProperties.Admin.UserList cfg;
+
+    public UserListingService(JdbcTemplate jdbcTemplate, SameboatProperties props) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.cfg = props.getAdmin().getUserList();
+    }
+
+    /**
+     * Filters and position of one page.
+     * @param role        only users with this role (case-insensitive), null for all
+     * @param createdFrom inclusive lower bound on {@code created_at}, null for none
+     * @param createdTo   exclusive upper bound on {@code created_at}, null for none
+     * @param after       cursor returned by the previous page, null for the first page
+     * @param limit       page size, null for the configured default
+     */
+    public record Query(String role, OffsetDateTime createdFrom, OffsetDateTime createdTo, String after, Integer limit) { }
+
+    /** Keyset position: the last row of a page. Encoded as an opaque base64url token. */
+    record Cursor(OffsetDateTime createdAt, UUID id) {
+
+        String encode() {
+            String raw = createdAt + "|" + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        /** @throws IllegalArgumentException if the token was not produced by {@link #encode()} */
+        static Cursor decode(String token) {
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+                int sep = raw.indexOf('|');
+                if (sep < 0) throw new IllegalArgumentException("Invalid cursor");
+                return new Cursor(OffsetDateTime.parse(raw.substring(0, sep)), UUID.fromString(raw.substring(sep + 1)));
+            } catch (DateTimeParseException ex) {
+                throw new IllegalArgumentException("Invalid cursor", ex);
+            }
+        }
+    }
+
+    /** A validated page query: SQL with its arguments and the page size. */
+    public record Page(String sql, List<Object> args, int limit) { }
+
+    /**
+     * Validates a query and builds its SQL. Call before writing anything to the response, so
+     * bad input can still be answered with an error status.
+     * @throws IllegalArgumentException on an invalid cursor or limit
+     */
+    public Page prepare(Query query) {
+        int limit = query.limit() == null ? cfg.getDefaultPageSize() : query.limit();
+        if (limit < 1 || limit > cfg.getMaxPageSize()) {
+            throw new IllegalArgumentException("limit must be between 1 and " + cfg.getMaxPageSize());
+        }
+        Cursor after = query.after() == null || query.after().isBlank() ? null : Cursor.decode(query.after());
+
+        StringBuilder sql = new StringBuilder("select id, email, display_name, role, created_at from users where 1 = 1");
+        List<Object> args = new ArrayList<>();
+        if (query.role() != null && !query.role().isBlank()) {
+            sql.append(" and role = ?");
+            args.add(query.role().trim().toUpperCase(Locale.ROOT));
+        }
+        if (query.createdFrom() != null) {
+            sql.append(" and created_at >= ?");
+            args.add(query.createdFrom());
+        }
+        if (query.createdTo() != null) {
+            sql.append(" and created_at < ?");
+            args.add(query.createdTo());
+        }
+        if (after != null) {
+            sql.append(" and (created_at, id) > (?, ?)");
+            args.add(after.createdAt());
+            args.add(after.id());
+        }
+        // One extra row tells whether another page follows; it is not written.
+        sql.append(" order by created_at, id limit ?");
+        args.add(limit + 1);
+        return new Page(sql.toString(), List.copyOf(args), limit);
+    }
+
+    /**
+     * Streams one page as {@code {"items":[...],"nextCursor":...}}; {@code nextCursor} is null on
+     * the last page. Runs in a read-only transaction so the driver honours the fetch size.
+     */
+    @Transactional(readOnly = true)
+    public void writePage(Page page, JsonGenerator gen) throws IOException {
+        int limit = page.limit();
+        gen.writeStartObject();
+        gen.writeArrayFieldStart("items");
+        int[] written = {0};
+        Cursor[] last = {null};
+        boolean[] more = {false};
+        jdbcTemplate.query(con -> {
+            var ps = con.prepareStatement(page.sql(), ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(cfg.getFetchSize());
+            for (int i = 0; i < page.args().size(); i++) ps.setObject(i + 1, page.args().get(i));
+            return ps;
+        }, (ResultSet rs) -> {
+            if (written[0] == limit) {
+                more[0] = true;
+                return;
+            }
+            UUID id = rs.getObject("id", UUID.class);
+            OffsetDateTime createdAt = rs.getObject("created_at", OffsetDateTime.class);
+            try {
+                gen.writeStartObject();
+                gen.writeStringField("id", id.toString());
+                gen.writeStringField("email", rs.getString("email"));
+                gen.writeStringField("displayName", rs.getString("display_name"));
+                gen.writeStringField("role", rs.getString("role"));
+                gen.writeStringField("createdAt", createdAt.toString());
+                gen.writeEndObject();
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+            written[0]++;
+            last[0] = new Cursor(createdAt, id);
+        });
+        gen.writeEndArray();
+        gen.writeStringField("nextCursor", more[0] ? last[0].encode() : null);
+        gen.writeEndObject();
+    }
+}
@@ -0,0 +1,52 @@
+package com.sameboat.backend.user;
+
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.OffsetDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.UUID;
+
+/**
+ * Immutable snapshot of a user's profile columns plus {@code updated_at}, read with a single
+ * projection query and held by {@link UserProfileCache}. Both API representations and their
+ * ETags are derived from it, so cached reads never touch a managed {@link UserEntity}.
+ */
+public record UserProfile(UUID id, String email, String displayName, String avatarUrl, String bio,
+                          String timezone, String role, OffsetDateTime updatedAt) {
+
+    /** Representation variants; each gets its own ETag because the bodies differ. */
+    public enum Variant { SELF, PUBLIC }
+
+    public UserDto toDto() {
+        return new UserDto(id, email, displayName, avatarUrl, bio, timezone, role);
+    }
+
+    public PublicUserDto toPublicDto() {
+        return new PublicUserDto(id, displayName, avatarUrl, bio, timezone);
+    }
+
+    /** Version stamp: epoch microseconds of {@code updated_at}, the precision of {@code timestamptz}. */
+    public long version() {
+        var instant = updatedAt.toInstant().truncatedTo(ChronoUnit.MICROS);
+        return instant.getEpochSecond() * 1_000_000L + instant.getNano() / 1_000;
+    }
+
+    /** Strong, quoted ETag of the given representation (hash of id and version stamp). */
+    public String etag(Variant variant) {
+        try {
+            MessageDigest sha = MessageDigest.getInstance("SHA-256");
+            sha.update(ByteBuffer.allocate(24)
+                    .putLong(id.getMostSignificantBits())
+                    .putLong(id.getLeastSignificantBits())
+                    .putLong(version())
+                    .array());
+            byte[] digest = sha.digest();
+            return '"' + variant.name().toLowerCase(Locale.ROOT) + '-' + HexFormat.of().formatHex(digest, 0, 12) + '"';
+        } catch (GeneralSecurityException ex) {
+            throw new IllegalStateException("SHA-256 unavailable", ex);
+        }
+    }
+}
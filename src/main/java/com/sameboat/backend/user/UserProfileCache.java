@@ -0,0 +1,129 @@
+package com.sameboat.backend.user;
+
+import com.sameboat.backend.common.BoundedTtlCache;
+import com.sameboat.backend.common.invalidation.CacheInvalidationListener;
+import com.sameboat.backend.common.invalidation.InvalidationEvent;
+import com.sameboat.backend.config.SameboatProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Read-through, per-instance cache of {@link UserProfile} snapshots keyed by user id. Serves
+ * {@code GET /me} and {@code GET /users/{id}} (body and ETag) without a query on a hit; a miss
+ * costs one projection query and never loads a managed entity.
+ * <p>
+ * Entries are dropped on {@code USER} (profile changed) and {@code ALL} events from the cache
+ * invalidation bus, and otherwise expire after {@code sameboat.profile.cache.ttl}. A lookup
+ * that raced an invalidation is returned but not cached: invalidations bump a generation before
+ * removing the entry, and loads store through {@link BoundedTtlCache#putIf} with the generation
+ * check under the cache lock, so a snapshot read before a concurrent update can never outlive
+ * that update's invalidation.
+ * Metrics: {@code sameboat.user.profile_cache.requests{result}}, {@code .evictions}, {@code .size}.
+ */
+@Component
+public class UserProfileCache implements CacheInvalidationListener {
+
+    private final UserRepository repository;
+    private final BoundedTtlCache<UUID, UserProfile> profiles;
+    /** Bumped by every invalidation; lookups only cache when it did not move meanwhile. */
+    private final AtomicLong generation = new AtomicLong();
+    private final Counter hits;
+    private final Counter misses;
+
+    public UserProfileCache(UserRepository repository,
+                            ObjectProvider<SameboatProperties> propsProvider,
+                            ObjectProvider<Clock> clockProvider,
+                            ObjectProvider<MeterRegistry> meterRegistryProvider) {
+        var cfg = propsProvider.getIfAvailable(SameboatProperties::new).getProfile().getCache();
+        this.repository = repository;
+        this.profiles = new BoundedTtlCache<>(cfg.getMaxEntries(), cfg.getTtl(), clockProvider.getIfAvailable(Clock::systemUTC));
+        MeterRegistry registry = meterRegistryProvider.getIfAvailable(SimpleMeterRegistry::new);
+        this.hits = Counter.builder("sameboat.user.profile_cache.requests").tag("result", "hit").register(registry);
+        this.misses = Counter.builder("sameboat.user.profile_cache.requests").tag("result", "miss").register(registry);
+        FunctionCounter.builder("sameboat.user.profile_cache.evictions", profiles, BoundedTtlCache::evictions)
+                .description("Profiles dropped for capacity or TTL").register(registry);
+        Gauge.builder("sameboat.user.profile_cache.size", profiles, BoundedTtlCache::size).register(registry);
+    }
+
+    /**
+     * Returns a user's profile, loading and caching it on a miss.
+     * @param userId user id
+     * @return profile, or empty if the user does not exist (absence is not cached)
+     */
+    public Optional<UserProfile> get(UUID userId) {
+        var cached = profiles.get(userId);
+        if (cached.isPresent()) {
+            hits.increment();
+            return cached;
+        }
+        misses.increment();
+        long gen = generation.get();
+        Optional<UserProfile> loaded = repository.findProfileById(userId);
+        loaded.ifPresent(p -> profiles.putIf(userId, p, () -> generation.get() == gen));
+        return loaded;
+    }
+
+    /**
+     * Returns the profiles of several users, loading all misses with a single {@code IN} query.
+     * @param userIds user ids (duplicates are ignored)
+     * @return profiles keyed by id in request order; unknown ids are absent
+     */
+    public Map<UUID, UserProfile> getAll(Collection<UUID> userIds) {
+        Map<UUID, UserProfile> found = new LinkedHashMap<>();
+        List<UUID> missing = new ArrayList<>();
+        for (UUID id : new LinkedHashSet<>(userIds)) {
+            var cached = profiles.get(id);
+            found.put(id, cached.orElse(null)); // placeholder keeps request order
+            if (cached.isEmpty()) missing.add(id);
+        }
+        hits.increment(found.size() - missing.size());
+        if (!missing.isEmpty()) {
+            misses.increment(missing.size());
+            long gen = generation.get();
+            List<UserProfile> loaded = repository.findProfilesByIdIn(missing);
+            for (UserProfile p : loaded) {
+                found.put(p.id(), p);
+                profiles.putIf(p.id(), p, () -> generation.get() == gen);
+            }
+            found.values().removeIf(Objects::isNull);
+        }
+        return found;
+    }
+
+    /** Drops a user's cached profile on this instance only (peers are reached through the bus). */
+    public void evict(UUID userId) {
+        generation.incrementAndGet(); // before the removal; see putIf in get/getAll
+        profiles.invalidate(userId);
+    }
+
+    public int size() { return profiles.size(); }
+
+    @Override
+    public void onInvalidation(InvalidationEvent event) {
+        switch (event.kind()) {
+            case USER -> evict(event.id());
+            case ALL -> {
+                generation.incrementAndGet();
+                profiles.invalidateAll();
+            }
+            case SESSION, USER_SESSIONS, USER_CREATED -> { } // profile unchanged
+        }
+    }
+}
@@ -1,14 +1,20 @@
 package com.sameboat.backend.user;
 
 import com.sameboat.backend.auth.AuthPrincipal;
+import com.sameboat.backend.common.ErrorResponse;
 import com.sameboat.backend.common.ResourceNotFoundException;
+import com.sameboat.backend.config.SameboatProperties;
+import jakarta.validation.Valid;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.UUID;
 
@@ -24,13 +30,16 @@ import java.util.UUID;
 public class UserReadController {
 
     private final UserService userService;
+    private final SameboatProperties props;
 
-    public UserReadController(UserService userService) {
+    public UserReadController(UserService userService, SameboatProperties props) {
         this.userService = userService;
+        this.props = props;
     }
 
+    /** Public profile (served from the profile cache) with a strong ETag; a matching {@code If-None-Match} gets 304. */
     @GetMapping("/users/{id}")
-    public ResponseEntity<?> getPublicUser(Authentication authentication, @PathVariable("id") UUID id) {
+    public ResponseEntity<?> getPublicUser(Authentication authentication, @PathVariable("id") UUID id, WebRequest webRequest) {
         if (authentication == null || !(authentication.getPrincipal() instanceof AuthPrincipal ap)) {
             // Security config usually handles 401, but return 401 if unauthenticated reaches here
             return ResponseEntity.status(401).build();
@@ -40,8 +49,34 @@ public class UserReadController {
         if (!isSelf && !isAdmin) {
             return ResponseEntity.status(403).build();
         }
-        var user = userService.findById(id).orElseThrow(() -> new ResourceNotFoundException("User not found"));
-        return ResponseEntity.ok(UserMapper.toPublicDto(user));
+        var profile = userService.findProfile(id).orElseThrow(() -> new ResourceNotFoundException("User not found"));
+        var etag = profile.etag(UserProfile.Variant.PUBLIC);
+        if (webRequest.checkNotModified(etag)) {
+            return null; // 304 with ETag already written
+        }
+        return ResponseEntity.ok().eTag(etag).cacheControl(UserController.REVALIDATE).body(profile.toPublicDto());
     }
-}
 
+    /**
+     * Public profiles of up to {@code sameboat.profile.batch-max-ids} users (never more than
+     * {@link UserBatchRequest#MAX_IDS}; oversized bodies are refused before binding) in one call, keyed
+     * by id (unknown ids are omitted). Cached profiles are served from memory and the rest are
+     * loaded with a single query. The self-or-admin rule of {@code GET /users/{id}} applies to
+     * every id: a non-admin may only ask for themselves.
+     */
+    @PostMapping("/users/batch")
+    public ResponseEntity<?> getPublicUsers(Authentication authentication, @RequestBody @Valid UserBatchRequest request) {
+        if (authentication == null || !(authentication.getPrincipal() instanceof AuthPrincipal ap)) {
+            return ResponseEntity.status(401).build();
+        }
+        int max = Math.min(props.getProfile().getBatchMaxIds(), UserBatchRequest.MAX_IDS);
+        if (request.ids().size() > max) {
+            return ResponseEntity.status(400).body(new ErrorResponse("VALIDATION_ERROR", "ids must contain at most " + max + " entries"));
+        }
+        boolean isAdmin = ap.role() != null && ap.role().equalsIgnoreCase("ADMIN");
+        if (!isAdmin && request.ids().stream().anyMatch(id -> !ap.userId().equals(id))) {
+            return ResponseEntity.status(403).build();
+        }
+        return ResponseEntity.ok(userService.findPublicDtosByIds(request.ids()));
+    }
+}
@@ -1,11 +1,59 @@
 package com.sameboat.backend.user;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 public interface UserRepository extends JpaRepository<UserEntity, UUID> {
+    /**
+     * Derived query; compiles to {@code upper(email) = upper(?)}, which cannot use
+     * {@code users_email_lower_uidx}. Prefer {@link #findByEmailNormalized(String)} on hot paths.
+     */
     Optional<UserEntity> findByEmailIgnoreCase(String email);
+
+    /**
+     * Case-insensitive lookup matching the functional unique index {@code users_email_lower_uidx}
+     * ({@code lower(email)}). The argument must already be normalized (trimmed, lowercased).
+     */
+    @Query("select u from UserEntity u where lower(u.email) = :email")
+    Optional<UserEntity> findByEmailNormalized(@Param("email") String normalizedEmail);
+
+    /**
+     * Read-only profile projection (profile columns plus {@code updated_at}); avoids hydrating
+     * a managed entity. Backs {@link UserProfileCache}.
+     */
+    @Query("select new com.sameboat.backend.user.UserProfile(u.id, u.email, u.displayName, u.avatarUrl, u.bio, " +
+            "u.timezone, u.role, u.updatedAt) from UserEntity u where u.id = :id")
+    Optional<UserProfile> findProfileById(@Param("id") UUID id);
+
+    /** {@link #findProfileById(UUID)} for many users in one {@code IN} query (batch profile lookups). */
+    @Query("select new com.sameboat.backend.user.UserProfile(u.id, u.email, u.displayName, u.avatarUrl, u.bio, " +
+            "u.timezone, u.role, u.updatedAt) from UserEntity u where u.id in :ids")
+    List<UserProfile> findProfilesByIdIn(@Param("ids") Collection<UUID> ids);
+
+    /**
+     * Inserts a new user unless the email is taken (any unique violation, including the
+     * case-insensitive {@code users_email_lower_uidx}, is skipped instead of raised). The id is
+     * generated by the caller so no RETURNING round trip is needed.
+     * @return 1 if inserted, 0 on conflict
+     */
+    @Modifying
+    @Query(value = "insert into users (id, email, password_hash, display_name, role, created_at, updated_at, version) " +
+            "values (:id, :email, :passwordHash, :displayName, 'USER', :now, :now, 0) on conflict do nothing",
+            nativeQuery = true)
+    int insertIfAbsent(@Param("id") UUID id, @Param("email") String email, @Param("passwordHash") String passwordHash,
+                       @Param("displayName") String displayName, @Param("now") OffsetDateTime now);
+
+    /** Swaps the password hash only if it is still {@code oldHash} (concurrent rehash / password change wins). */
+    @Modifying
+    @Query("update UserEntity u set u.passwordHash = :newHash where u.id = :id and u.passwordHash = :oldHash")
+    int replacePasswordHash(@Param("id") UUID id, @Param("oldHash") String oldHash, @Param("newHash") String newHash);
 }
 
@@ -2,13 +2,20 @@ package com.sameboat.backend.user;
 
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 
 import com.sameboat.backend.common.ResourceNotFoundException;
+import com.sameboat.backend.common.invalidation.CacheInvalidationBus;
+import com.sameboat.backend.common.invalidation.InvalidationEvent;
 
 /**
  * Application service providing user-centric operations such as registration,
@@ -21,9 +28,13 @@ import com.sameboat.backend.common.ResourceNotFoundException;
 @Transactional
 public class UserService {
     private final UserRepository repository;
+    private final CacheInvalidationBus invalidationBus;
+    private final UserProfileCache profileCache;
 
-    public UserService(UserRepository repository) {
+    public UserService(UserRepository repository, CacheInvalidationBus invalidationBus, UserProfileCache profileCache) {
         this.repository = repository;
+        this.invalidationBus = invalidationBus;
+        this.profileCache = profileCache;
     }
 
     /**
@@ -32,7 +43,7 @@ public class UserService {
      * @return user if found
      */
     public Optional<UserEntity> getByEmailNormalized(String rawEmail) {
-        return repository.findByEmailIgnoreCase(normalizeEmail(rawEmail));
+        return repository.findByEmailNormalized(normalizeEmail(rawEmail));
     }
 
     /**
@@ -45,7 +56,7 @@ public class UserService {
      */
     public UserEntity registerNew(String rawEmail, String rawPassword, PasswordEncoder encoder) {
         String email = normalizeEmail(rawEmail);
-        repository.findByEmailIgnoreCase(email).ifPresent(u -> { throw new IllegalArgumentException("Email already registered"); });
+        repository.findByEmailNormalized(email).ifPresent(u -> { throw new IllegalArgumentException("Email already registered"); });
         UserEntity e = new UserEntity();
         e.setEmail(email);
         e.setDisplayName(email);
@@ -53,9 +64,47 @@ public class UserService {
         return repository.save(e);
     }
 
-    /** Finds a user by id. */
+    /**
+     * Inserts a user with a pre-computed hash in a single statement, skipping (not failing) when
+     * the email is already registered. Joins the caller's transaction.
+     * @param id              caller-generated user id
+     * @param normalizedEmail trimmed, lowercased email
+     * @param passwordHash    encoded password
+     * @param displayName     display name (null or blank defaults to the email)
+     * @return true if the user was inserted, false if the email exists
+     */
+    public boolean insertIfAbsent(UUID id, String normalizedEmail, String passwordHash, String displayName) {
+        String name = displayName == null || displayName.isBlank() ? normalizedEmail : displayName;
+        return repository.insertIfAbsent(id, normalizedEmail, passwordHash, name, OffsetDateTime.now()) == 1;
+    }
+
+    /** Finds a user by id as a managed entity; use for writes, reads should go through {@link #findProfile(UUID)}. */
     public Optional<UserEntity> findById(UUID id) { return repository.findById(id); }
 
+    /** Finds a user's profile snapshot through the profile cache (no managed entity). */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public Optional<UserProfile> findProfile(UUID id) { return profileCache.get(id); }
+
+    /** Finds a user's profile as a read-only DTO (cached, no managed entity). */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public Optional<UserDto> findDtoById(UUID id) { return findProfile(id).map(UserProfile::toDto); }
+
+    /** Finds a user's public profile (cached, no managed entity). */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public Optional<PublicUserDto> findPublicDtoById(UUID id) { return findProfile(id).map(UserProfile::toPublicDto); }
+
+    /**
+     * Finds the public profiles of several users (cached; misses loaded with one query).
+     * @param ids user ids
+     * @return public profiles keyed by id in request order; unknown ids are absent
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public Map<UUID, PublicUserDto> findPublicDtosByIds(Collection<UUID> ids) {
+        Map<UUID, PublicUserDto> result = new LinkedHashMap<>();
+        profileCache.getAll(ids).forEach((id, profile) -> result.put(id, profile.toPublicDto()));
+        return result;
+    }
+
     /** Gets a user by id or throws ResourceNotFoundException. */
     public UserEntity getByIdOrThrow(UUID id) {
         return repository.findById(id).orElseThrow(() -> new ResourceNotFoundException("User not found"));
@@ -63,7 +112,7 @@ public class UserService {
 
     /** Case-insensitive email lookup (expects already-normalized input). */
     public Optional<UserEntity> findByEmail(String email) {
-        return repository.findByEmailIgnoreCase(email);
+        return repository.findByEmailNormalized(normalizeEmail(email));
     }
 
     /**
@@ -77,22 +126,63 @@ public class UserService {
         return encoder.matches(rawPassword, user.getPasswordHash());
     }
 
+    /**
+     * Replaces a user's password hash (e.g. after rehashing with current parameters) unless
+     * it changed since it was read.
+     * @return true if the stored hash was replaced
+     */
+    public boolean replacePasswordHash(UUID userId, String oldHash, String newHash) {
+        return repository.replacePasswordHash(userId, oldHash, newHash) == 1;
+    }
+
     /** Normalizes an email (trim + lowercase, null-safe). */
     public String normalizeEmail(String email) {
         return email == null ? null : email.trim().toLowerCase(Locale.ROOT);
     }
 
     /**
-     * Applies a partial update to mutable profile fields if they are present in the request.
+     * Loads a user and applies a partial profile update in one transaction, so the entity stays
+     * managed and only changed columns are written.
+     * @param userId user to update
+     * @param req DTO carrying optional new values
+     * @return updated (or unchanged) entity, empty if the user does not exist
+     * @throws org.springframework.dao.OptimisticLockingFailureException if a concurrent update committed first
+     */
+    public Optional<UserEntity> updateProfile(UUID userId, UpdateUserRequest req) {
+        return repository.findById(userId).map(user -> updatePartial(user, req));
+    }
+
+    /**
+     * Applies a partial update to mutable profile fields if they are present in the request and
+     * differ from the stored values. When nothing changes no UPDATE is issued (so the
+     * {@code updated_at} trigger does not fire) and no invalidation is published; otherwise only
+     * the changed columns are written, guarded by the entity version, and cached copies of the
+     * user on every instance are invalidated after commit.
      * @param existing persistent entity loaded from repository
      * @param req DTO carrying optional new values
-     * @return updated and saved entity
+     * @return updated and saved entity, or {@code existing} when the request changed nothing
      */
     public UserEntity updatePartial(UserEntity existing, UpdateUserRequest req) {
-        if (req.displayName() != null) existing.setDisplayName(req.displayName());
-        if (req.avatarUrl() != null) existing.setAvatarUrl(req.avatarUrl());
-        if (req.bio() != null) existing.setBio(req.bio());
-        if (req.timezone() != null) existing.setTimezone(req.timezone());
-        return repository.save(existing);
+        boolean changed = false;
+        if (req.displayName() != null && !req.displayName().equals(existing.getDisplayName())) {
+            existing.setDisplayName(req.displayName());
+            changed = true;
+        }
+        if (req.avatarUrl() != null && !req.avatarUrl().equals(existing.getAvatarUrl())) {
+            existing.setAvatarUrl(req.avatarUrl());
+            changed = true;
+        }
+        if (req.bio() != null && !req.bio().equals(existing.getBio())) {
+            existing.setBio(req.bio());
+            changed = true;
+        }
+        if (req.timezone() != null && !req.timezone().equals(existing.getTimezone())) {
+            existing.setTimezone(req.timezone());
+            changed = true;
+        }
+        if (!changed) return existing;
+        UserEntity saved = repository.save(existing);
+        invalidationBus.publish(InvalidationEvent.user(saved.getId()));
+        return saved;
     }
 }
@@ -0,0 +1,9 @@
+-- V5__sessions_revoked_at.sql
+-- Supports signed (stateless) session tokens: logout marks the row revoked instead of deleting it,
+-- so every instance can refresh its in-memory revocation list until the session expires.
+-- Immutability: prior migrations remain untouched.
+
+ALTER TABLE sessions ADD COLUMN IF NOT EXISTS revoked_at TIMESTAMPTZ;
+
+-- Partial index keeps the periodic "revoked and not yet expired" refresh cheap.
+CREATE INDEX IF NOT EXISTS idx_sessions_revoked_expires_at ON sessions (expires_at) WHERE revoked_at IS NOT NULL;
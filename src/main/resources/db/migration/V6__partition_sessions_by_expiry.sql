@@ -0,0 +1,55 @@
+-- V6__partition_sessions_by_expiry.sql
+-- Range-partitions sessions by expires_at (one partition per UTC day) so expired sessions are removed by
+-- detaching and dropping whole partitions instead of row deletes (no dead tuples / vacuum debt).
+-- The primary key must include the partition key, hence (id, expires_at); ids stay globally unique UUIDs.
+-- Future partitions are pre-created here and kept ahead of the session TTL by SessionPruner
+-- (SessionPartitionManager, also at startup). There is deliberately no DEFAULT partition: Postgres refuses
+-- DETACH PARTITION ... CONCURRENTLY while one exists, and the plain form takes ACCESS EXCLUSIVE on sessions.
+-- Immutability: prior migrations remain untouched.
+
+ALTER TABLE sessions RENAME TO sessions_unpartitioned;
+ALTER INDEX IF EXISTS sessions_pkey RENAME TO sessions_unpartitioned_pkey;
+DROP INDEX IF EXISTS idx_sessions_user_id;
+DROP INDEX IF EXISTS idx_sessions_expires_at;
+DROP INDEX IF EXISTS idx_sessions_revoked_expires_at;
+
+CREATE TABLE sessions (
+    id UUID NOT NULL DEFAULT gen_random_uuid(),
+    user_id UUID NOT NULL REFERENCES users(id) ON DELETE CASCADE,
+    created_at TIMESTAMPTZ NOT NULL DEFAULT now(),
+    last_seen_at TIMESTAMPTZ NOT NULL DEFAULT now(),
+    expires_at TIMESTAMPTZ NOT NULL,
+    revoked_at TIMESTAMPTZ,
+    CONSTRAINT sessions_pkey PRIMARY KEY (id, expires_at)
+) PARTITION BY RANGE (expires_at);
+
+-- Daily partitions from yesterday through 31 days ahead (covers the default 7 day TTL with margin), plus the
+-- day of every live session carried over, so every copied row has a partition.
+DO $$
+DECLARE
+    d DATE;
+BEGIN
+    FOR d IN
+        SELECT g::date
+        FROM generate_series((now() AT TIME ZONE 'UTC')::date - 1, (now() AT TIME ZONE 'UTC')::date + 31, interval '1 day') g
+        UNION
+        SELECT DISTINCT (expires_at AT TIME ZONE 'UTC')::date FROM sessions_unpartitioned WHERE expires_at > now()
+    LOOP
+        EXECUTE format('CREATE TABLE IF NOT EXISTS %I PARTITION OF sessions FOR VALUES FROM (%L) TO (%L)',
+                       'sessions_p' || to_char(d, 'YYYYMMDD'),
+                       d::timestamp AT TIME ZONE 'UTC',
+                       (d + 1)::timestamp AT TIME ZONE 'UTC');
+    END LOOP;
+END $$;
+
+-- Carry over live sessions only; expired rows would be pruned anyway.
+INSERT INTO sessions (id, user_id, created_at, last_seen_at, expires_at, revoked_at)
+SELECT id, user_id, created_at, last_seen_at, expires_at, revoked_at
+FROM sessions_unpartitioned
+WHERE expires_at > now();
+
+DROP TABLE sessions_unpartitioned;
+
+-- Partitioned indexes (created on every partition automatically). Lookups by id use the (id, expires_at) key.
+CREATE INDEX IF NOT EXISTS idx_sessions_user_id ON sessions(user_id);
+CREATE INDEX IF NOT EXISTS idx_sessions_revoked_expires_at ON sessions (expires_at) WHERE revoked_at IS NOT NULL;
@@ -0,0 +1,15 @@
+-- V7__rate_limit_counters.sql
+-- Cluster-wide login failure counters for sameboat.rate-limit.shared.enabled=true.
+-- UNLOGGED: counters are advisory and short-lived, so they skip the WAL (no replication,
+-- truncated after a crash) in exchange for cheap upserts.
+-- Immutability: prior migrations remain untouched.
+
+CREATE UNLOGGED TABLE IF NOT EXISTS rate_limit_counters (
+    key          TEXT    NOT NULL,
+    window_start BIGINT  NOT NULL, -- epoch millis of the fixed window start
+    hits         INTEGER NOT NULL,
+    PRIMARY KEY (key, window_start)
+);
+
+-- Periodic purge of windows that can no longer affect a decision.
+CREATE INDEX IF NOT EXISTS idx_rate_limit_counters_window_start ON rate_limit_counters (window_start);
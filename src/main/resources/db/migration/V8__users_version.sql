@@ -0,0 +1,6 @@
+-- V8__users_version.sql
+-- Optimistic lock counter for users (JPA @Version). Profile updates check and bump it
+-- instead of taking row locks; existing rows start at 0.
+-- Immutability: prior migrations remain untouched.
+
+ALTER TABLE users ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,6 @@
+-- V9__users_created_at_id_index.sql
+-- Keyset pagination for the admin user listing: ORDER BY created_at, id with
+-- (created_at, id) > (?, ?) walks this index instead of sorting the table.
+-- Immutability: prior migrations remain untouched.
+
+CREATE INDEX IF NOT EXISTS users_created_at_id_idx ON users (created_at, id);
@@ -0,0 +1,62 @@
+package com.sameboat.backend.auth;
+
+import com.sameboat.backend.user.EmailExistenceFilter;
+import com.sameboat.backend.user.UserService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Unknown emails are rejected without a users query once the email filter is built;
+ * accounts registered after startup are added to it.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@TestPropertySource(properties = "sameboat.auth.dev-auto-create=false")
+class EmailExistenceFilterIntegrationTest {
+
+    @Autowired MockMvc mvc;
+    @Autowired EmailExistenceFilter emailFilter;
+    @Autowired MeterRegistry meterRegistry;
+
+    @MockitoSpyBean
+    UserService userService;
+
+    @Test
+    @DisplayName("Login for an unknown email skips the users lookup; registered emails still log in")
+    void unknownEmailSkipsLookup() throws Exception {
+        assertThat(emailFilter.isReady()).isTrue();
+        mvc.perform(post("/auth/register").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\":\"known@example.com\",\"password\":\"Passw0rd!\"}"))
+                .andExpect(status().isOk());
+
+        mvc.perform(post("/auth/login").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\":\"ghost@example.com\",\"password\":\"Passw0rd!\"}"))
+                .andExpect(status().isUnauthorized())
+                .andExpect(jsonPath("$.error").value("BAD_CREDENTIALS"));
+        verify(userService, never()).getByEmailNormalized("ghost@example.com");
+
+        mvc.perform(post("/auth/login").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\":\"Known@Example.com\",\"password\":\"Passw0rd!\"}"))
+                .andExpect(status().isOk());
+        assertThat(meterRegistry.get("sameboat.auth.email_filter.checks").tag("result", "absent").counter().count())
+                .isGreaterThanOrEqualTo(1.0);
+        assertThat(meterRegistry.get("sameboat.auth.email_filter.bytes").gauge().value()).isPositive();
+    }
+}
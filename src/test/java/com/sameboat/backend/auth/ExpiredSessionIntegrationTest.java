@@ -9,13 +9,18 @@ import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMock
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.convention.TestBean;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.support.TransactionTemplate;
 import jakarta.persistence.EntityManager;
 import jakarta.servlet.http.Cookie;
 
+import java.time.Clock;
+import java.time.Duration;
 import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
 import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -27,6 +32,22 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 @ActiveProfiles("test")
 class ExpiredSessionIntegrationTest {
 
+    /** Application clock the test can move forward; every session component reads time from it. */
+    static final class MovableClock extends Clock {
+        private volatile Instant now = Instant.now();
+        void advance(Duration d) { now = now.plus(d); }
+        @Override public ZoneId getZone() { return ZoneOffset.UTC; }
+        @Override public Clock withZone(ZoneId zone) { return this; }
+        @Override public Instant instant() { return now; }
+    }
+
+    private static final MovableClock CLOCK = new MovableClock();
+
+    @TestBean(name = "utcClock")
+    Clock clock;
+
+    static Clock clock() { return CLOCK; }
+
     @Autowired MockMvc mvc;
     @Autowired SessionRepository sessionRepository;
     @Autowired PlatformTransactionManager txManager;
@@ -46,10 +67,17 @@ class ExpiredSessionIntegrationTest {
         return semi >= 0 ? setCookie.substring(0, semi) : setCookie;
     }
 
+    /** Session id from an opaque {@code SBSESSION=<uuid>~<expiry>} cookie. */
+    private static UUID sessionIdOf(String cookieHeader) {
+        String token = cookieHeader.substring(cookieHeader.indexOf('=') + 1);
+        int sep = token.indexOf('~');
+        return UUID.fromString(sep < 0 ? token : token.substring(0, sep));
+    }
+
     private void expireSessionNow(UUID sessionId, long minutesAgo) {
         new TransactionTemplate(txManager).executeWithoutResult(status -> {
             SessionEntity s = sessionRepository.findById(sessionId).orElseThrow();
-            var farPastUtc = java.time.OffsetDateTime.now(java.time.ZoneOffset.UTC).minusDays(30);
+            var farPastUtc = java.time.OffsetDateTime.now(CLOCK).minusDays(30);
             s.setExpiresAt(farPastUtc);
             sessionRepository.save(s);
             entityManager.flush();
@@ -62,11 +90,9 @@ class ExpiredSessionIntegrationTest {
     void expiredSessionUnauthorized() throws Exception {
         String cookieHeader = obtainSessionCookie();
         String token = cookieHeader.substring(cookieHeader.indexOf('=') + 1);
-        UUID sessionId = UUID.fromString(token);
-        expireSessionNow(sessionId, 5);
-        var s = sessionRepository.findById(sessionId).orElseThrow();
-        System.out.println("TEST DIAG expiredSessionUnauthorized expiresAt=" + s.getExpiresAt() + " now=" + Instant.now());
-        assertThat(s.getExpiresAt().toInstant()).isBefore(Instant.now());
+        assertThat(token).contains("~");
+        mvc.perform(get("/me").cookie(new Cookie("SBSESSION", token))).andExpect(status().isOk());
+        CLOCK.advance(Duration.ofDays(8)); // past the 7 day TTL
         mvc.perform(get("/me").cookie(new Cookie("SBSESSION", token)))
                 .andExpect(status().isUnauthorized())
                 .andExpect(jsonPath("$.error").value("SESSION_EXPIRED"));
@@ -77,13 +103,23 @@ class ExpiredSessionIntegrationTest {
     void expiredSessionAliasCookie() throws Exception {
         String cookieHeader = obtainSessionCookie();
         String token = cookieHeader.substring(cookieHeader.indexOf('=') + 1);
-        UUID sessionId = UUID.fromString(token);
-        expireSessionNow(sessionId, 10);
-        var s = sessionRepository.findById(sessionId).orElseThrow();
-        System.out.println("TEST DIAG expiredSessionAliasCookie expiresAt=" + s.getExpiresAt() + " now=" + Instant.now());
-        assertThat(s.getExpiresAt().toInstant()).isBefore(Instant.now());
+        CLOCK.advance(Duration.ofDays(8));
         mvc.perform(get("/me").cookie(new Cookie("sb_session", token)))
                 .andExpect(status().isUnauthorized())
                 .andExpect(jsonPath("$.error").value("SESSION_EXPIRED"));
     }
+
+    @Test
+    @DisplayName("Expired session via legacy bare-UUID cookie returns SESSION_EXPIRED")
+    void expiredLegacyCookie() throws Exception {
+        String cookieHeader = obtainSessionCookie();
+        UUID sessionId = sessionIdOf(cookieHeader);
+        // legacy cookies carry no expiry and are resolved by id alone, so rewriting the row is enough
+        expireSessionNow(sessionId, 5);
+        var s = sessionRepository.findById(sessionId).orElseThrow();
+        assertThat(s.getExpiresAt().toInstant()).isBefore(CLOCK.instant());
+        mvc.perform(get("/me").cookie(new Cookie("SBSESSION", sessionId.toString())))
+                .andExpect(status().isUnauthorized())
+                .andExpect(jsonPath("$.error").value("SESSION_EXPIRED"));
+    }
 }
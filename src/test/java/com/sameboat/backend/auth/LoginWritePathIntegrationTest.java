@@ -0,0 +1,46 @@
+package com.sameboat.backend.auth;
+
+import com.sameboat.backend.auth.session.SessionRepository;
+import com.sameboat.backend.user.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The write side of a successful login is one transaction: the session INSERT (application
+ * assigned id, no merge SELECT, no forced flush) plus the session cap statement.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class LoginWritePathIntegrationTest {
+
+    @Autowired AuthService authService;
+    @Autowired UserRepository userRepository;
+    @Autowired SessionRepository sessionRepository;
+    @Autowired EntityManagerFactory entityManagerFactory;
+
+    @Test
+    @DisplayName("completeLogin commits once with one INSERT and no SELECT")
+    void singleTransactionWritePath() {
+        var reg = authService.register("fused@example.com", "Passw0rd!", null).orElseThrow();
+        var user = userRepository.findById(reg.userId()).orElseThrow();
+        var stats = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        stats.clear();
+
+        var session = authService.completeLogin(user, "Passw0rd!");
+
+        assertThat(stats.getSuccessfulTransactionCount()).isEqualTo(1);
+        assertThat(stats.getEntityInsertCount()).isEqualTo(1);
+        assertThat(stats.getEntityLoadCount()).as("no merge SELECT for the assigned id").isZero();
+        assertThat(stats.getPrepareStatementCount()).as("INSERT + cap DELETE").isEqualTo(2);
+        assertThat(sessionRepository.findById(session.getId())).as("committed").isPresent();
+    }
+}
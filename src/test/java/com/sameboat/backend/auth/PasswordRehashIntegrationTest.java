@@ -0,0 +1,49 @@
+package com.sameboat.backend.auth;
+
+import com.sameboat.backend.user.UserEntity;
+import com.sameboat.backend.user.UserRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class PasswordRehashIntegrationTest {
+
+    @Autowired MockMvc mvc;
+    @Autowired UserRepository userRepository;
+    @Autowired PasswordEncoder passwordEncoder;
+
+    @Test
+    @DisplayName("Legacy hash without algorithm id is verified and upgraded on successful login")
+    void legacyHashUpgradedOnLogin() throws Exception {
+        String legacy = new BCryptPasswordEncoder(4).encode("Sup3rSecret!");
+        var user = new UserEntity();
+        user.setEmail("rehash@example.com");
+        user.setDisplayName("rehash");
+        user.setPasswordHash(legacy);
+        user = userRepository.save(user);
+        assertThat(passwordEncoder.upgradeEncoding(legacy)).isTrue();
+
+        mvc.perform(post("/auth/login").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\":\"rehash@example.com\",\"password\":\"Sup3rSecret!\"}"))
+                .andExpect(status().isOk());
+
+        String stored = userRepository.findById(user.getId()).orElseThrow().getPasswordHash();
+        assertThat(stored).startsWith("{bcrypt}$2a$04$");
+        assertThat(passwordEncoder.upgradeEncoding(stored)).isFalse();
+        assertThat(passwordEncoder.matches("Sup3rSecret!", stored)).isTrue();
+    }
+}
@@ -0,0 +1,195 @@
+package com.sameboat.backend.auth;
+
+import com.sameboat.backend.config.SameboatProperties;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RateLimiterServiceTest {
+
+    /** Clock whose instant can be advanced by the test. */
+    static final class MutableClock extends Clock {
+        private Instant now = Instant.parse("2025-01-01T00:00:00Z");
+        void advance(Duration d) { now = now.plus(d); }
+        @Override public ZoneId getZone() { return ZoneOffset.UTC; }
+        @Override public Clock withZone(ZoneId zone) { return this; }
+        @Override public Instant instant() { return now; }
+    }
+
+    private final MutableClock clock = new MutableClock();
+
+    /** In-memory stand-in for the Postgres counter table; can be told to fail. */
+    static final class InMemoryCounterStore implements RateLimitCounterStore {
+        final Map<Counter, Long> rows = new ConcurrentHashMap<>();
+        final AtomicInteger addCalls = new AtomicInteger();
+        final List<Collection<String>> totalsCalls = new ArrayList<>();
+        volatile boolean failing;
+
+        @Override public void add(Map<Counter, Long> deltas) {
+            check();
+            addCalls.incrementAndGet();
+            deltas.forEach((c, n) -> rows.merge(c, n, Long::sum));
+        }
+        @Override public void reset(Collection<String> keys) { check(); rows.keySet().removeIf(c -> keys.contains(c.key())); }
+        @Override public Map<Counter, Long> totals(Collection<String> keys, long from) {
+            check();
+            totalsCalls.add(List.copyOf(keys));
+            Map<Counter, Long> out = new HashMap<>();
+            rows.forEach((c, n) -> { if (keys.contains(c.key()) && c.windowStart() >= from) out.put(c, n); });
+            return out;
+        }
+        @Override public int purgeBefore(long windowStart) {
+            int before = rows.size();
+            rows.keySet().removeIf(c -> c.windowStart() < windowStart);
+            return before - rows.size();
+        }
+        private void check() { if (failing) throw new IllegalStateException("database unavailable"); }
+    }
+
+    private RateLimiterService limiter(int maxKeys) {
+        return limiter(maxKeys, null);
+    }
+
+    private RateLimiterService limiter(int maxKeys, RateLimitCounterStore store) {
+        var props = new SameboatProperties();
+        props.getRateLimit().setMaxTrackedKeys(maxKeys);
+        var beans = new StaticListableBeanFactory();
+        if (store != null) {
+            props.getRateLimit().getShared().setEnabled(true);
+            props.getRateLimit().getShared().setSyncTimeout(Duration.ofSeconds(5));
+            beans.addBean("store", store);
+        }
+        beans.addBean("props", props);
+        beans.addBean("clock", clock);
+        return new RateLimiterService(beans.getBeanProvider(SameboatProperties.class), beans.getBeanProvider(Clock.class),
+                beans.getBeanProvider(RateLimitCounterStore.class));
+    }
+
+    @Test
+    void limitsAfterFiveFailuresAndSlidesWindow() {
+        var limiter = limiter(100);
+        for (int i = 0; i < 4; i++) {
+            assertThat(limiter.recordFailure("k")).isFalse();
+            clock.advance(Duration.ofMinutes(1));
+        }
+        assertThat(limiter.recordFailure("k")).isTrue();
+        assertThat(limiter.isLimited("k")).isTrue();
+        // the first failure leaves the 5 minute window
+        clock.advance(Duration.ofSeconds(61));
+        assertThat(limiter.isLimited("k")).isFalse();
+        limiter.reset("k");
+        assertThat(limiter.trackedKeys()).isZero();
+    }
+
+    @Test
+    void keyTableIsCappedAndIdleKeysAreSwept() {
+        var limiter = limiter(3);
+        limiter.recordFailure("a");
+        limiter.recordFailure("b");
+        limiter.recordFailure("c");
+        assertThat(limiter.recordFailure("d")).as("untracked key limited while table is full").isTrue();
+        assertThat(limiter.trackedKeys()).isEqualTo(3);
+        assertThat(limiter.recordFailure("a")).as("tracked keys keep their own budget").isFalse();
+
+        clock.advance(Duration.ofMinutes(5).plusSeconds(1));
+        assertThat(limiter.sweepIdle()).isEqualTo(3);
+        assertThat(limiter.recordFailure("d")).isFalse();
+    }
+
+    @Test
+    void sharedModeCountsFailuresAcrossInstancesInBatches() {
+        var store = new InMemoryCounterStore();
+        var nodeA = limiter(100, store);
+        var nodeB = limiter(100, store);
+        for (int i = 0; i < 3; i++) assertThat(nodeA.recordFailure("k")).isFalse();
+        assertThat(nodeB.recordFailure("k")).isFalse();
+        assertThat(nodeA.syncShared()).as("three failures flushed as one cell").isEqualTo(1);
+        nodeB.syncShared();
+        assertThat(store.addCalls).hasValue(2);
+        assertThat(nodeB.isLimited("k")).as("4 of 5 failures cluster-wide").isFalse();
+        assertThat(nodeB.recordFailure("k")).as("5th failure on B reaches the shared threshold").isTrue();
+        nodeB.syncShared();
+        nodeA.syncShared();
+        assertThat(nodeA.isLimited("k")).as("A re-reads k only after checking it").isFalse();
+        nodeA.syncShared();
+        assertThat(nodeA.isLimited("k")).isTrue();
+
+        nodeA.reset("k");
+        nodeA.syncShared();
+        assertThat(store.rows).isEmpty();
+        nodeB.reset("k");
+        assertThat(nodeB.isLimited("k")).isFalse();
+    }
+
+    @Test
+    void sharedSyncReReadsOnlyFlushedOrCheckedKeys() {
+        var store = new InMemoryCounterStore();
+        var node = limiter(100, store);
+        node.recordFailure("a");
+        node.recordFailure("b");
+        node.syncShared();
+        assertThat(store.totalsCalls.getLast()).containsExactlyInAnyOrder("a", "b");
+
+        node.isLimited("a");
+        node.syncShared();
+        assertThat(store.totalsCalls.getLast()).as("b is still tracked but was not checked").containsExactly("a");
+
+        int calls = store.totalsCalls.size();
+        node.syncShared();
+        assertThat(store.totalsCalls).as("nothing flushed or checked, nothing read").hasSize(calls);
+    }
+
+    @Test
+    void sharedResetClearsOnlyThatKeyLocallyAndInTheStore() {
+        var store = new InMemoryCounterStore();
+        var node = limiter(100, store);
+        for (int i = 0; i < 2; i++) {
+            node.recordFailure("a");
+            node.recordFailure("b");
+        }
+        node.syncShared();
+        node.recordFailure("a");
+        node.recordFailure("b");
+
+        node.reset("a");
+        node.syncShared();
+
+        assertThat(store.rows.keySet()).allMatch(c -> c.key().equals("b"));
+        assertThat(store.rows.values().stream().mapToLong(Long::longValue).sum())
+                .as("b keeps its flushed and pending failures").isEqualTo(3);
+    }
+
+    @Test
+    void sharedModeDegradesToLocalOnlyWhenStoreFails() {
+        var store = new InMemoryCounterStore();
+        var node = limiter(100, store);
+        node.recordFailure("k");
+        store.failing = true;
+        assertThat(node.syncShared()).isZero();
+        assertThat(node.isSharedActive()).isFalse();
+        // local limiting keeps working while degraded
+        for (int i = 0; i < 3; i++) assertThat(node.recordFailure("k")).isFalse();
+        assertThat(node.recordFailure("k")).isTrue();
+
+        store.failing = false;
+        clock.advance(Duration.ofSeconds(31));
+        assertThat(node.isSharedActive()).isTrue();
+        node.syncShared();
+        assertThat(store.rows.values().stream().mapToLong(Long::longValue).sum())
+                .as("failures buffered while degraded are flushed after the backoff").isEqualTo(5);
+    }
+}
@@ -9,6 +9,14 @@ import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -20,6 +28,9 @@ class RegistrationIntegrationTest {
     @Autowired
     MockMvc mvc;
 
+    @Autowired
+    AuthService authService;
+
     @Test
     @DisplayName("Register -> 200 + cookie + /me works")
     void registerThenMe() throws Exception {
@@ -82,4 +93,43 @@ class RegistrationIntegrationTest {
                 .andExpect(header().exists("Set-Cookie"))
                 .andExpect(jsonPath("$.user.email").value(email));
     }
+
+    @Test
+    @DisplayName("Display name from the registration request is persisted")
+    void displayNamePersisted() throws Exception {
+        var reg = mvc.perform(post("/auth/register")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\":\"named@example.com\",\"password\":\"Passw0rd!\",\"displayName\":\"Captain\"}"))
+                .andExpect(status().isOk())
+                .andReturn();
+        String cookie = reg.getResponse().getHeader("Set-Cookie").split(";",2)[0];
+        mvc.perform(get("/me").header("Cookie", cookie))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.displayName").value("Captain"));
+    }
+
+    @Test
+    @DisplayName("Concurrent registrations of one email -> exactly one succeeds")
+    void concurrentRegistrationsRace() throws Exception {
+        int attempts = 4;
+        var pool = Executors.newFixedThreadPool(attempts);
+        try {
+            var start = new CountDownLatch(1);
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < attempts; i++) {
+                results.add(pool.submit(() -> {
+                    start.await();
+                    return authService.register("race@example.com", "Passw0rd!", null).isPresent();
+                }));
+            }
+            start.countDown();
+            int created = 0;
+            for (var f : results) {
+                if (f.get(30, TimeUnit.SECONDS)) created++;
+            }
+            assertThat(created).isEqualTo(1);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
 }
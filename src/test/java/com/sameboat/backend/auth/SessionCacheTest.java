@@ -0,0 +1,107 @@
+package com.sameboat.backend.auth;
+
+import com.sameboat.backend.auth.session.SessionCache;
+import com.sameboat.backend.auth.session.SessionPrincipal;
+import com.sameboat.backend.common.invalidation.InvalidationEvent;
+import com.sameboat.backend.config.SameboatProperties;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SessionCacheTest {
+
+    /** Clock whose instant can be advanced by the test. */
+    static final class MutableClock extends Clock {
+        private Instant now;
+        MutableClock(Instant start) { this.now = start; }
+        void advance(Duration d) { now = now.plus(d); }
+        @Override public ZoneId getZone() { return ZoneOffset.UTC; }
+        @Override public Clock withZone(ZoneId zone) { return this; }
+        @Override public Instant instant() { return now; }
+    }
+
+    private final MutableClock clock = new MutableClock(Instant.parse("2025-01-01T00:00:00Z"));
+
+    private SessionCache newCache(int maxEntries, Duration ttl) {
+        var props = new SameboatProperties();
+        props.getSession().getCache().setMaxEntries(maxEntries);
+        props.getSession().getCache().setTtl(ttl);
+        var beans = new StaticListableBeanFactory();
+        beans.addBean("props", props);
+        beans.addBean("clock", clock);
+        return new SessionCache(beans.getBeanProvider(SameboatProperties.class), beans.getBeanProvider(Clock.class));
+    }
+
+    private SessionPrincipal principal(Duration validFor) {
+        var expires = OffsetDateTime.ofInstant(clock.instant().plus(validFor), ZoneOffset.UTC);
+        return new SessionPrincipal(UUID.randomUUID(), UUID.randomUUID(), "x@example.com", "USER", expires, null);
+    }
+
+    @Test
+    void entriesExpireAfterCacheTtl() {
+        var cache = newCache(10, Duration.ofSeconds(30));
+        var p = principal(Duration.ofDays(1));
+        cache.put(p);
+        assertThat(cache.get(p.sessionId())).contains(p);
+        clock.advance(Duration.ofSeconds(31));
+        assertThat(cache.get(p.sessionId())).isEmpty();
+    }
+
+    @Test
+    void leastRecentlyUsedEvictedAtCapacity() {
+        var cache = newCache(2, Duration.ofMinutes(5));
+        var a = principal(Duration.ofDays(1));
+        var b = principal(Duration.ofDays(1));
+        var c = principal(Duration.ofDays(1));
+        cache.put(a);
+        cache.put(b);
+        cache.get(a.sessionId()); // a becomes most recently used
+        cache.put(c);
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.get(b.sessionId())).isEmpty();
+        assertThat(cache.get(a.sessionId())).isPresent();
+        assertThat(cache.get(c.sessionId())).isPresent();
+    }
+
+    @Test
+    void evictExpiredSessionsUsesSessionExpiry() {
+        var cache = newCache(10, Duration.ofMinutes(5));
+        var shortLived = principal(Duration.ofSeconds(10));
+        var longLived = principal(Duration.ofDays(1));
+        cache.put(shortLived);
+        cache.put(longLived);
+        clock.advance(Duration.ofSeconds(11));
+        assertThat(cache.evictExpiredSessions(clock.instant())).isEqualTo(1);
+        assertThat(cache.get(shortLived.sessionId())).isEmpty();
+        assertThat(cache.get(longLived.sessionId())).isPresent();
+    }
+
+    @Test
+    void invalidationEventsEvictBySessionUserOrAll() {
+        var cache = newCache(10, Duration.ofMinutes(5));
+        var a = principal(Duration.ofDays(1));
+        var b = principal(Duration.ofDays(1));
+        var c = principal(Duration.ofDays(1));
+        cache.put(a);
+        cache.put(b);
+        cache.put(c);
+
+        cache.onInvalidation(InvalidationEvent.session(a.sessionId()));
+        cache.onInvalidation(new InvalidationEvent(InvalidationEvent.Kind.USER, b.userId(), true));
+        assertThat(cache.get(a.sessionId())).isEmpty();
+        assertThat(cache.get(b.sessionId())).isEmpty();
+        assertThat(cache.get(c.sessionId())).isPresent();
+
+        cache.onInvalidation(InvalidationEvent.all(true));
+        assertThat(cache.size()).isZero();
+    }
+}
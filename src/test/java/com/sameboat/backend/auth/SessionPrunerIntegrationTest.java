@@ -1,14 +1,22 @@
 package com.sameboat.backend.auth;
 
+import com.sameboat.backend.auth.session.SessionCache;
 import com.sameboat.backend.auth.session.SessionEntity;
 import com.sameboat.backend.auth.session.SessionPruner;
 import com.sameboat.backend.auth.session.SessionRepository;
+import com.sameboat.backend.config.SameboatProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.ActiveProfiles;
 
+import java.time.Clock;
+import java.time.Duration;
 import java.time.OffsetDateTime;
 import java.time.ZoneOffset;
 import java.util.UUID;
@@ -48,5 +56,59 @@ class SessionPrunerIntegrationTest {
         assertThat(sessionRepository.count()).isEqualTo(1);
         assertThat(sessionRepository.findById(valid.getId())).isPresent();
     }
-}
 
+    @Autowired SessionCache sessionCache;
+    @Autowired JdbcTemplate jdbcTemplate;
+
+    @Test
+    @DisplayName("Pruning deletes in bounded batches and records metrics")
+    void prunesInBatches() {
+        var now = OffsetDateTime.now(ZoneOffset.UTC);
+        for (int i = 0; i < 5; i++) {
+            SessionEntity expired = new SessionEntity();
+            expired.setUserId(UUID.randomUUID());
+            expired.setExpiresAt(now.minusHours(i + 1));
+            sessionRepository.save(expired);
+        }
+        var props = new SameboatProperties();
+        props.getSession().getPrune().setBatchSize(2);
+        props.getSession().getPrune().setPause(Duration.ZERO);
+        var registry = new SimpleMeterRegistry();
+        var beans = new StaticListableBeanFactory();
+        beans.addBean("props", props);
+        beans.addBean("registry", registry);
+        var service = new SessionPruner.SessionPruneService(jdbcTemplate, sessionCache,
+                beans.getBeanProvider(SameboatProperties.class), beans.getBeanProvider(MeterRegistry.class),
+                beans.getBeanProvider(Clock.class));
+
+        assertThat(service.pruneNow()).isEqualTo(5);
+        assertThat(registry.get("sameboat.sessions.pruned").counter().count()).isEqualTo(5.0);
+        assertThat(registry.get("sameboat.sessions.prune.duration").tag("result", "completed").timer().count()).isEqualTo(1);
+        assertThat(sessionRepository.findAll()).noneMatch(s -> s.getExpiresAt().isBefore(now));
+    }
+
+    @Test
+    @DisplayName("Pruning cuts off at the injected clock, not the wall clock")
+    void prunesRelativeToInjectedClock() {
+        var now = OffsetDateTime.now(ZoneOffset.UTC);
+        SessionEntity soon = new SessionEntity();
+        soon.setUserId(UUID.randomUUID());
+        soon.setExpiresAt(now.plusHours(1));
+        sessionRepository.save(soon);
+        SessionEntity later = new SessionEntity();
+        later.setUserId(UUID.randomUUID());
+        later.setExpiresAt(now.plusDays(3));
+        sessionRepository.save(later);
+        var beans = new StaticListableBeanFactory();
+        beans.addBean("props", new SameboatProperties());
+        beans.addBean("clock", Clock.fixed(now.plusHours(2).toInstant(), ZoneOffset.UTC));
+        var service = new SessionPruner.SessionPruneService(jdbcTemplate, sessionCache,
+                beans.getBeanProvider(SameboatProperties.class), beans.getBeanProvider(MeterRegistry.class),
+                beans.getBeanProvider(Clock.class));
+
+        service.pruneNow();
+
+        assertThat(sessionRepository.findById(soon.getId())).isEmpty();
+        assertThat(sessionRepository.findById(later.getId())).isPresent();
+    }
+}
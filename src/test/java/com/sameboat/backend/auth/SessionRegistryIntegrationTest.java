@@ -0,0 +1,83 @@
+package com.sameboat.backend.auth;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class SessionRegistryIntegrationTest {
+
+    @Autowired
+    MockMvc mvc;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    private Cookie login(String email) throws Exception {
+        var res = mvc.perform(post("/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\":\"" + email + "\",\"password\":\"dev\"}"))
+                .andExpect(status().isOk())
+                .andReturn();
+        Matcher m = Pattern.compile("SBSESSION=([^;]+)").matcher(res.getResponse().getHeader("Set-Cookie"));
+        assertThat(m.find()).isTrue();
+        return new Cookie("SBSESSION", m.group(1));
+    }
+
+    @Test
+    @DisplayName("Lists own sessions, revokes one, then logs out other devices")
+    void listRevokeAndRevokeOthers() throws Exception {
+        Cookie laptop = login("registry@example.com");
+        Cookie phone = login("registry@example.com");
+        Cookie tablet = login("registry@example.com");
+
+        var list = mvc.perform(get("/me/sessions").cookie(laptop))
+                .andExpect(status().isOk())
+                .andReturn();
+        JsonNode sessions = objectMapper.readTree(list.getResponse().getContentAsString());
+        assertThat(sessions).hasSize(3);
+        JsonNode current = null;
+        for (JsonNode s : sessions) if (s.path("current").asBoolean()) current = s;
+        assertThat(current).isNotNull();
+        assertThat(current.path("id").asText()).isEqualTo(laptop.getValue());
+
+        mvc.perform(delete("/me/sessions/" + phone.getValue()).cookie(laptop))
+                .andExpect(status().isNoContent());
+        mvc.perform(get("/me").cookie(phone)).andExpect(status().isUnauthorized());
+
+        mvc.perform(delete("/me/sessions").param("keepCurrent", "true").cookie(laptop))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.revoked").value(1));
+        mvc.perform(get("/me").cookie(tablet)).andExpect(status().isUnauthorized());
+        mvc.perform(get("/me").cookie(laptop)).andExpect(status().isOk());
+    }
+
+    @Test
+    @DisplayName("Cannot revoke another user's session")
+    void cannotRevokeForeignSession() throws Exception {
+        Cookie mine = login("registry-a@example.com");
+        Cookie theirs = login("registry-b@example.com");
+
+        mvc.perform(delete("/me/sessions/" + theirs.getValue()).cookie(mine))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.error").value("NOT_FOUND"));
+        mvc.perform(get("/me").cookie(theirs)).andExpect(status().isOk());
+    }
+}
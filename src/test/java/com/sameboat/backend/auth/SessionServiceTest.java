@@ -1,8 +1,17 @@
 package com.sameboat.backend.auth;
 
+import com.sameboat.backend.auth.session.SessionCache;
 import com.sameboat.backend.auth.session.SessionEntity;
+import com.sameboat.backend.auth.session.SessionPrincipal;
 import com.sameboat.backend.auth.session.SessionRepository;
+import com.sameboat.backend.auth.session.SessionRevocationList;
 import com.sameboat.backend.auth.session.SessionService;
+import com.sameboat.backend.auth.session.SessionTokenCodec;
+import com.sameboat.backend.auth.session.SessionKey;
+import com.sameboat.backend.auth.session.SessionTouchBuffer;
+import com.sameboat.backend.common.invalidation.CacheInvalidationBus;
+import com.sameboat.backend.user.UserEntity;
+import com.sameboat.backend.user.UserRepository;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
@@ -17,7 +26,7 @@ import java.util.UUID;
 import static org.assertj.core.api.Assertions.assertThat;
 
 @DataJpaTest
-@Import(SessionService.class)
+@Import({SessionService.class, SessionCache.class, SessionTouchBuffer.class, SessionTokenCodec.class, SessionRevocationList.class, CacheInvalidationBus.class})
 @ActiveProfiles("test")
 @TestPropertySource(properties = "sameboat.security.enabled=false")
 class SessionServiceTest {
@@ -26,6 +35,12 @@ class SessionServiceTest {
     SessionService sessionService;
     @Autowired
     SessionRepository sessionRepository;
+    @Autowired
+    SessionTouchBuffer touchBuffer;
+    @Autowired
+    UserRepository userRepository;
+    @Autowired
+    jakarta.persistence.EntityManager entityManager;
 
     @Test
     void createSessionAndFindValid() {
@@ -46,9 +61,101 @@ class SessionServiceTest {
         assertThat(sessionService.findValid(s.getId())).isEmpty();
     }
 
+    @Test
+    void cachedPrincipalEvictedOnInvalidate() {
+        UUID userId = UUID.randomUUID();
+        var s = sessionService.createSession(userId, Duration.ofMinutes(5));
+        sessionService.cache(new SessionPrincipal(s.getId(), userId, "c@example.com", "USER", s.getExpiresAt(), null));
+        assertThat(sessionService.findCached(s.getId())).isPresent();
+        sessionService.invalidate(sessionService.issueToken(s, "USER"));
+        assertThat(sessionService.findCached(s.getId())).isEmpty();
+        assertThat(sessionRepository.findById(s.getId())).isEmpty();
+    }
+
+    @Test
+    void expiredPrincipalNotCached() {
+        UUID id = UUID.randomUUID();
+        sessionService.cache(new SessionPrincipal(id, UUID.randomUUID(), "e@example.com", "USER", OffsetDateTime.now().minusSeconds(1), null));
+        assertThat(sessionService.findCached(id)).isEmpty();
+    }
+
+    @Test
+    void findPrincipalJoinsUserInOneQuery() {
+        UserEntity u = new UserEntity();
+        u.setEmail("principal@example.com");
+        u.setPasswordHash("hash");
+        u = userRepository.save(u);
+        var s = sessionService.createSession(u.getId(), Duration.ofMinutes(5));
+        var p = sessionService.findPrincipal(SessionKey.of(s.getId(), s.getExpiresAt())).orElseThrow();
+        assertThat(p.userId()).isEqualTo(u.getId());
+        assertThat(p.email()).isEqualTo("principal@example.com");
+        assertThat(p.role()).isEqualTo("USER");
+        assertThat(p.expiresAt()).isNotNull();
+        assertThat(sessionService.findPrincipal(new SessionKey(s.getId(), null))).contains(p); // legacy bare-UUID cookie
+        assertThat(sessionService.findPrincipal(new SessionKey(s.getId(), s.getExpiresAt().toInstant().plusSeconds(86400)))).isEmpty();
+        assertThat(sessionService.findPrincipal(new SessionKey(UUID.randomUUID(), null))).isEmpty();
+    }
+
+    @Test
+    void touchesCoalescedAndFlushedInBatch() {
+        var s = sessionService.createSession(UUID.randomUUID(), Duration.ofMinutes(5));
+        var stale = OffsetDateTime.now().minusHours(1);
+        s.setLastSeenAt(stale);
+        sessionRepository.saveAndFlush(s);
+
+        sessionService.touch(s);
+        sessionService.touch(new SessionPrincipal(s.getId(), s.getUserId(), "t@example.com", "USER", s.getExpiresAt(), null)); // recorded already -> skipped
+        assertThat(touchBuffer.pendingCount()).isEqualTo(1);
+        assertThat(touchBuffer.flush()).isEqualTo(1);
+        assertThat(touchBuffer.pendingCount()).isZero();
+
+        entityManager.clear();
+        var reloaded = sessionRepository.findById(s.getId()).orElseThrow();
+        assertThat(reloaded.getLastSeenAt()).isAfter(stale);
+        assertThat(touchBuffer.flush()).isZero();
+    }
+
+    @Test
+    void recentlySeenSessionNotBuffered() {
+        var s = sessionService.createSession(UUID.randomUUID(), Duration.ofMinutes(5));
+        // createSession sets last_seen_at = created_at (just now)
+        sessionService.touch(s);
+        assertThat(touchBuffer.pendingCount()).isZero();
+    }
+
     @Test
     void invalidateWithBadTokenNoThrow() {
         sessionService.invalidate("not-a-uuid");
         // nothing to assert; just ensure no exception
     }
+
+    @Test
+    void sessionCapEvictsOldestAtCreation() {
+        UUID userId = UUID.randomUUID();
+        var first = sessionService.createSession(userId, Duration.ofMinutes(5));
+        for (int i = 0; i < 10; i++) {
+            sessionService.createSession(userId, Duration.ofMinutes(5));
+        }
+        var active = sessionService.listActive(userId);
+        assertThat(active).hasSize(10);
+        assertThat(active).noneMatch(x -> x.getId().equals(first.getId()));
+    }
+
+    @Test
+    void revokeAllDeletesEverySessionButTheKeptOne() {
+        UUID userId = UUID.randomUUID();
+        UUID otherUser = UUID.randomUUID();
+        var keep = sessionService.createSession(userId, Duration.ofMinutes(5));
+        var a = sessionService.createSession(userId, Duration.ofMinutes(5));
+        var foreign = sessionService.createSession(otherUser, Duration.ofMinutes(5));
+        sessionService.cache(new SessionPrincipal(a.getId(), userId, "a@example.com", "USER", a.getExpiresAt(), null));
+
+        assertThat(sessionService.revokeAll(userId, keep.getId())).isEqualTo(1);
+
+        assertThat(sessionService.findCached(a.getId())).isEmpty();
+        assertThat(sessionRepository.findById(a.getId())).isEmpty();
+        assertThat(sessionRepository.findById(keep.getId())).isPresent();
+        assertThat(sessionRepository.findById(foreign.getId())).isPresent();
+        assertThat(sessionService.revoke(userId, foreign.getId())).isFalse();
+    }
 }
@@ -0,0 +1,93 @@
+package com.sameboat.backend.auth;
+
+import com.sameboat.backend.auth.session.SessionEntity;
+import com.sameboat.backend.auth.session.SessionKey;
+import com.sameboat.backend.auth.session.SessionTokenCodec;
+import com.sameboat.backend.config.SameboatProperties;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SessionTokenCodecTest {
+
+    private static final String SECRET = "test-signing-secret-that-is-long-enough-000";
+
+    private SessionTokenCodec codec(SameboatProperties.Session.TokenMode mode, String secret) {
+        var props = new SameboatProperties();
+        props.getSession().setTokenMode(mode);
+        props.getSession().setSigningSecret(secret);
+        var beans = new StaticListableBeanFactory();
+        beans.addBean("props", props);
+        return new SessionTokenCodec(beans.getBeanProvider(SameboatProperties.class));
+    }
+
+    private SessionEntity session() {
+        var s = new SessionEntity();
+        ReflectionTestUtils.setField(s, "id", UUID.randomUUID());
+        s.setUserId(UUID.randomUUID());
+        s.setExpiresAt(OffsetDateTime.of(2030, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC));
+        return s;
+    }
+
+    @Test
+    void opaqueModeIssuesSessionUuidWithExpiry() {
+        var s = session();
+        var codec = codec(SameboatProperties.Session.TokenMode.OPAQUE, "");
+        String token = codec.issue(s, "USER");
+        assertThat(token).isEqualTo(s.getId() + "~" + s.getExpiresAt().toEpochSecond());
+        assertThat(codec.isSigned(token)).isFalse();
+        assertThat(codec.parseOpaque(token)).contains(SessionKey.of(s.getId(), s.getExpiresAt()));
+    }
+
+    @Test
+    void legacyAndMalformedOpaqueTokens() {
+        var codec = codec(SameboatProperties.Session.TokenMode.OPAQUE, "");
+        UUID id = UUID.randomUUID();
+        assertThat(codec.parseOpaque(id.toString())).contains(new SessionKey(id, null));
+        assertThat(codec.parseOpaque(id + "~soon")).isEmpty();
+        assertThat(codec.parseOpaque("not-a-uuid")).isEmpty();
+    }
+
+    @Test
+    void signedTokenRoundTrips() {
+        var s = session();
+        var codec = codec(SameboatProperties.Session.TokenMode.SIGNED, SECRET);
+        String token = codec.issue(s, "ADMIN");
+        assertThat(codec.isSigned(token)).isTrue();
+        var claims = codec.verify(token).orElseThrow();
+        assertThat(claims.sessionId()).isEqualTo(s.getId());
+        assertThat(claims.userId()).isEqualTo(s.getUserId());
+        assertThat(claims.role()).isEqualTo("ADMIN");
+        assertThat(claims.expiresAt()).isEqualTo(s.getExpiresAt().toInstant());
+    }
+
+    @Test
+    void tamperedOrForeignTokensAreRejected() {
+        var s = session();
+        var codec = codec(SameboatProperties.Session.TokenMode.SIGNED, SECRET);
+        String token = codec.issue(s, "USER");
+        String forgedPayload = java.util.Base64.getUrlEncoder().withoutPadding().encodeToString(
+                ("v1|" + s.getId() + "|" + s.getUserId() + "|ADMIN|" + s.getExpiresAt().toEpochSecond()).getBytes());
+        String tampered = forgedPayload + token.substring(token.indexOf('.'));
+        assertThat(codec.verify(tampered)).isEmpty();
+        assertThat(codec.verify("garbage.###")).isEmpty();
+
+        var other = codec(SameboatProperties.Session.TokenMode.SIGNED, SECRET.replace('0', '1'));
+        assertThat(other.verify(token)).isEmpty();
+    }
+
+    @Test
+    void signedModeRequiresLongSecret() {
+        assertThatThrownBy(() -> codec(SameboatProperties.Session.TokenMode.SIGNED, ""))
+                .isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> codec(SameboatProperties.Session.TokenMode.SIGNED, "short"))
+                .isInstanceOf(IllegalStateException.class);
+    }
+}
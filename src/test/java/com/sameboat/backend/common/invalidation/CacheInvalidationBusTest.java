@@ -0,0 +1,69 @@
+package com.sameboat.backend.common.invalidation;
+
+import com.sameboat.backend.config.SameboatProperties;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CacheInvalidationBusTest {
+
+    private final List<InvalidationEvent> received = new ArrayList<>();
+
+    private CacheInvalidationBus bus() {
+        var beans = new StaticListableBeanFactory();
+        beans.addBean("listener", (CacheInvalidationListener) received::add);
+        beans.addBean("props", new SameboatProperties());
+        var ds = new DataSourceProperties();
+        ds.setUrl("jdbc:h2:mem:bus");
+        beans.addBean("ds", ds);
+        return new CacheInvalidationBus(beans.getBeanProvider(CacheInvalidationListener.class),
+                beans.getBeanProvider(JdbcTemplate.class), beans.getBeanProvider(DataSourceProperties.class),
+                beans.getBeanProvider(SameboatProperties.class));
+    }
+
+    @Test
+    void nonPostgresBusIsLocalOnlyAndDispatchesImmediately() {
+        var bus = bus();
+        UUID id = UUID.randomUUID();
+        bus.publish(InvalidationEvent.user(id));
+        assertThat(bus.isDistributed()).isFalse();
+        assertThat(received).containsExactly(InvalidationEvent.user(id));
+    }
+
+    @Test
+    void publishInsideTransactionWaitsForCommit() {
+        var bus = bus();
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            bus.publish(InvalidationEvent.session(UUID.randomUUID()));
+            assertThat(received).isEmpty();
+            TransactionSynchronizationManager.getSynchronizations().forEach(s -> s.afterCommit());
+            assertThat(received).hasSize(1);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void payloadRoundTripsAndOwnNotificationsAreIgnored() {
+        UUID id = UUID.randomUUID();
+        String payload = InvalidationEvent.session(id).encode("peer");
+        assertThat(InvalidationEvent.decode(payload, "self"))
+                .contains(new InvalidationEvent(InvalidationEvent.Kind.SESSION, id, true));
+        assertThat(InvalidationEvent.decode(payload, "peer")).isEmpty();
+        assertThat(InvalidationEvent.decode("peer|USER|not-a-uuid", "self")).isEmpty();
+        assertThat(InvalidationEvent.decode("peer|ALL|", "self")).contains(InvalidationEvent.all(true));
+
+        var bus = bus();
+        bus.receive(InvalidationEvent.user(id).encode("another-instance"));
+        assertThat(received).containsExactly(new InvalidationEvent(InvalidationEvent.Kind.USER, id, true));
+    }
+}
@@ -0,0 +1,72 @@
+package com.sameboat.backend.common.invalidation;
+
+import com.sameboat.backend.config.SameboatProperties;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Two buses sharing one Postgres: an invalidation published on one reaches the other's
+ * listeners via LISTEN/NOTIFY. Skipped like {@code MigrationIntegrationTest} without Docker.
+ */
+class PgNotificationSubscriberIntegrationTest {
+
+    private static CacheInvalidationBus bus(PostgreSQLContainer<?> pg, CacheInvalidationListener listener) {
+        var beans = new StaticListableBeanFactory();
+        beans.addBean("listener", listener);
+        beans.addBean("props", new SameboatProperties());
+        var ds = new DataSourceProperties();
+        ds.setUrl(pg.getJdbcUrl());
+        ds.setUsername(pg.getUsername());
+        ds.setPassword(pg.getPassword());
+        beans.addBean("ds", ds);
+        beans.addBean("jdbc", new JdbcTemplate(new DriverManagerDataSource(pg.getJdbcUrl(), pg.getUsername(), pg.getPassword())));
+        return new CacheInvalidationBus(beans.getBeanProvider(CacheInvalidationListener.class),
+                beans.getBeanProvider(JdbcTemplate.class), beans.getBeanProvider(DataSourceProperties.class),
+                beans.getBeanProvider(SameboatProperties.class));
+    }
+
+    @Test
+    @DisplayName("Invalidation published on one instance reaches another via NOTIFY")
+    void notifyReachesPeer() throws Exception {
+        if (Boolean.getBoolean("skip.migration.test") || System.getenv("SKIP_MIGRATION_TEST") != null) {
+            Assumptions.abort("Postgres container test skipped via flag.");
+        }
+        try (PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine")) {
+            try {
+                postgres.start();
+            } catch (Throwable t) {
+                Assumptions.abort("Docker not available or failed to start container: " + t.getMessage());
+            }
+            var peerEvents = new CopyOnWriteArrayList<InvalidationEvent>();
+            var publisher = bus(postgres, e -> { });
+            var peer = bus(postgres, peerEvents::add);
+            var subscriber = new PgNotificationSubscriber(peer, new StaticListableBeanFactory().getBeanProvider(SameboatProperties.class));
+            subscriber.start();
+            try {
+                assertThat(publisher.isDistributed()).isTrue();
+                UUID userId = UUID.randomUUID();
+                long deadline = System.nanoTime() + Duration.ofSeconds(15).toNanos();
+                // LISTEN is issued asynchronously; republish until the peer sees it
+                while (peerEvents.isEmpty() && System.nanoTime() < deadline) {
+                    publisher.publish(InvalidationEvent.user(userId));
+                    Thread.sleep(200);
+                }
+                assertThat(peerEvents).contains(new InvalidationEvent(InvalidationEvent.Kind.USER, userId, true));
+            } finally {
+                subscriber.stop();
+            }
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.sameboat.backend.config;
+
+import com.sameboat.backend.security.hashing.BcryptCostCalibrator.Calibration;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PasswordEncoderConfigTest {
+
+    /** Host measured at 50 ms for cost 10, so cost 12 meets a 250 ms target. */
+    private static final Calibration HOST = new Calibration(12, 10, Duration.ofMillis(50).toNanos());
+    private static final Duration TARGET = Duration.ofMillis(250);
+
+    @Test
+    void costsWithinTheMarginOnlyLog() {
+        assertThatCode(() -> PasswordEncoderConfig.checkCost(10, TARGET, HOST)).doesNotThrowAnyException();
+        assertThatCode(() -> PasswordEncoderConfig.checkCost(14, TARGET, HOST))
+                .as("800 ms is over 2x the target: error, not failure").doesNotThrowAnyException();
+    }
+
+    @Test
+    void costFarAboveTargetFailsStartup() {
+        assertThatThrownBy(() -> PasswordEncoderConfig.checkCost(15, TARGET, HOST))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("cost 12");
+    }
+}
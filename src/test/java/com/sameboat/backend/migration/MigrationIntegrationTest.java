@@ -1,10 +1,15 @@
 package com.sameboat.backend.migration;
 
+import com.sameboat.backend.auth.session.SessionPartitionManager;
 import org.flywaydb.core.Flyway;
 import org.junit.jupiter.api.*;
 import org.testcontainers.containers.PostgreSQLContainer;
 
 import java.sql.*;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -43,7 +48,9 @@ class MigrationIntegrationTest {
                 assertUserTableColumns(conn);
                 assertSessionsTableColumns(conn);
                 assertUsersEmailLowerIndex(conn);
-                assertFlywayHistoryVersions(conn, "1", "2", "3", "4");
+                assertFlywayHistoryVersions(conn, "1", "2", "3", "4", "5", "6", "7", "8", "9");
+                assertSessionPartitionsMaintained(conn);
+                assertRateLimitCountersUnlogged(conn);
             }
         }
     }
@@ -51,7 +58,7 @@ class MigrationIntegrationTest {
     private void assertTablesPresent(Connection conn, String... tables) throws SQLException {
         Set<String> expected = Arrays.stream(tables).map(String::toLowerCase).collect(Collectors.toSet());
         Set<String> actual = new HashSet<>();
-        try (ResultSet rs = conn.getMetaData().getTables(null, null, null, new String[]{"TABLE"})) {
+        try (ResultSet rs = conn.getMetaData().getTables(null, null, null, new String[]{"TABLE", "PARTITIONED TABLE"})) {
             while (rs.next()) {
                 actual.add(rs.getString("TABLE_NAME").toLowerCase());
             }
@@ -61,9 +68,17 @@ class MigrationIntegrationTest {
         }
     }
 
+    private void assertRateLimitCountersUnlogged(Connection conn) throws SQLException {
+        try (Statement st = conn.createStatement();
+             ResultSet rs = st.executeQuery("SELECT relpersistence FROM pg_class WHERE relname = 'rate_limit_counters'")) {
+            assertTrue(rs.next(), "rate_limit_counters table missing");
+            assertEquals("u", rs.getString(1), "rate_limit_counters should be UNLOGGED");
+        }
+    }
+
     private void assertUserTableColumns(Connection conn) throws SQLException {
         Set<String> cols = getColumns(conn, "users");
-        String[] expected = {"id", "email", "display_name", "role", "created_at", "password_hash", "avatar_url", "bio", "updated_at"};
+        String[] expected = {"id", "email", "display_name", "role", "created_at", "password_hash", "avatar_url", "bio", "updated_at", "version"};
         for (String c : expected) {
             assertTrue(cols.contains(c), "Missing users column: " + c + "; present=" + cols);
         }
@@ -71,7 +86,7 @@ class MigrationIntegrationTest {
 
     private void assertSessionsTableColumns(Connection conn) throws SQLException {
         Set<String> cols = getColumns(conn, "sessions");
-        String[] expected = {"id", "user_id", "created_at", "last_seen_at", "expires_at"};
+        String[] expected = {"id", "user_id", "created_at", "last_seen_at", "expires_at", "revoked_at"};
         for (String c : expected) {
             assertTrue(cols.contains(c), "Missing sessions column: " + c + "; present=" + cols);
         }
@@ -98,6 +113,37 @@ class MigrationIntegrationTest {
         }
         assertTrue(indexes.stream().anyMatch(i -> i.equalsIgnoreCase("users_email_lower_uidx")),
                 "Expected users_email_lower_uidx index missing; found=" + indexes);
+        assertTrue(indexes.stream().anyMatch(i -> i.equalsIgnoreCase("users_created_at_id_idx")),
+                "Expected users_created_at_id_idx index missing; found=" + indexes);
+    }
+
+    private void assertSessionPartitionsMaintained(Connection conn) throws SQLException {
+        var manager = new SessionPartitionManager(9, Duration.ofSeconds(2));
+        assertTrue(manager.isPartitioned(conn), "sessions should be range partitioned");
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        manager.createFuturePartitions(conn, today);
+        Set<String> tables = partitionNames(conn);
+        assertFalse(tables.contains("sessions_default"), "V6 creates no default partition; present=" + tables);
+        assertTrue(tables.contains("sessions_p" + today.plusDays(9).format(DateTimeFormatter.BASIC_ISO_DATE)),
+                "Expected future partition; present=" + tables);
+        // V6 pre-creates yesterday's partition; it holds only expired sessions and must be dropped
+        String yesterday = "sessions_p" + today.minusDays(1).format(DateTimeFormatter.BASIC_ISO_DATE);
+        assertTrue(tables.contains(yesterday), "Expected partition " + yesterday + "; present=" + tables);
+        assertTrue(manager.dropExpiredPartitions(conn, today) >= 1);
+        assertFalse(partitionNames(conn).contains(yesterday), "Expired partition should be dropped");
+        assertFalse(getColumns(conn, yesterday).iterator().hasNext(), "Detached partition table should be dropped");
+    }
+
+    private Set<String> partitionNames(Connection conn) throws SQLException {
+        Set<String> names = new HashSet<>();
+        String sql = "SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid " +
+                "JOIN pg_class p ON p.oid = i.inhparent WHERE p.relname = 'sessions'";
+        try (Statement st = conn.createStatement(); ResultSet rs = st.executeQuery(sql)) {
+            while (rs.next()) {
+                names.add(rs.getString(1));
+            }
+        }
+        return names;
     }
 
     private void assertFlywayHistoryVersions(Connection conn, String... versions) throws SQLException {
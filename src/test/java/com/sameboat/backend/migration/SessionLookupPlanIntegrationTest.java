@@ -0,0 +1,87 @@
+package com.sameboat.backend.migration;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.*;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import java.sql.*;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifies session lookups keyed by id plus expiry window (see {@code SessionKey}) are pruned to
+ * a single daily partition of {@code sessions}, while id-only lookups probe every partition.
+ * Skips gracefully if Docker is unavailable.
+ */
+class SessionLookupPlanIntegrationTest {
+
+    private static final Pattern PARTITION = Pattern.compile("sessions_p\\d{8}");
+
+    @Test
+    @DisplayName("Session lookups with the expiry window touch one partition")
+    void keyedLookupsArePruned() throws Exception {
+        if (Boolean.getBoolean("skip.migration.test") || System.getenv("SKIP_MIGRATION_TEST") != null) {
+            Assumptions.abort("Migration test skipped via flag.");
+        }
+
+        try (PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine")) {
+            try {
+                postgres.start();
+            } catch (Throwable t) {
+                Assumptions.abort("Docker not available or failed to start container: " + t.getMessage());
+            }
+
+            Flyway flyway = Flyway.configure()
+                    .dataSource(postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword())
+                    .locations("classpath:db/migration")
+                    .load();
+            flyway.migrate();
+
+            var from = OffsetDateTime.now(ZoneOffset.UTC).plusDays(7).truncatedTo(ChronoUnit.SECONDS);
+            try (Connection conn = flyway.getConfiguration().getDataSource().getConnection()) {
+                Set<String> principal = partitionsIn(explain(conn,
+                        "SELECT s.id, u.email FROM sessions s JOIN users u ON u.id = s.user_id " +
+                        "WHERE s.id = ? AND s.expires_at >= ? AND s.expires_at < ? AND s.revoked_at IS NULL", from));
+                assertEquals(1, principal.size(), "Principal lookup should prune to one partition; saw " + principal);
+
+                Set<String> touch = partitionsIn(explain(conn,
+                        "UPDATE sessions SET last_seen_at = now() " +
+                        "WHERE id = ? AND expires_at >= ? AND expires_at < ? AND last_seen_at < now()", from));
+                assertEquals(1, touch.size(), "Touch update should prune to one partition; saw " + touch);
+
+                Set<String> idOnly = partitionsIn(explain(conn, "SELECT * FROM sessions WHERE id = ?", null));
+                assertTrue(idOnly.size() > 1, "Id-only lookup is expected to probe every partition; saw " + idOnly);
+            }
+        }
+    }
+
+    private static String explain(Connection conn, String sql, OffsetDateTime expiresFrom) throws SQLException {
+        StringBuilder plan = new StringBuilder();
+        try (PreparedStatement ps = conn.prepareStatement("EXPLAIN " + sql)) {
+            ps.setObject(1, UUID.randomUUID());
+            if (expiresFrom != null) {
+                ps.setObject(2, expiresFrom);
+                ps.setObject(3, expiresFrom.plusSeconds(1));
+            }
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) plan.append(rs.getString(1)).append('\n');
+            }
+        }
+        return plan.toString();
+    }
+
+    private static Set<String> partitionsIn(String plan) {
+        Set<String> names = new HashSet<>();
+        Matcher m = PARTITION.matcher(plan);
+        while (m.find()) names.add(m.group());
+        return names;
+    }
+}
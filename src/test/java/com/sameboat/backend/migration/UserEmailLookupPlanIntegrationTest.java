@@ -0,0 +1,65 @@
+package com.sameboat.backend.migration;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.*;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import java.sql.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifies the login/register email lookup ({@code UserRepository.findByEmailNormalized},
+ * rendered by Hibernate as {@code lower(email) = ?}) is served by {@code users_email_lower_uidx}
+ * once the users table is non-trivial, while the derived {@code IgnoreCase} form is not.
+ * Skips gracefully if Docker is unavailable.
+ */
+class UserEmailLookupPlanIntegrationTest {
+
+    @Test
+    @DisplayName("lower(email) lookup uses users_email_lower_uidx")
+    void normalizedEmailLookupUsesIndex() throws Exception {
+        if (Boolean.getBoolean("skip.migration.test") || System.getenv("SKIP_MIGRATION_TEST") != null) {
+            Assumptions.abort("Migration test skipped via flag.");
+        }
+
+        try (PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine")) {
+            try {
+                postgres.start();
+            } catch (Throwable t) {
+                Assumptions.abort("Docker not available or failed to start container: " + t.getMessage());
+            }
+
+            Flyway flyway = Flyway.configure()
+                    .dataSource(postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword())
+                    .locations("classpath:db/migration")
+                    .load();
+            flyway.migrate();
+
+            try (Connection conn = flyway.getConfiguration().getDataSource().getConnection();
+                 Statement st = conn.createStatement()) {
+                st.execute("INSERT INTO users (email, password_hash, display_name) " +
+                        "SELECT 'user' || g || '@Example.com', 'x', 'user' || g FROM generate_series(1, 20000) g");
+                st.execute("ANALYZE users");
+
+                String indexed = explain(conn, "SELECT * FROM users WHERE lower(email) = ?");
+                assertTrue(indexed.contains("users_email_lower_uidx"), "Expected index scan; plan=\n" + indexed);
+
+                String derived = explain(conn, "SELECT * FROM users WHERE upper(email) = upper(?)");
+                assertFalse(derived.contains("users_email_lower_uidx"),
+                        "upper() form unexpectedly indexed; plan=\n" + derived);
+            }
+        }
+    }
+
+    private static String explain(Connection conn, String sql) throws SQLException {
+        StringBuilder plan = new StringBuilder();
+        try (PreparedStatement ps = conn.prepareStatement("EXPLAIN " + sql)) {
+            ps.setString(1, "user4242@example.com");
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) plan.append(rs.getString(1)).append('\n');
+            }
+        }
+        return plan.toString();
+    }
+}
@@ -0,0 +1,77 @@
+package com.sameboat.backend.security;
+
+import com.sameboat.backend.auth.session.SessionService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Verifies the session cookie is only resolved when something needs the Authentication.
+ * Runs over real HTTP so the production DispatcherServlet configuration is exercised.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+class LazySessionResolutionIntegrationTest {
+
+    @Autowired
+    TestRestTemplate rest;
+
+    @MockitoSpyBean
+    SessionService sessionService;
+
+    private String login(String email) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        var res = rest.postForEntity("/auth/login",
+                new HttpEntity<>("{\"email\":\"" + email + "\",\"password\":\"dev\"}", headers), String.class);
+        assertThat(res.getStatusCode()).isEqualTo(HttpStatus.OK);
+        String setCookie = res.getHeaders().getFirst(HttpHeaders.SET_COOKIE);
+        assertThat(setCookie).contains("SBSESSION=");
+        return setCookie.split(";", 2)[0];
+    }
+
+    private HttpStatus get(String path, String cookie) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.add(HttpHeaders.COOKIE, cookie);
+        return HttpStatus.valueOf(rest.exchange(path, HttpMethod.GET, new HttpEntity<>(headers), String.class)
+                .getStatusCode().value());
+    }
+
+    @Test
+    @DisplayName("permitAll routes with a session cookie do not resolve the session")
+    void publicRoutesSkipLookup() {
+        String cookie = login("lazy-public@example.com");
+        clearInvocations(sessionService);
+
+        assertThat(get("/health", cookie)).isEqualTo(HttpStatus.OK);
+        assertThat(get("/api/version", cookie)).isEqualTo(HttpStatus.OK);
+        assertThat(get("/actuator/health", cookie)).isEqualTo(HttpStatus.OK);
+
+        verify(sessionService, never()).findCached(any());
+        verify(sessionService, never()).findPrincipal(any());
+    }
+
+    @Test
+    @DisplayName("Protected route resolves the session once per request")
+    void protectedRouteResolves() {
+        String cookie = login("lazy-me@example.com");
+        clearInvocations(sessionService);
+
+        assertThat(get("/me", cookie)).isEqualTo(HttpStatus.OK);
+
+        verify(sessionService, times(1)).findCached(any());
+    }
+}
@@ -0,0 +1,69 @@
+package com.sameboat.backend.security;
+
+import com.sameboat.backend.auth.session.SessionKey;
+import com.sameboat.backend.auth.session.SessionPrincipal;
+import com.sameboat.backend.auth.session.SessionService;
+import com.sameboat.backend.user.UserProfileCache;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SessionAuthenticationFilterClockTest {
+
+    private static final Instant EXPIRES = Instant.parse("2025-01-01T12:00:00Z");
+
+    private final SessionService sessionService = mock(SessionService.class);
+    private final UUID sessionId = UUID.randomUUID();
+
+    @AfterEach
+    void clear() {
+        SecurityContextHolder.clearContext();
+    }
+
+    /** Runs the filter at {@code now} and returns what the chain saw as the authentication. */
+    private Optional<Authentication> authenticateAt(Instant now, MockHttpServletRequest request) throws Exception {
+        var principal = new SessionPrincipal(sessionId, UUID.randomUUID(), "c@example.com", "USER",
+                OffsetDateTime.ofInstant(EXPIRES, ZoneOffset.UTC), null);
+        var key = new SessionKey(sessionId, EXPIRES);
+        String token = sessionId + "~" + EXPIRES.getEpochSecond();
+        when(sessionService.isSignedToken(any())).thenReturn(false);
+        when(sessionService.opaqueKeyOf(token)).thenReturn(Optional.of(key));
+        when(sessionService.findCached(sessionId)).thenReturn(Optional.empty());
+        when(sessionService.findPrincipal(key)).thenReturn(Optional.of(principal));
+        var filter = new SessionAuthenticationFilter(sessionService, mock(UserProfileCache.class), Clock.fixed(now, ZoneOffset.UTC));
+        request.addHeader("Cookie", "SBSESSION=" + token);
+        Authentication[] seen = new Authentication[1];
+        filter.doFilter(request, new MockHttpServletResponse(),
+                (req, res) -> seen[0] = SecurityContextHolder.getContext().getAuthentication());
+        return Optional.ofNullable(seen[0]);
+    }
+
+    @Test
+    void sessionValidBeforeExpiryByInjectedClock() throws Exception {
+        var request = new MockHttpServletRequest("GET", "/me");
+        assertThat(authenticateAt(EXPIRES.minusSeconds(1), request)).isPresent();
+        assertThat(request.getAttribute("sameboat.sessionExpired")).isNull();
+    }
+
+    @Test
+    void sessionExpiredAtInjectedClockInstant() throws Exception {
+        var request = new MockHttpServletRequest("GET", "/me");
+        assertThat(authenticateAt(EXPIRES, request)).isEmpty();
+        assertThat(request.getAttribute("sameboat.sessionExpired")).isEqualTo(true);
+    }
+}
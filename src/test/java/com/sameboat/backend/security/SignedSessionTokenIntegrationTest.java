@@ -0,0 +1,166 @@
+package com.sameboat.backend.security;
+
+import com.sameboat.backend.auth.session.SessionRepository;
+import com.sameboat.backend.auth.session.SessionRevocationList;
+import com.sameboat.backend.auth.session.SessionService;
+import com.sameboat.backend.common.invalidation.InvalidationEvent;
+import com.sameboat.backend.user.UserProfileCache;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Signed token mode: requests are authenticated without a session lookup and logout
+ * revokes the token through the revocation list.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+@TestPropertySource(properties = {
+        "sameboat.session.token-mode=signed",
+        "sameboat.session.signing-secret=integration-test-signing-secret-0123456789",
+        "sameboat.session.max-per-user=2",
+        "sameboat.session.revocation-refresh=PT1H" // only the startup refresh runs during the tests
+})
+class SignedSessionTokenIntegrationTest {
+
+    @Autowired
+    TestRestTemplate rest;
+
+    @Autowired
+    SessionRepository sessionRepository;
+
+    @MockitoSpyBean
+    SessionService sessionService;
+
+    @MockitoSpyBean
+    SessionRevocationList revocations;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    UserProfileCache profiles;
+
+    private String login(String email) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        var res = rest.postForEntity("/auth/login",
+                new HttpEntity<>("{\"email\":\"" + email + "\",\"password\":\"dev\"}", headers), String.class);
+        assertThat(res.getStatusCode()).isEqualTo(HttpStatus.OK);
+        String setCookie = res.getHeaders().getFirst(HttpHeaders.SET_COOKIE);
+        assertThat(setCookie).contains("SBSESSION=");
+        return setCookie.split(";", 2)[0];
+    }
+
+    private HttpStatus exchange(HttpMethod method, String path, String cookie) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.add(HttpHeaders.COOKIE, cookie);
+        return HttpStatus.valueOf(rest.exchange(path, method, new HttpEntity<>(headers), String.class)
+                .getStatusCode().value());
+    }
+
+    @Test
+    @DisplayName("Signed cookie authenticates /me without a session lookup")
+    void signedCookieSkipsLookup() {
+        String cookie = login("signed-me@example.com");
+        assertThat(cookie.substring("SBSESSION=".length())).contains(".");
+        clearInvocations(sessionService);
+
+        assertThat(exchange(HttpMethod.GET, "/me", cookie)).isEqualTo(HttpStatus.OK);
+
+        verify(sessionService, never()).findPrincipal(any());
+        verify(sessionService, never()).findCached(any());
+    }
+
+    @Test
+    @DisplayName("Logout revokes a signed token and marks the row revoked")
+    void logoutRevokes() {
+        String cookie = login("signed-logout@example.com");
+        assertThat(exchange(HttpMethod.GET, "/me", cookie)).isEqualTo(HttpStatus.OK);
+
+        assertThat(exchange(HttpMethod.POST, "/auth/logout", cookie)).isEqualTo(HttpStatus.NO_CONTENT);
+
+        assertThat(exchange(HttpMethod.GET, "/me", cookie)).isEqualTo(HttpStatus.UNAUTHORIZED);
+        assertThat(sessionRepository.findAll()).anyMatch(s -> s.getRevokedAt() != null);
+    }
+
+    @Test
+    @DisplayName("Tampered signed token is rejected")
+    void tamperedTokenRejected() {
+        String cookie = login("signed-tamper@example.com");
+        int i = cookie.indexOf('.') + 5; // inside the signature, away from base64 padding bits
+        char c = cookie.charAt(i);
+        String tampered = cookie.substring(0, i) + (c == 'A' ? 'B' : 'A') + cookie.substring(i + 1);
+
+        assertThat(exchange(HttpMethod.GET, "/me", tampered)).isEqualTo(HttpStatus.UNAUTHORIZED);
+    }
+
+    @Test
+    @DisplayName("Session cap revokes the oldest signed token without reloading the revocation list")
+    void capRevokesOldestWithoutReload() {
+        String oldest = login("signed-cap@example.com");
+        String second = login("signed-cap@example.com");
+        clearInvocations(revocations);
+
+        String newest = login("signed-cap@example.com");
+
+        assertThat(exchange(HttpMethod.GET, "/me", oldest)).isEqualTo(HttpStatus.UNAUTHORIZED);
+        assertThat(exchange(HttpMethod.GET, "/me", second)).isEqualTo(HttpStatus.OK);
+        assertThat(exchange(HttpMethod.GET, "/me", newest)).isEqualTo(HttpStatus.OK);
+        verify(revocations, never()).refresh();
+    }
+
+    @Test
+    @DisplayName("Remote revocations are applied by id without reloading the revocation list")
+    void remoteRevocationsAppliedById() {
+        String single = login("signed-remote-one@example.com");
+        String bulk = login("signed-remote-bulk@example.com");
+        UUID singleId = sessionService.sessionIdOf(single.substring("SBSESSION=".length())).orElseThrow();
+        UUID bulkId = sessionService.sessionIdOf(bulk.substring("SBSESSION=".length())).orElseThrow();
+        UUID bulkUser = sessionRepository.findById(bulkId).orElseThrow().getUserId();
+        // another instance revoked these rows and broadcast the ids
+        jdbcTemplate.update("update sessions set revoked_at = current_timestamp where id in (?, ?)", singleId, bulkId);
+        clearInvocations(revocations);
+
+        revocations.onInvalidation(new InvalidationEvent(InvalidationEvent.Kind.SESSION, singleId, true));
+        revocations.onInvalidation(new InvalidationEvent(InvalidationEvent.Kind.USER_SESSIONS, bulkUser, true));
+
+        assertThat(exchange(HttpMethod.GET, "/me", single)).isEqualTo(HttpStatus.UNAUTHORIZED);
+        assertThat(exchange(HttpMethod.GET, "/me", bulk)).isEqualTo(HttpStatus.UNAUTHORIZED);
+        verify(revocations, never()).refresh();
+    }
+
+    @Test
+    @DisplayName("Signed token authorizes with the user's current role, not the role it was issued with")
+    void roleChangeAppliesToIssuedToken() {
+        String cookie = login("signed-role@example.com");
+        UUID sessionId = sessionService.sessionIdOf(cookie.substring("SBSESSION=".length())).orElseThrow();
+        UUID userId = sessionRepository.findById(sessionId).orElseThrow().getUserId();
+        assertThat(exchange(HttpMethod.GET, "/admin/users", cookie)).isEqualTo(HttpStatus.FORBIDDEN);
+
+        jdbcTemplate.update("update users set role = 'ADMIN' where id = ?", userId);
+        profiles.evict(userId); // what the USER invalidation does
+        assertThat(exchange(HttpMethod.GET, "/admin/users", cookie)).isEqualTo(HttpStatus.OK);
+
+        jdbcTemplate.update("update users set role = 'USER' where id = ?", userId);
+        profiles.evict(userId);
+        assertThat(exchange(HttpMethod.GET, "/admin/users", cookie)).isEqualTo(HttpStatus.FORBIDDEN);
+    }
+}
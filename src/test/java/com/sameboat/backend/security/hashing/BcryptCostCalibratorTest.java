@@ -0,0 +1,44 @@
+package com.sameboat.backend.security.hashing;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BcryptCostCalibratorTest {
+
+    /** Simulated host: 50 ms at cost 10, doubling per step. */
+    private static long simulated(int cost) {
+        return Duration.ofMillis(50).toNanos() << (cost - 10);
+    }
+
+    @Test
+    void choosesHighestCostWithinTarget() {
+        assertThat(BcryptCostCalibrator.calibrate(Duration.ofMillis(250), 10, 16, BcryptCostCalibratorTest::simulated).recommendedCost())
+                .isEqualTo(12); // 200 ms; 13 would be 400 ms
+        assertThat(BcryptCostCalibrator.calibrate(Duration.ofMillis(250), 10, 11, BcryptCostCalibratorTest::simulated).recommendedCost())
+                .as("capped at maxCost").isEqualTo(11);
+    }
+
+    @Test
+    void neverGoesBelowMinCostOnSlowHosts() {
+        assertThat(BcryptCostCalibrator.calibrate(Duration.ofMillis(10), 10, 14, BcryptCostCalibratorTest::simulated).recommendedCost())
+                .isEqualTo(10);
+    }
+
+    @Test
+    void extrapolatesOtherCostsFromTheMeasuredOne() {
+        var calibration = BcryptCostCalibrator.calibrate(Duration.ofMillis(250), 10, 14, BcryptCostCalibratorTest::simulated);
+        assertThat(calibration.estimate(10)).isEqualTo(Duration.ofMillis(50));
+        assertThat(calibration.estimate(13)).isEqualTo(Duration.ofMillis(400));
+        assertThat(calibration.estimate(9)).isEqualTo(Duration.ofMillis(25));
+    }
+
+    @Test
+    void rejectsInvalidBounds() {
+        assertThatThrownBy(() -> BcryptCostCalibrator.calibrate(Duration.ofMillis(100), 12, 10))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,83 @@
+package com.sameboat.backend.security.hashing;
+
+import com.sameboat.backend.common.GlobalExceptionHandler;
+import com.sameboat.backend.common.ServiceOverloadedException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BoundedPasswordEncoderTest {
+
+    /** Encoder whose operations block until released. */
+    static final class GatedEncoder implements PasswordEncoder {
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch started = new CountDownLatch(1);
+        @Override public String encode(CharSequence raw) {
+            started.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "hash:" + raw;
+        }
+        @Override public boolean matches(CharSequence raw, String encoded) { return encode(raw).equals(encoded); }
+    }
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final GatedEncoder gated = new GatedEncoder();
+    private final BoundedPasswordEncoder encoder =
+            new BoundedPasswordEncoder(gated, 1, 1, Duration.ofSeconds(5), registry);
+
+    @AfterEach
+    void tearDown() {
+        gated.release.countDown();
+        encoder.close();
+    }
+
+    @Test
+    void hashesOnExecutorAndRecordsLatency() {
+        gated.release.countDown();
+        assertThat(encoder.encode("pw")).isEqualTo("hash:pw");
+        assertThat(encoder.matches("pw", "hash:pw")).isTrue();
+        assertThat(registry.get("sameboat.auth.hashing.duration").tag("op", "encode").timer().count()).isEqualTo(1);
+        assertThat(registry.get("sameboat.auth.hashing.duration").tag("op", "matches").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void failsFastWhenQueueIsFull() throws Exception {
+        var running = CompletableFuture.supplyAsync(() -> encoder.encode("a"));
+        assertThat(gated.started.await(5, TimeUnit.SECONDS)).isTrue();
+        var queued = CompletableFuture.supplyAsync(() -> encoder.encode("b"));
+        while (encoder.queueDepth() < 1) Thread.onSpinWait();
+        assertThat(registry.get("sameboat.auth.hashing.queue.depth").gauge().value()).isEqualTo(1.0);
+
+        long start = System.nanoTime();
+        assertThatThrownBy(() -> encoder.encode("c")).isInstanceOf(ServiceOverloadedException.class);
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(1));
+        assertThat(registry.get("sameboat.auth.hashing.rejected").counter().count()).isEqualTo(1.0);
+
+        gated.release.countDown();
+        assertThat(running.get(5, TimeUnit.SECONDS)).isEqualTo("hash:a");
+        assertThat(queued.get(5, TimeUnit.SECONDS)).isEqualTo("hash:b");
+    }
+
+    @Test
+    void overloadMapsToServiceUnavailable() {
+        var res = new GlobalExceptionHandler().handleOverloaded(new ServiceOverloadedException("full"));
+        assertThat(res.getStatusCode().value()).isEqualTo(503);
+        assertThat(res.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+        assertThat(res.getBody()).isNotNull();
+        assertThat(res.getBody().error()).isEqualTo("SERVER_BUSY");
+    }
+}
@@ -0,0 +1,150 @@
+package com.sameboat.backend.security.idempotency;
+
+import com.sameboat.backend.auth.session.SessionRepository;
+import com.sameboat.backend.user.UserRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@TestPropertySource(properties = {
+        "sameboat.rate-limit.enabled=true",
+        "sameboat.rate-limit.policies[0].name=login-email",
+        "sameboat.rate-limit.policies[0].method=POST",
+        "sameboat.rate-limit.policies[0].paths[0]=/auth/login",
+        "sameboat.rate-limit.policies[0].key=EMAIL",
+        "sameboat.rate-limit.policies[0].limit=1",
+        "sameboat.rate-limit.policies[0].period=PT1H"
+})
+class IdempotencyFilterIntegrationTest {
+
+    @Autowired MockMvc mvc;
+    @Autowired UserRepository userRepository;
+    @Autowired SessionRepository sessionRepository;
+
+    private MvcResult register(String key, String body) throws Exception {
+        return mvc.perform(post("/auth/register").header(IdempotencyFilter.KEY_HEADER, key)
+                        .contentType(MediaType.APPLICATION_JSON).content(body))
+                .andReturn();
+    }
+
+    private int activeSessions(String email) {
+        var user = userRepository.findByEmailNormalized(email).orElseThrow();
+        return sessionRepository.findActiveByUserId(user.getId(), OffsetDateTime.now()).size();
+    }
+
+    @Test
+    @DisplayName("Repeated register with the same key replays status, body and cookie")
+    void registerReplayed() throws Exception {
+        String key = UUID.randomUUID().toString();
+        String body = "{\"email\":\"idem-reg@example.com\",\"password\":\"Passw0rd!\"}";
+        var first = register(key, body);
+        var second = register(key, body);
+
+        assertThat(first.getResponse().getStatus()).isEqualTo(200);
+        assertThat(first.getResponse().getHeader(IdempotencyFilter.REPLAYED_HEADER)).isNull();
+        assertThat(second.getResponse().getStatus()).isEqualTo(200);
+        assertThat(second.getResponse().getHeader(IdempotencyFilter.REPLAYED_HEADER)).isEqualTo("true");
+        assertThat(second.getResponse().getContentAsString()).isEqualTo(first.getResponse().getContentAsString());
+        assertThat(second.getResponse().getHeaders("Set-Cookie")).isEqualTo(first.getResponse().getHeaders("Set-Cookie"));
+        assertThat(activeSessions("idem-reg@example.com")).isEqualTo(1);
+
+        // without the key the duplicate reaches the controller again
+        mvc.perform(post("/auth/register").contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.error").value("EMAIL_EXISTS"));
+    }
+
+    @Test
+    @DisplayName("Login replay issues no second session and spends no rate limit token")
+    void loginReplayed() throws Exception {
+        String key = UUID.randomUUID().toString();
+        String body = "{\"email\":\"idem-login@example.com\",\"password\":\"dev\"}";
+        for (int i = 0; i < 3; i++) {
+            mvc.perform(post("/auth/login").header(IdempotencyFilter.KEY_HEADER, key)
+                            .contentType(MediaType.APPLICATION_JSON).content(body))
+                    .andExpect(status().isOk())
+                    .andExpect(header().exists("Set-Cookie"));
+        }
+        assertThat(activeSessions("idem-login@example.com")).isEqualTo(1);
+        // the single token of the email policy was spent by the first request only
+        mvc.perform(post("/auth/login").header(IdempotencyFilter.KEY_HEADER, UUID.randomUUID().toString())
+                        .contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isTooManyRequests());
+    }
+
+    @Test
+    @DisplayName("Reusing a key for a different body -> 422 IDEMPOTENCY_KEY_REUSED")
+    void keyReusedForDifferentRequest() throws Exception {
+        String key = UUID.randomUUID().toString();
+        register(key, "{\"email\":\"idem-a@example.com\",\"password\":\"Passw0rd!\"}");
+        mvc.perform(post("/auth/register").header(IdempotencyFilter.KEY_HEADER, key)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\":\"idem-b@example.com\",\"password\":\"Passw0rd!\"}"))
+                .andExpect(status().isUnprocessableEntity())
+                .andExpect(jsonPath("$.error").value("IDEMPOTENCY_KEY_REUSED"));
+        assertThat(userRepository.findByEmailNormalized("idem-b@example.com")).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Oversized key -> 400 VALIDATION_ERROR")
+    void oversizedKeyRejected() throws Exception {
+        mvc.perform(post("/auth/register").header(IdempotencyFilter.KEY_HEADER, "k".repeat(256))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\":\"idem-long@example.com\",\"password\":\"Passw0rd!\"}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("VALIDATION_ERROR"));
+    }
+
+    @Test
+    @DisplayName("Concurrent duplicates share one registration and one session")
+    void concurrentDuplicatesCoalesced() throws Exception {
+        int attempts = 6;
+        String key = UUID.randomUUID().toString();
+        String body = "{\"email\":\"idem-race@example.com\",\"password\":\"Passw0rd!\"}";
+        var pool = Executors.newFixedThreadPool(attempts);
+        try {
+            var start = new CountDownLatch(1);
+            List<Future<MvcResult>> results = new ArrayList<>();
+            for (int i = 0; i < attempts; i++) {
+                results.add(pool.submit(() -> {
+                    start.await();
+                    return register(key, body);
+                }));
+            }
+            start.countDown();
+            String cookie = null;
+            for (var f : results) {
+                var res = f.get(30, TimeUnit.SECONDS).getResponse();
+                assertThat(res.getStatus()).isEqualTo(200);
+                if (cookie == null) cookie = res.getHeader("Set-Cookie");
+                assertThat(res.getHeader("Set-Cookie")).isEqualTo(cookie);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        assertThat(activeSessions("idem-race@example.com")).isEqualTo(1);
+    }
+}
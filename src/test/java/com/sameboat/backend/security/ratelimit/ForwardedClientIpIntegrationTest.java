@@ -0,0 +1,51 @@
+package com.sameboat.backend.security.ratelimit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * IP-keyed policies behind a proxy: runs over real HTTP so Tomcat's RemoteIpValve resolves the
+ * client from X-Forwarded-For (the test client connects from loopback, a trusted proxy).
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+@TestPropertySource(properties = {
+        "sameboat.rate-limit.enabled=true",
+        "sameboat.rate-limit.policies[0].name=register-ip",
+        "sameboat.rate-limit.policies[0].method=POST",
+        "sameboat.rate-limit.policies[0].paths[0]=/auth/register",
+        "sameboat.rate-limit.policies[0].key=IP",
+        "sameboat.rate-limit.policies[0].limit=1",
+        "sameboat.rate-limit.policies[0].period=PT1H"
+})
+class ForwardedClientIpIntegrationTest {
+
+    @Autowired
+    TestRestTemplate rest;
+
+    private int registerFrom(String clientIp) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.add("X-Forwarded-For", clientIp);
+        return rest.postForEntity("/auth/register", new HttpEntity<>("{not json", headers), String.class)
+                .getStatusCode().value();
+    }
+
+    @Test
+    @DisplayName("Forwarded client IPs get separate buckets behind one proxy")
+    void forwardedClientsLimitedSeparately() {
+        assertThat(registerFrom("203.0.113.10")).isEqualTo(400);
+        assertThat(registerFrom("203.0.113.10")).isEqualTo(429);
+        assertThat(registerFrom("203.0.113.20")).isEqualTo(400);
+    }
+}
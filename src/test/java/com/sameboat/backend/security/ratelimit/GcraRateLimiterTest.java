@@ -0,0 +1,81 @@
+package com.sameboat.backend.security.ratelimit;
+
+import com.sameboat.backend.config.SameboatProperties;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GcraRateLimiterTest {
+
+    /** Clock whose instant can be advanced by the test. */
+    static final class MutableClock extends Clock {
+        private Instant now = Instant.parse("2025-01-01T00:00:00Z");
+        void advance(Duration d) { now = now.plus(d); }
+        @Override public ZoneId getZone() { return ZoneOffset.UTC; }
+        @Override public Clock withZone(ZoneId zone) { return this; }
+        @Override public Instant instant() { return now; }
+    }
+
+    private final MutableClock clock = new MutableClock();
+
+    private GcraRateLimiter limiter(int maxKeys) {
+        var props = new SameboatProperties();
+        props.getRateLimit().setMaxTrackedKeys(maxKeys);
+        var beans = new StaticListableBeanFactory();
+        beans.addBean("props", props);
+        beans.addBean("clock", clock);
+        return new GcraRateLimiter(beans.getBeanProvider(SameboatProperties.class), beans.getBeanProvider(Clock.class));
+    }
+
+    @Test
+    void admitsBurstThenOnePerEmissionInterval() {
+        var limiter = limiter(100);
+        // 60/min => one request per second, bursts of 3
+        for (int i = 2; i >= 0; i--) {
+            var d = limiter.acquire("k", 60, Duration.ofMinutes(1), 3);
+            assertThat(d.allowed()).isTrue();
+            assertThat(d.remaining()).isEqualTo(i);
+        }
+        var denied = limiter.acquire("k", 60, Duration.ofMinutes(1), 3);
+        assertThat(denied.allowed()).isFalse();
+        assertThat(denied.retryAfter()).isEqualTo(Duration.ofSeconds(1));
+        assertThat(denied.resetAfter()).isEqualTo(Duration.ofSeconds(3));
+
+        clock.advance(Duration.ofSeconds(1));
+        assertThat(limiter.acquire("k", 60, Duration.ofMinutes(1), 3).allowed()).isTrue();
+        assertThat(limiter.acquire("k", 60, Duration.ofMinutes(1), 3).allowed()).isFalse();
+        assertThat(limiter.acquire("other", 60, Duration.ofMinutes(1), 3).allowed()).as("keys are independent").isTrue();
+    }
+
+    @Test
+    void deniedRequestsDoNotConsumeCapacity() {
+        var limiter = limiter(100);
+        limiter.acquire("k", 1, Duration.ofSeconds(10), 1);
+        for (int i = 0; i < 5; i++) {
+            assertThat(limiter.acquire("k", 1, Duration.ofSeconds(10), 1).allowed()).isFalse();
+        }
+        clock.advance(Duration.ofSeconds(10));
+        assertThat(limiter.acquire("k", 1, Duration.ofSeconds(10), 1).allowed()).isTrue();
+    }
+
+    @Test
+    void keyTableIsCappedFailOpenAndRefilledKeysAreSwept() {
+        var limiter = limiter(2);
+        limiter.acquire("a", 1, Duration.ofSeconds(10), 1);
+        limiter.acquire("b", 1, Duration.ofSeconds(20), 1);
+        assertThat(limiter.acquire("c", 1, Duration.ofSeconds(10), 1).allowed()).as("untracked key admitted").isTrue();
+        assertThat(limiter.trackedKeys()).isEqualTo(2);
+
+        clock.advance(Duration.ofSeconds(10));
+        assertThat(limiter.sweepIdle()).isEqualTo(1);
+        assertThat(limiter.trackedKeys()).isEqualTo(1);
+        assertThat(limiter.acquire("b", 1, Duration.ofSeconds(20), 1).allowed()).as("b survived the sweep").isFalse();
+    }
+}
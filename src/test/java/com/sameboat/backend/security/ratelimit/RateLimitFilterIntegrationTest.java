@@ -0,0 +1,107 @@
+package com.sameboat.backend.security.ratelimit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.not;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@TestPropertySource(properties = {
+        "sameboat.rate-limit.enabled=true",
+        "sameboat.rate-limit.policies[0].name=register-ip",
+        "sameboat.rate-limit.policies[0].method=POST",
+        "sameboat.rate-limit.policies[0].paths[0]=/auth/register",
+        "sameboat.rate-limit.policies[0].key=IP",
+        "sameboat.rate-limit.policies[0].limit=2",
+        "sameboat.rate-limit.policies[0].period=PT1H",
+        "sameboat.rate-limit.policies[1].name=login-email",
+        "sameboat.rate-limit.policies[1].method=POST",
+        "sameboat.rate-limit.policies[1].paths[0]=/auth/login",
+        "sameboat.rate-limit.policies[1].key=EMAIL",
+        "sameboat.rate-limit.policies[1].limit=2",
+        "sameboat.rate-limit.policies[1].period=PT1H"
+})
+class RateLimitFilterIntegrationTest {
+
+    @Autowired MockMvc mvc;
+
+    @Test
+    @DisplayName("Register policy rejects before the body is parsed and reports RateLimit headers")
+    void registerLimitedBeforeParsing() throws Exception {
+        String garbage = "{not json";
+        mvc.perform(post("/auth/register").contentType(MediaType.APPLICATION_JSON).content(garbage))
+                .andExpect(status().isBadRequest())
+                .andExpect(header().string("RateLimit-Limit", "2"))
+                .andExpect(header().string("RateLimit-Remaining", "1"))
+                .andExpect(header().string("RateLimit-Policy", "2;w=3600;burst=2;name=\"register-ip\""));
+        mvc.perform(post("/auth/register").contentType(MediaType.APPLICATION_JSON).content(garbage))
+                .andExpect(status().isBadRequest())
+                .andExpect(header().string("RateLimit-Remaining", "0"));
+        mvc.perform(post("/auth/register").contentType(MediaType.APPLICATION_JSON).content(garbage))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(jsonPath("$.error").value("RATE_LIMITED"))
+                .andExpect(header().string("Retry-After", "1800"))
+                .andExpect(header().string("RateLimit-Remaining", "0"));
+    }
+
+    @Test
+    @DisplayName("Email policy keys on the body email and still lets controllers read the body")
+    void loginLimitedPerEmail() throws Exception {
+        String body = "{\"email\":\"Limited@Example.com\",\"password\":\"NotTheStub123\"}";
+        for (int i = 0; i < 2; i++) {
+            mvc.perform(post("/auth/login").contentType(MediaType.APPLICATION_JSON).content(body))
+                    .andExpect(status().isUnauthorized())
+                    .andExpect(jsonPath("$.error").value("BAD_CREDENTIALS"));
+        }
+        mvc.perform(post("/auth/login").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\":\"limited@example.com\",\"password\":\"NotTheStub123\"}"))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().exists("Retry-After"));
+        // same client, different email: own bucket
+        mvc.perform(post("/auth/login").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\":\"other@example.com\",\"password\":\"dev\"}"))
+                .andExpect(status().is(not(429)));
+    }
+
+    @Test
+    @DisplayName("Escaped email field names and values count toward the same bucket")
+    void escapedEmailSharesBucket() throws Exception {
+        for (int i = 0; i < 2; i++) {
+            mvc.perform(post("/auth/login").contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"em\\u0061il\":\"escaped@ex\\u0061mple.com\",\"password\":\"NotTheStub123\"}"))
+                    .andExpect(status().isUnauthorized());
+        }
+        mvc.perform(post("/auth/login").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\":\"escaped@example.com\",\"password\":\"NotTheStub123\"}"))
+                .andExpect(status().isTooManyRequests());
+    }
+
+    @Test
+    @DisplayName("Duplicate, missing or out-of-prefix emails are rejected instead of counted by IP")
+    void unreadableEmailFailsClosed() throws Exception {
+        mvc.perform(post("/auth/login").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\":\"decoy-1@example.com\",\"email\":\"victim@example.com\",\"password\":\"x\"}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("VALIDATION_ERROR"));
+        mvc.perform(post("/auth/login").contentType(MediaType.APPLICATION_JSON).content("{\"password\":\"x\"}"))
+                .andExpect(status().isBadRequest());
+        String padding = "a".repeat(RateLimitFilter.EMAIL_PEEK_BYTES);
+        mvc.perform(post("/auth/login").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"pad\":\"" + padding + "\",\"email\":\"victim@example.com\",\"password\":\"x\"}"))
+                .andExpect(status().isBadRequest());
+        mvc.perform(post("/auth/login").contentType(MediaType.APPLICATION_FORM_URLENCODED)
+                        .param("email", "decoy-2@example.com").param("email", "victim@example.com").param("password", "x"))
+                .andExpect(status().isBadRequest());
+    }
+}
@@ -0,0 +1,112 @@
+package com.sameboat.backend.user;
+
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class AdminUserListingIntegrationTest {
+
+    @Autowired MockMvc mvc;
+    @Autowired UserRepository userRepository;
+
+    private String[] register(String email) throws Exception {
+        var res = mvc.perform(post("/auth/register").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\":\"" + email + "\",\"password\":\"Passw0rd!\"}"))
+                .andExpect(status().isOk())
+                .andReturn();
+        String cookie = res.getResponse().getHeader("Set-Cookie").split(";", 2)[0];
+        String body = res.getResponse().getContentAsString();
+        String id = body.substring(body.indexOf(":\"") + 2).replace("\"}", "");
+        return new String[]{cookie, id};
+    }
+
+    private String adminCookie(String email) throws Exception {
+        var admin = userRepository.findById(UUID.fromString(register(email)[1])).orElseThrow();
+        admin.setRole("ADMIN");
+        userRepository.save(admin);
+        return mvc.perform(post("/auth/login").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\":\"" + email + "\",\"password\":\"Passw0rd!\"}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("Set-Cookie").split(";", 2)[0];
+    }
+
+    @Test
+    @DisplayName("Admin walks all users created in a range page by page via nextCursor")
+    void keysetPagination() throws Exception {
+        String from = OffsetDateTime.now(ZoneOffset.UTC).truncatedTo(ChronoUnit.MILLIS).toString();
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 3; i++) expected.add(register("list-" + i + "@example.com")[1]);
+        String cookie = adminCookie("list-admin@example.com");
+
+        List<String> seen = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            var req = get("/admin/users").header("Cookie", cookie).param("createdFrom", from).param("limit", "2");
+            if (cursor != null) req.param("cursor", cursor);
+            String body = mvc.perform(req)
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                    .andReturn().getResponse().getContentAsString();
+            List<String> ids = JsonPath.read(body, "$.items[*].id");
+            assertThat(ids.size()).isLessThanOrEqualTo(2);
+            seen.addAll(ids);
+            cursor = JsonPath.read(body, "$.nextCursor");
+            pages++;
+        } while (cursor != null && pages < 10);
+
+        assertThat(seen).doesNotHaveDuplicates().containsAll(expected).hasSize(4); // 3 users + the admin
+        assertThat(pages).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Role filter narrows the listing")
+    void roleFilter() throws Exception {
+        String from = OffsetDateTime.now(ZoneOffset.UTC).truncatedTo(ChronoUnit.MILLIS).toString();
+        register("role-user@example.com");
+        String cookie = adminCookie("role-admin@example.com");
+
+        mvc.perform(get("/admin/users").header("Cookie", cookie).param("createdFrom", from).param("role", "admin"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(1))
+                .andExpect(jsonPath("$.items[0].email").value("role-admin@example.com"))
+                .andExpect(jsonPath("$.nextCursor").value(org.hamcrest.Matchers.nullValue()));
+    }
+
+    @Test
+    @DisplayName("Non-admin -> 403; bad limit or cursor -> 400")
+    void accessAndValidation() throws Exception {
+        String userCookie = register("list-plain@example.com")[0];
+        mvc.perform(get("/admin/users").header("Cookie", userCookie))
+                .andExpect(status().isForbidden());
+
+        String cookie = adminCookie("list-admin2@example.com");
+        mvc.perform(get("/admin/users").header("Cookie", cookie).param("limit", "0"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("BAD_REQUEST"));
+        mvc.perform(get("/admin/users").header("Cookie", cookie).param("cursor", "not-a-cursor"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("BAD_REQUEST"));
+    }
+}
@@ -0,0 +1,125 @@
+package com.sameboat.backend.user;
+
+import com.sameboat.backend.common.invalidation.InvalidationEvent;
+import com.sameboat.backend.config.SameboatProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class EmailExistenceFilterTest {
+
+    @Test
+    void noFalseNegativesAndFalsePositivesNearTarget() {
+        var bits = new EmailExistenceFilter.Bits(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) bits.add("user" + i + "@example.com");
+        for (int i = 0; i < 10_000; i++) {
+            assertThat(bits.mightContain("user" + i + "@example.com")).isTrue();
+        }
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (bits.mightContain("stranger" + i + "@example.org")) falsePositives++;
+        }
+        assertThat(falsePositives / 100_000.0).isLessThan(0.02);
+        assertThat(bits.estimatedFalsePositiveRate()).isBetween(0.005, 0.02);
+    }
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private EmailExistenceFilter newFilter(JdbcTemplate jdbcTemplate) {
+        var beans = new StaticListableBeanFactory();
+        beans.addBean("props", new SameboatProperties());
+        beans.addBean("registry", registry);
+        return new EmailExistenceFilter(jdbcTemplate, beans.getBeanProvider(SameboatProperties.class),
+                beans.getBeanProvider(MeterRegistry.class), beans.getBeanProvider(PlatformTransactionManager.class));
+    }
+
+    @Test
+    void everythingMightExistUntilBuilt() {
+        var filter = newFilter(null);
+        filter.add("a@example.com");
+        assertThat(filter.isReady()).isFalse();
+        assertThat(filter.mightExist("nobody@example.com")).isTrue();
+        assertThat(registry.get("sameboat.auth.email_filter.bytes").gauge().value()).isZero();
+    }
+
+    @Test
+    void backgroundRebuildsRunOffThreadAndCoalesce() throws Exception {
+        var jdbcTemplate = mock(JdbcTemplate.class);
+        var started = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        var runs = new AtomicInteger();
+        when(jdbcTemplate.queryForObject("select count(*) from users", Long.class)).thenAnswer(inv -> {
+            runs.incrementAndGet();
+            started.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return 0L;
+        });
+        var filter = newFilter(jdbcTemplate);
+
+        filter.onInvalidation(InvalidationEvent.all(true)); // returns at once; rebuild runs elsewhere
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        for (int i = 0; i < 5; i++) filter.onInvalidation(InvalidationEvent.all(true));
+        release.countDown();
+
+        for (int i = 0; i < 250 && (runs.get() < 2 || !filter.isReady()); i++) Thread.sleep(20);
+        Thread.sleep(100);
+        assertThat(filter.isReady()).isTrue();
+        assertThat(runs.get()).isEqualTo(2); // the running pass plus one coalesced follow-up
+    }
+
+    @Test
+    void remoteAccountLookupRunsOffTheListenerThread() throws Exception {
+        var jdbcTemplate = mock(JdbcTemplate.class);
+        when(jdbcTemplate.queryForObject("select count(*) from users", Long.class)).thenReturn(0L);
+        var userId = UUID.randomUUID();
+        var release = new CountDownLatch(1);
+        var lookupThread = new String[1];
+        when(jdbcTemplate.queryForList(eq("select email from users where id = ?"), eq(String.class), eq(userId)))
+                .thenAnswer(inv -> {
+                    lookupThread[0] = Thread.currentThread().getName();
+                    release.await(5, TimeUnit.SECONDS);
+                    return List.of("Peer@Example.com");
+                });
+        var filter = newFilter(jdbcTemplate);
+        filter.rebuild();
+
+        filter.onInvalidation(new InvalidationEvent(InvalidationEvent.Kind.USER_CREATED, userId, true)); // returns while the query blocks
+        assertThat(filter.mightExist("peer@example.com")).isFalse();
+        release.countDown();
+
+        for (int i = 0; i < 250 && !filter.mightExist("peer@example.com"); i++) Thread.sleep(20);
+        assertThat(filter.mightExist("peer@example.com")).isTrue();
+        assertThat(lookupThread[0]).isEqualTo("sameboat-email-filter-rebuild");
+    }
+
+    @Test
+    void failedRebuildStopsTrustingMisses() {
+        var jdbcTemplate = mock(JdbcTemplate.class);
+        when(jdbcTemplate.queryForObject("select count(*) from users", Long.class))
+                .thenReturn(0L)
+                .thenThrow(new DataAccessResourceFailureException("database down"));
+        var filter = newFilter(jdbcTemplate);
+
+        filter.rebuild();
+        assertThat(filter.mightExist("seeded@example.com")).isFalse();
+
+        filter.rebuild(); // e.g. an account was restored out of band and this pass failed
+        assertThat(filter.isReady()).isFalse();
+        assertThat(filter.mightExist("seeded@example.com")).isTrue();
+    }
+}
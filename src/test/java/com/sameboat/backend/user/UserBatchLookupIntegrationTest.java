@@ -0,0 +1,109 @@
+package com.sameboat.backend.user;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.UUID;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@TestPropertySource(properties = {"sameboat.endpoints.user-read=true", "sameboat.profile.batch-max-ids=3"})
+class UserBatchLookupIntegrationTest {
+
+    @Autowired MockMvc mvc;
+    @Autowired UserRepository userRepository;
+
+    private String[] register(String email) throws Exception {
+        var res = mvc.perform(post("/auth/register").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\":\"" + email + "\",\"password\":\"Passw0rd!\"}"))
+                .andExpect(status().isOk())
+                .andReturn();
+        String cookie = res.getResponse().getHeader("Set-Cookie").split(";", 2)[0];
+        String body = res.getResponse().getContentAsString();
+        String id = body.substring(body.indexOf(":\"") + 2).replace("\"}", "");
+        return new String[]{cookie, id};
+    }
+
+    private String login(String email) throws Exception {
+        return mvc.perform(post("/auth/login").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\":\"" + email + "\",\"password\":\"Passw0rd!\"}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("Set-Cookie").split(";", 2)[0];
+    }
+
+    private static String ids(String... ids) {
+        return "{\"ids\":[\"" + String.join("\",\"", ids) + "\"]}";
+    }
+
+    @Test
+    @DisplayName("Admin resolves several public profiles in one call; unknown ids are omitted")
+    void adminBatch() throws Exception {
+        String[] a = register("batch-a@example.com");
+        String[] b = register("batch-b@example.com");
+        var admin = userRepository.findById(UUID.fromString(register("batch-admin@example.com")[1])).orElseThrow();
+        admin.setRole("ADMIN");
+        userRepository.save(admin);
+        String cookie = login("batch-admin@example.com");
+        String unknown = UUID.randomUUID().toString();
+
+        mvc.perform(post("/users/batch").header("Cookie", cookie).contentType(MediaType.APPLICATION_JSON)
+                        .content(ids(a[1], b[1], unknown)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$['" + a[1] + "'].displayName").value("batch-a@example.com"))
+                .andExpect(jsonPath("$['" + b[1] + "'].id").value(b[1]))
+                .andExpect(jsonPath("$['" + a[1] + "'].email").doesNotExist())
+                .andExpect(jsonPath("$['" + unknown + "']").doesNotExist());
+    }
+
+    @Test
+    @DisplayName("Non-admin may only ask for themselves")
+    void nonAdminLimitedToSelf() throws Exception {
+        String[] self = register("batch-self@example.com");
+        String[] other = register("batch-other@example.com");
+
+        mvc.perform(post("/users/batch").header("Cookie", self[0]).contentType(MediaType.APPLICATION_JSON)
+                        .content(ids(self[1])))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$['" + self[1] + "'].id").value(self[1]));
+        mvc.perform(post("/users/batch").header("Cookie", self[0]).contentType(MediaType.APPLICATION_JSON)
+                        .content(ids(self[1], other[1])))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    @DisplayName("Empty or oversized id lists -> 400 VALIDATION_ERROR")
+    void sizeLimits() throws Exception {
+        String[] self = register("batch-size@example.com");
+        mvc.perform(post("/users/batch").header("Cookie", self[0]).contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"ids\":[]}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("VALIDATION_ERROR"));
+        mvc.perform(post("/users/batch").header("Cookie", self[0]).contentType(MediaType.APPLICATION_JSON)
+                        .content(ids(self[1], UUID.randomUUID().toString(), UUID.randomUUID().toString(), UUID.randomUUID().toString())))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("VALIDATION_ERROR"));
+    }
+
+    @Test
+    @DisplayName("Body larger than batch-max-ids can need -> 413 before binding")
+    void oversizedBodyRejected() throws Exception {
+        String[] self = register("batch-body@example.com");
+        String[] many = new String[20];
+        for (int i = 0; i < many.length; i++) many[i] = UUID.randomUUID().toString();
+        mvc.perform(post("/users/batch").header("Cookie", self[0]).contentType(MediaType.APPLICATION_JSON)
+                        .content(ids(many)))
+                .andExpect(status().isPayloadTooLarge())
+                .andExpect(jsonPath("$.error").value("PAYLOAD_TOO_LARGE"));
+    }
+}
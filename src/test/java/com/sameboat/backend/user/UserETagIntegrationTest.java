@@ -0,0 +1,98 @@
+package com.sameboat.backend.user;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@TestPropertySource(properties = "sameboat.endpoints.user-read=true")
+class UserETagIntegrationTest {
+
+    @Autowired MockMvc mvc;
+
+    @Autowired MeterRegistry meterRegistry;
+
+    private double profileCacheMisses() {
+        return meterRegistry.counter("sameboat.user.profile_cache.requests", "result", "miss").count();
+    }
+
+    private String[] registerAndGetCookieAndId(String email) throws Exception {
+        var res = mvc.perform(post("/auth/register").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\":\"" + email + "\",\"password\":\"Passw0rd!\"}"))
+                .andExpect(status().isOk())
+                .andReturn();
+        String cookie = res.getResponse().getHeader("Set-Cookie").split(";", 2)[0];
+        String body = res.getResponse().getContentAsString();
+        String id = body.substring(body.indexOf(":\"") + 2).replace("\"}", "");
+        return new String[]{cookie, id};
+    }
+
+    @Test
+    @DisplayName("GET /me carries a strong ETag; If-None-Match -> 304 served from the profile cache")
+    void meNotModified() throws Exception {
+        String cookie = registerAndGetCookieAndId("etag-me@example.com")[0];
+        var first = mvc.perform(get("/me").header("Cookie", cookie))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Cache-Control", "no-cache, private"))
+                .andReturn();
+        String etag = first.getResponse().getHeader("ETag");
+        assertThat(etag).startsWith("\"self-").endsWith("\"");
+
+        double misses = profileCacheMisses();
+        var second = mvc.perform(get("/me").header("Cookie", cookie).header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", etag))
+                .andReturn();
+        assertThat(second.getResponse().getContentAsByteArray()).isEmpty();
+        assertThat(profileCacheMisses()).isEqualTo(misses);
+    }
+
+    @Test
+    @DisplayName("PATCH /me changes the ETag, so the old one no longer matches")
+    void patchInvalidatesETag() throws Exception {
+        String cookie = registerAndGetCookieAndId("etag-patch@example.com")[0];
+        String before = mvc.perform(get("/me").header("Cookie", cookie))
+                .andReturn().getResponse().getHeader("ETag");
+
+        mvc.perform(patch("/me").header("Cookie", cookie).contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"bio\":\"changed\"}"))
+                .andExpect(status().isOk());
+
+        var after = mvc.perform(get("/me").header("Cookie", cookie).header("If-None-Match", before))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.bio").value("changed"))
+                .andReturn();
+        assertThat(after.getResponse().getHeader("ETag")).isNotEqualTo(before);
+    }
+
+    @Test
+    @DisplayName("GET /users/{id} has its own ETag and honours If-None-Match")
+    void publicProfileNotModified() throws Exception {
+        String[] reg = registerAndGetCookieAndId("etag-public@example.com");
+        String meTag = mvc.perform(get("/me").header("Cookie", reg[0]))
+                .andReturn().getResponse().getHeader("ETag");
+        String etag = mvc.perform(get("/users/{id}", reg[1]).header("Cookie", reg[0]))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.email").doesNotExist())
+                .andReturn().getResponse().getHeader("ETag");
+        assertThat(etag).startsWith("\"public-").isNotEqualTo(meTag);
+
+        double misses = profileCacheMisses();
+        mvc.perform(get("/users/{id}", reg[1]).header("Cookie", reg[0]).header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+        assertThat(profileCacheMisses()).isEqualTo(misses);
+    }
+}
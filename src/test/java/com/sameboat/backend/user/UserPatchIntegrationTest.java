@@ -49,6 +49,26 @@ class UserPatchIntegrationTest {
                 .andExpect(jsonPath("$.bio").value("Short bio"));
     }
 
+    @Test
+    @DisplayName("PATCH /me with unchanged values is a no-op and keeps the /me ETag")
+    void patchMeNoOpKeepsETag() throws Exception {
+        String cookie = loginAndGetCookie("noop@me.com");
+        mvc.perform(patch("/me").header("Cookie", cookie)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"bio\":\"Same bio\"}"))
+                .andExpect(status().isOk());
+        String etag = mvc.perform(get("/me").header("Cookie", cookie))
+                .andReturn().getResponse().getHeader("ETag");
+
+        mvc.perform(patch("/me").header("Cookie", cookie)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"bio\":\"Same bio\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.bio").value("Same bio"));
+        mvc.perform(get("/me").header("Cookie", cookie).header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+    }
+
     @Test
     @DisplayName("PATCH /me validation failure produces VALIDATION_ERROR envelope")
     void patchMeValidationFailure() throws Exception {
@@ -0,0 +1,142 @@
+package com.sameboat.backend.user;
+
+import com.sameboat.backend.common.invalidation.InvalidationEvent;
+import com.sameboat.backend.config.SameboatProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import java.time.Clock;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class UserProfileCacheTest {
+
+    private final UserRepository repository = mock(UserRepository.class);
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private UserProfileCache newCache(int maxEntries) {
+        var props = new SameboatProperties();
+        props.getProfile().getCache().setMaxEntries(maxEntries);
+        var beans = new StaticListableBeanFactory();
+        beans.addBean("props", props);
+        beans.addBean("clock", Clock.systemUTC());
+        beans.addBean("registry", registry);
+        return new UserProfileCache(repository, beans.getBeanProvider(SameboatProperties.class),
+                beans.getBeanProvider(Clock.class), beans.getBeanProvider(MeterRegistry.class));
+    }
+
+    private UserProfile profile(UUID id, OffsetDateTime updatedAt) {
+        return new UserProfile(id, "p@example.com", "P", null, null, null, "USER", updatedAt);
+    }
+
+    private double requests(String result) {
+        return registry.get("sameboat.user.profile_cache.requests").tag("result", result).counter().count();
+    }
+
+    @Test
+    void readsThroughOnceThenServesFromCache() {
+        var cache = newCache(10);
+        UUID id = UUID.randomUUID();
+        var p = profile(id, OffsetDateTime.now(ZoneOffset.UTC));
+        when(repository.findProfileById(id)).thenReturn(Optional.of(p));
+
+        assertThat(cache.get(id)).contains(p);
+        assertThat(cache.get(id)).contains(p);
+
+        verify(repository, times(1)).findProfileById(id);
+        assertThat(requests("miss")).isEqualTo(1);
+        assertThat(requests("hit")).isEqualTo(1);
+    }
+
+    @Test
+    void userInvalidationForcesReload() {
+        var cache = newCache(10);
+        UUID id = UUID.randomUUID();
+        var before = profile(id, OffsetDateTime.parse("2025-01-01T00:00:00Z"));
+        var after = profile(id, OffsetDateTime.parse("2025-01-01T00:00:01Z"));
+        when(repository.findProfileById(id)).thenReturn(Optional.of(before)).thenReturn(Optional.of(after));
+
+        cache.get(id);
+        cache.onInvalidation(InvalidationEvent.user(id));
+
+        assertThat(cache.get(id)).contains(after);
+        assertThat(after.etag(UserProfile.Variant.SELF)).isNotEqualTo(before.etag(UserProfile.Variant.SELF));
+    }
+
+    @Test
+    void loadRacingAnInvalidationIsNotCached() {
+        var cache = newCache(10);
+        UUID id = UUID.randomUUID();
+        var stale = profile(id, OffsetDateTime.parse("2025-01-01T00:00:00Z"));
+        var fresh = profile(id, OffsetDateTime.parse("2025-01-01T00:00:01Z"));
+        when(repository.findProfileById(id)).thenAnswer(inv -> {
+            cache.onInvalidation(InvalidationEvent.user(id)); // update commits while we read
+            return Optional.of(stale);
+        }).thenReturn(Optional.of(fresh));
+
+        assertThat(cache.get(id)).contains(stale);
+        assertThat(cache.get(id)).contains(fresh);
+        assertThat(cache.size()).isEqualTo(1);
+    }
+
+    @Test
+    void missingUsersAreNotCached() {
+        var cache = newCache(10);
+        UUID id = UUID.randomUUID();
+        when(repository.findProfileById(id)).thenReturn(Optional.empty());
+
+        assertThat(cache.get(id)).isEmpty();
+        assertThat(cache.get(id)).isEmpty();
+        verify(repository, times(2)).findProfileById(id);
+    }
+
+    @Test
+    void capacityEvictionsAreCounted() {
+        var cache = newCache(2);
+        for (int i = 0; i < 3; i++) {
+            UUID id = UUID.randomUUID();
+            when(repository.findProfileById(id)).thenReturn(Optional.of(profile(id, OffsetDateTime.now(ZoneOffset.UTC))));
+            cache.get(id);
+        }
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(registry.get("sameboat.user.profile_cache.evictions").functionCounter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void etagsDifferPerRepresentation() {
+        var p = profile(UUID.randomUUID(), OffsetDateTime.now(ZoneOffset.UTC));
+        assertThat(p.etag(UserProfile.Variant.SELF)).startsWith("\"self-");
+        assertThat(p.etag(UserProfile.Variant.PUBLIC)).startsWith("\"public-");
+    }
+
+    @Test
+    void getAllLoadsOnlyMissesInOneQuery() {
+        var cache = newCache(10);
+        UUID cachedId = UUID.randomUUID();
+        UUID missId = UUID.randomUUID();
+        UUID unknownId = UUID.randomUUID();
+        var cached = profile(cachedId, OffsetDateTime.now(ZoneOffset.UTC));
+        var loaded = profile(missId, OffsetDateTime.now(ZoneOffset.UTC));
+        when(repository.findProfileById(cachedId)).thenReturn(Optional.of(cached));
+        when(repository.findProfilesByIdIn(List.of(missId, unknownId))).thenReturn(List.of(loaded));
+        cache.get(cachedId);
+
+        var result = cache.getAll(List.of(missId, cachedId, unknownId, missId));
+
+        assertThat(result.keySet()).containsExactly(missId, cachedId);
+        assertThat(result.get(missId)).isEqualTo(loaded);
+        verify(repository, times(1)).findProfilesByIdIn(List.of(missId, unknownId));
+        assertThat(cache.get(missId)).contains(loaded);
+    }
+}
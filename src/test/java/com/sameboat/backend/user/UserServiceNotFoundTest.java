@@ -1,5 +1,6 @@
 package com.sameboat.backend.user;
 
+import com.sameboat.backend.common.invalidation.CacheInvalidationBus;
 import com.sameboat.backend.common.ResourceNotFoundException;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -14,7 +15,7 @@ import java.util.UUID;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 @DataJpaTest
-@Import(UserService.class)
+@Import({UserService.class, UserProfileCache.class, CacheInvalidationBus.class})
 @ActiveProfiles("test")
 @TestPropertySource(properties = "sameboat.security.enabled=false")
 class UserServiceNotFoundTest {
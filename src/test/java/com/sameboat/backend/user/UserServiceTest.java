@@ -1,5 +1,6 @@
 package com.sameboat.backend.user;
 
+import com.sameboat.backend.common.invalidation.CacheInvalidationBus;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
@@ -12,7 +13,7 @@ import org.springframework.test.context.TestPropertySource;
 import static org.assertj.core.api.Assertions.assertThat;
 
 @DataJpaTest
-@Import(UserService.class)
+@Import({UserService.class, UserProfileCache.class, CacheInvalidationBus.class})
 @ActiveProfiles("test")
 @TestPropertySource(properties = "sameboat.security.enabled=false")
 class UserServiceTest {
@@ -31,6 +32,14 @@ class UserServiceTest {
         assertThat(userRepository.findByEmailIgnoreCase("new@example.com")).isPresent();
     }
 
+    @Test
+    void findDtoByIdReturnsProjection() {
+        var u = userService.registerNew("dto@example.com", "StrongPass3!", encoder);
+        var dto = userService.findDtoById(u.getId()).orElseThrow();
+        assertThat(dto.email()).isEqualTo("dto@example.com");
+        assertThat(dto.role()).isEqualTo("USER");
+    }
+
     @Test
     void updatePartialAppliesOnlyProvided() {
         var u = userService.registerNew("upd@example.com", "StrongPass2!", encoder);
@@ -40,4 +49,20 @@ class UserServiceTest {
         assertThat(updated.getAvatarUrl()).isEqualTo("http://a");
         assertThat(updated.getDisplayName()).isEqualTo(originalDisplay); // unchanged
     }
+
+    @Test
+    void updatePartialWritesOnlyWhenSomethingChanged() {
+        var u = userService.registerNew("noop@example.com", "StrongPass4!", encoder);
+        userRepository.flush();
+        long version = u.getVersion();
+
+        var same = userService.updatePartial(u, new UpdateUserRequest(u.getDisplayName(), null, null, null));
+        userRepository.flush();
+        assertThat(same).isSameAs(u);
+        assertThat(u.getVersion()).isEqualTo(version);
+
+        userService.updatePartial(u, new UpdateUserRequest(null, null, "new bio", null));
+        userRepository.flush();
+        assertThat(u.getVersion()).isEqualTo(version + 1);
+    }
 }